@@ -21,6 +21,8 @@ import java.util.Map;
 import cn.hutool.core.map.MapUtil;
 import com.alipay.antchain.bridge.relayer.commons.constant.BizDistributedTaskTypeEnum;
 import com.alipay.antchain.bridge.relayer.commons.constant.BlockchainDistributedTaskTypeEnum;
+import com.alipay.antchain.bridge.relayer.core.service.committer.CommitterSessionRouter;
+import com.alipay.antchain.bridge.relayer.dal.repository.IScheduleRepository;
 import com.alipay.antchain.bridge.relayer.engine.core.ScheduleContext;
 import com.alipay.antchain.bridge.relayer.engine.executor.*;
 import lombok.Getter;
@@ -36,11 +38,36 @@ public class EngineConfig {
     @Value("${relayer.engine.node_id_mode:IP}")
     private String nodeIdMode;
 
+    @Value("${relayer.engine.schedule.activate.ttl:5000}")
+    private long nodeTimeToLive;
+
+    @Value("${relayer.service.committer.session_affinity.refresh_interval:3000}")
+    private long sessionAffinityRefreshInterval;
+
+    @Value("${relayer.service.committer.session_affinity.stable_window:30000}")
+    private long sessionAffinityStableWindow;
+
+    @Value("${relayer.service.committer.session_affinity.virtual_node_num:64}")
+    private int sessionAffinityVirtualNodeNum;
+
     @Bean
     public ScheduleContext scheduleContext() {
         return new ScheduleContext(nodeIdMode);
     }
 
+    @Bean
+    @Autowired
+    public CommitterSessionRouter committerSessionRouter(ScheduleContext scheduleContext, IScheduleRepository scheduleRepository) {
+        return new CommitterSessionRouter(
+                scheduleContext.getNodeId(),
+                scheduleRepository,
+                nodeTimeToLive,
+                sessionAffinityRefreshInterval,
+                sessionAffinityStableWindow,
+                sessionAffinityVirtualNodeNum
+        );
+    }
+
     @Bean
     @Autowired
     public Map<BlockchainDistributedTaskTypeEnum, BaseScheduleTaskExecutor> scheduleTaskExecutorMap(
@@ -76,6 +76,9 @@ public class RelayerCoreConfig {
     @Value("${relayer.plugin_server_manager.grpc.heartbeat.error_limit:5}")
     private int errorLimitForHeartbeat;
 
+    @Value("${relayer.plugin_server_manager.grpc.async_call.deadline:30000}")
+    private long asyncCallDeadline;
+
     @Value("${relayer.network.node.crosschain_cert_path:null}")
     private Resource relayerCrossChainCert;
 
@@ -164,7 +167,8 @@ public class RelayerCoreConfig {
                         new ThreadFactoryBuilder().setNameFormat("plugin_manager-heartbeat-%d").build()
                 ),
                 heartbeatDelayedTime,
-                errorLimitForHeartbeat
+                errorLimitForHeartbeat,
+                asyncCallDeadline
         );
     }
 
@@ -62,6 +62,18 @@ public class ThreadsConfig {
     @Value("${relayer.service.anchor.sync_task.threads.total_size:8}")
     private int blockSyncTaskTotalSize;
 
+    @Value("${relayer.service.anchor.pipeline.threads.core_size:16}")
+    private int anchorPipelineCoreSize;
+
+    @Value("${relayer.service.anchor.pipeline.threads.total_size:32}")
+    private int anchorPipelineTotalSize;
+
+    @Value("${relayer.service.anchor.checkpoint.threads.core_size:4}")
+    private int anchorCheckpointCoreSize;
+
+    @Value("${relayer.service.anchor.checkpoint.threads.total_size:8}")
+    private int anchorCheckpointTotalSize;
+
     @Value("${relayer.service.confirm.threads.core_size:4}")
     private int confirmServiceCoreSize;
 
@@ -200,6 +212,35 @@ public class ThreadsConfig {
         );
     }
 
+    /**
+     * 每条链的流水线会长期占用两个线程，不排队，线程不够时拒绝，由流水线退回串行执行
+     */
+    @Bean(name = "anchorPipelineThreadsPool")
+    public ExecutorService anchorPipelineThreadsPool() {
+        return new ThreadPoolExecutor(
+                anchorPipelineCoreSize,
+                anchorPipelineTotalSize,
+                5000L,
+                TimeUnit.MILLISECONDS,
+                new SynchronousQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("AnchorPipeline-worker-%d").build(),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    @Bean(name = "anchorCheckpointThreadsPool")
+    public ExecutorService anchorCheckpointThreadsPool() {
+        return new ThreadPoolExecutor(
+                anchorCheckpointCoreSize,
+                anchorCheckpointTotalSize,
+                5000L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(100),
+                new ThreadFactoryBuilder().setNameFormat("AnchorCheckpoint-worker-%d").build(),
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+    }
+
     @Bean(name = "confirmServiceThreadsPool")
     public ExecutorService confirmServiceThreadsPool() {
         return new ThreadPoolExecutor(
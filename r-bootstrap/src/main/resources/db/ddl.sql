@@ -165,12 +165,17 @@ CREATE TABLE `auth_msg_pool`
     `process_state`             varchar(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci  DEFAULT NULL,
     `fail_count`                int(11)                                                       DEFAULT 0,
     `ext`                       mediumblob,
+    `target_domain`             varchar(128) BINARY                                           DEFAULT NULL,
+    `lease_owner`               varchar(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci  DEFAULT NULL,
+    `lease_expire`              datetime                                                      DEFAULT NULL,
     `gmt_create`                datetime                                                      DEFAULT CURRENT_TIMESTAMP,
     `gmt_modified`              datetime                                                      DEFAULT CURRENT_TIMESTAMP,
     PRIMARY KEY (`id`),
     KEY `state` (`process_state`),
     KEY `idx_am_pool_peek` (`domain_name`, `trust_level`, `process_state`, `fail_count`),
-    KEY `idx_domainname_processstate` (`domain_name`, `process_state`)
+    KEY `idx_domainname_processstate` (`domain_name`, `process_state`),
+    KEY `idx_domainname_processstate_target` (`domain_name`, `process_state`, `target_domain`),
+    KEY `idx_domainname_leaseowner` (`domain_name`, `lease_owner`)
 ) ENGINE = InnoDB
   DEFAULT CHARSET = utf8mb4
   COLLATE = utf8mb4_0900_ai_ci
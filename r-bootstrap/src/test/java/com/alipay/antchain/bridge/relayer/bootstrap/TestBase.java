@@ -39,6 +39,7 @@ import com.alipay.antchain.bridge.relayer.commons.constant.BCDNSStateEnum;
 import com.alipay.antchain.bridge.relayer.commons.constant.PluginServerStateEnum;
 import com.alipay.antchain.bridge.relayer.commons.constant.UpperProtocolTypeBeyondAMEnum;
 import com.alipay.antchain.bridge.relayer.commons.model.*;
+import com.google.common.util.concurrent.Futures;
 import com.google.protobuf.ByteString;
 import org.bouncycastle.asn1.pkcs.PrivateKeyInfo;
 import org.junit.AfterClass;
@@ -199,6 +200,16 @@ public abstract class TestBase {
                 () -> CrossChainServiceGrpc.newBlockingStub(Mockito.any())
         ).thenReturn(crossChainServiceBlockingStub);
 
+        // 异步调用转交给同步stub，测试用例只需要mock同步stub
+        CrossChainServiceGrpc.CrossChainServiceFutureStub crossChainServiceFutureStub =
+                Mockito.mock(CrossChainServiceGrpc.CrossChainServiceFutureStub.class);
+        mockedStaticCrossChainServiceGrpc.when(
+                () -> CrossChainServiceGrpc.newFutureStub(Mockito.any())
+        ).thenReturn(crossChainServiceFutureStub);
+        Mockito.when(crossChainServiceFutureStub.bbcCall(Mockito.any())).thenAnswer(
+                invocation -> Futures.immediateFuture(crossChainServiceBlockingStub.bbcCall(invocation.getArgument(0)))
+        );
+
         Mockito.when(crossChainServiceBlockingStub.bbcCall(Mockito.argThat(
                 argument -> {
                     if (ObjectUtil.isNull(argument)) {
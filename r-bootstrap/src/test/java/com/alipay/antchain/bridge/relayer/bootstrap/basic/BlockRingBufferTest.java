@@ -0,0 +1,84 @@
+/*
+ * Copyright 2023 Ant Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alipay.antchain.bridge.relayer.bootstrap.basic;
+
+import cn.hutool.core.collection.ListUtil;
+import com.alipay.antchain.bridge.relayer.core.service.anchor.tasks.BlockRingBuffer;
+import com.alipay.antchain.bridge.relayer.core.types.blockchain.HeterogeneousBlock;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BlockRingBufferTest {
+
+    private static HeterogeneousBlock createBlock(long height) {
+        return new HeterogeneousBlock("testchain", "antchain.com", "testchain_1.id", height, ListUtil.empty());
+    }
+
+    @Test
+    public void testPutAndGet() {
+        BlockRingBuffer buffer = new BlockRingBuffer(4);
+        for (long h = 10; h < 14; h++) {
+            buffer.put(createBlock(h));
+        }
+        for (long h = 10; h < 14; h++) {
+            Assert.assertEquals(h, buffer.get(h).getHeight());
+        }
+
+        // height 14 takes the slot of height 10
+        buffer.put(createBlock(14));
+        Assert.assertNull(buffer.get(10));
+        Assert.assertEquals(14, buffer.get(14).getHeight());
+    }
+
+    @Test
+    public void testEvict() {
+        BlockRingBuffer buffer = new BlockRingBuffer(4);
+        for (long h = 10; h < 14; h++) {
+            buffer.put(createBlock(h));
+        }
+
+        buffer.evictUpTo(11);
+        Assert.assertNull(buffer.get(10));
+        Assert.assertNull(buffer.get(11));
+        Assert.assertNotNull(buffer.get(12));
+        Assert.assertNotNull(buffer.get(13));
+
+        // slots overwritten by higher blocks are kept
+        buffer.put(createBlock(14));
+        buffer.evictUpTo(13);
+        Assert.assertNull(buffer.get(13));
+        Assert.assertNotNull(buffer.get(14));
+    }
+
+    @Test
+    public void testPutOlderBlock() {
+        BlockRingBuffer buffer = new BlockRingBuffer(4);
+        buffer.put(createBlock(14));
+
+        // height 10 shares the slot with height 14 and must not replace it
+        buffer.put(createBlock(10));
+        Assert.assertNull(buffer.get(10));
+        Assert.assertEquals(14, buffer.get(14).getHeight());
+
+        // evicted heights are not cached again
+        buffer.evictUpTo(15);
+        buffer.put(createBlock(15));
+        Assert.assertNull(buffer.get(15));
+        buffer.put(createBlock(16));
+        Assert.assertEquals(16, buffer.get(16).getHeight());
+    }
+}
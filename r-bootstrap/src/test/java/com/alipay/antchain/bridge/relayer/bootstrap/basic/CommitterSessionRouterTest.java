@@ -0,0 +1,90 @@
+/*
+ * Copyright 2023 Ant Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alipay.antchain.bridge.relayer.bootstrap.basic;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import cn.hutool.core.collection.ListUtil;
+import com.alipay.antchain.bridge.relayer.commons.model.ActiveNode;
+import com.alipay.antchain.bridge.relayer.core.service.committer.CommitterSessionRouter;
+import com.alipay.antchain.bridge.relayer.dal.repository.IScheduleRepository;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class CommitterSessionRouterTest {
+
+    @Test
+    public void testOwnership() {
+        IScheduleRepository scheduleRepository = Mockito.mock(IScheduleRepository.class);
+        Mockito.when(scheduleRepository.getAllActiveNodes()).thenReturn(
+                ListUtil.toList(activeNode("node1"), activeNode("node2"), activeNode("node3"))
+        );
+
+        List<CommitterSessionRouter> routers = ListUtil.toList(
+                new CommitterSessionRouter("node1", scheduleRepository, 5000, 0, 0, 64),
+                new CommitterSessionRouter("node2", scheduleRepository, 5000, 0, 0, 64),
+                new CommitterSessionRouter("node3", scheduleRepository, 5000, 0, 0, 64)
+        );
+
+        // every session has exactly one owner
+        for (int i = 0; i < 100; i++) {
+            String session = "domainA.sender" + i + ":domainB.receiver";
+            Assert.assertEquals(1, routers.stream().filter(router -> router.ifOwnSession(session)).count());
+        }
+        Assert.assertFalse(routers.get(0).ifNeedLock());
+    }
+
+    @Test
+    public void testMembershipChange() {
+        IScheduleRepository scheduleRepository = Mockito.mock(IScheduleRepository.class);
+        Mockito.when(scheduleRepository.getAllActiveNodes()).thenReturn(
+                ListUtil.toList(activeNode("node1"), activeNode("node2"))
+        );
+        CommitterSessionRouter router = new CommitterSessionRouter("node1", scheduleRepository, 5000, 0, 60000, 64);
+
+        List<String> owners = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            router.ifOwnSession("s" + i);
+            owners.add(router.getOwner("s" + i));
+        }
+        Assert.assertTrue(router.ifNeedLock());
+
+        // node3 joins and only takes sessions from others
+        Mockito.when(scheduleRepository.getAllActiveNodes()).thenReturn(
+                ListUtil.toList(activeNode("node1"), activeNode("node2"), activeNode("node3"))
+        );
+        for (int i = 0; i < 100; i++) {
+            router.ifOwnSession("s" + i);
+            String newOwner = router.getOwner("s" + i);
+            Assert.assertTrue(newOwner.equals(owners.get(i)) || newOwner.equals("node3"));
+        }
+
+        // local node is not active, commit all sessions with lock
+        Mockito.when(scheduleRepository.getAllActiveNodes()).thenReturn(
+                ListUtil.toList(activeNode("node2"), activeNode("node3"))
+        );
+        Assert.assertTrue(router.ifOwnSession("s0"));
+        Assert.assertTrue(router.ifNeedLock());
+    }
+
+    private ActiveNode activeNode(String nodeId) {
+        return new ActiveNode(nodeId, "127.0.0.1", System.currentTimeMillis());
+    }
+}
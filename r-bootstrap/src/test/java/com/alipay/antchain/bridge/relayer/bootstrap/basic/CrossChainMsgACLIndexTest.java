@@ -0,0 +1,79 @@
+/*
+ * Copyright 2023 Ant Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alipay.antchain.bridge.relayer.bootstrap.basic;
+
+import cn.hutool.core.collection.ListUtil;
+import com.alipay.antchain.bridge.relayer.commons.model.CrossChainMsgACLItem;
+import com.alipay.antchain.bridge.relayer.core.manager.gov.CrossChainMsgACLIndex;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CrossChainMsgACLIndexTest {
+
+    private static final String OWNER_ID = "0000000000000000000000000000000000000000000000000000000000000001";
+
+    private static final String GRANT_ID = "0000000000000000000000000000000000000000000000000000000000000002";
+
+    private static final String OTHER_ID = "0000000000000000000000000000000000000000000000000000000000000003";
+
+    @Test
+    public void testExactAndWildcard() {
+        CrossChainMsgACLIndex index = new CrossChainMsgACLIndex(
+                ListUtil.of(
+                        new CrossChainMsgACLItem("biz-1", "owner.com", OWNER_ID, "grant.com", GRANT_ID, 0),
+                        new CrossChainMsgACLItem("biz-2", "owner.com", OWNER_ID, "any-grant.com", CrossChainMsgACLItem.MEANS_ANY, 0),
+                        new CrossChainMsgACLItem("biz-3", "any-owner.com", CrossChainMsgACLItem.MEANS_ANY, "grant.com", GRANT_ID, 0)
+                )
+        );
+
+        Assert.assertTrue(index.check("owner.com", OWNER_ID, "grant.com", GRANT_ID));
+        Assert.assertTrue(index.check("owner.com", OWNER_ID.toUpperCase(), "grant.com", GRANT_ID));
+        Assert.assertFalse(index.check("owner.com", OWNER_ID, "grant.com", OTHER_ID));
+        Assert.assertFalse(index.check("grant.com", GRANT_ID, "owner.com", OWNER_ID));
+
+        Assert.assertTrue(index.check("owner.com", OWNER_ID, "any-grant.com", OTHER_ID));
+        Assert.assertFalse(index.check("owner.com", OTHER_ID, "any-grant.com", OTHER_ID));
+
+        Assert.assertTrue(index.check("any-owner.com", OTHER_ID, "grant.com", GRANT_ID));
+        Assert.assertFalse(index.check("any-owner.com", OTHER_ID, "grant.com", OTHER_ID));
+    }
+
+    @Test
+    public void testAddAndRemove() {
+        CrossChainMsgACLIndex index = new CrossChainMsgACLIndex(ListUtil.empty());
+        Assert.assertFalse(index.check("owner.com", OWNER_ID, "grant.com", GRANT_ID));
+
+        index.add(new CrossChainMsgACLItem("biz-1", "owner.com", OWNER_ID, "grant.com", GRANT_ID, 0));
+        index.add(new CrossChainMsgACLItem("biz-2", "owner.com", OWNER_ID, "grant.com", GRANT_ID, 0));
+        Assert.assertEquals(2, index.size());
+        Assert.assertTrue(index.check("owner.com", OWNER_ID, "grant.com", GRANT_ID));
+
+        // the same rule is still granted by biz-2
+        index.remove("biz-1");
+        Assert.assertTrue(index.check("owner.com", OWNER_ID, "grant.com", GRANT_ID));
+
+        index.remove("biz-2");
+        Assert.assertFalse(index.check("owner.com", OWNER_ID, "grant.com", GRANT_ID));
+        Assert.assertEquals(0, index.size());
+
+        index.add(new CrossChainMsgACLItem("biz-3", "owner.com", CrossChainMsgACLItem.MEANS_ANY, "grant.com", CrossChainMsgACLItem.MEANS_ANY, 0));
+        Assert.assertTrue(index.check("owner.com", OTHER_ID, "grant.com", OTHER_ID));
+        index.add(new CrossChainMsgACLItem("biz-4", "owner.com", OWNER_ID, "grant.com", GRANT_ID, 1));
+        Assert.assertEquals(1, index.size());
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2023 Ant Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alipay.antchain.bridge.relayer.bootstrap.basic;
+
+import cn.hutool.core.collection.ListUtil;
+import cn.hutool.core.util.RandomUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.alibaba.fastjson.JSON;
+import com.alipay.antchain.bridge.commons.core.am.AuthMessageTrustLevelEnum;
+import com.alipay.antchain.bridge.commons.core.am.AuthMessageV2;
+import com.alipay.antchain.bridge.commons.core.base.CrossChainIdentity;
+import com.alipay.antchain.bridge.commons.core.base.CrossChainMessage;
+import com.alipay.antchain.bridge.relayer.commons.constant.UpperProtocolTypeBeyondAMEnum;
+import com.alipay.antchain.bridge.relayer.commons.model.UniformCrosschainPacketContext;
+import com.alipay.antchain.bridge.relayer.core.types.blockchain.HeterogeneousBlock;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HeterogeneousBlockCodecTest {
+
+    private static HeterogeneousBlock createBlock() {
+        return new HeterogeneousBlock(
+                "testchain",
+                "antchain.com",
+                "testchain_1.id",
+                100L,
+                ListUtil.toList(createMessage(CrossChainMessage.CrossChainMessageType.DEVELOPER_DESIGN))
+        );
+    }
+
+    private static CrossChainMessage createMessage(CrossChainMessage.CrossChainMessageType type) {
+        byte[] message = RandomUtil.randomBytes(128);
+        if (type == CrossChainMessage.CrossChainMessageType.AUTH_MSG) {
+            // AUTH_MSG在构造区块时会被解析，需要合法的AM
+            AuthMessageV2 authMessageV2 = new AuthMessageV2();
+            authMessageV2.setIdentity(CrossChainIdentity.fromHexStr(DigestUtil.sha256Hex("01")));
+            authMessageV2.setTrustLevel(AuthMessageTrustLevelEnum.POSITIVE_TRUST);
+            authMessageV2.setUpperProtocol(UpperProtocolTypeBeyondAMEnum.SDP.ordinal());
+            authMessageV2.setPayload(RandomUtil.randomBytes(32));
+            message = authMessageV2.encode();
+        }
+        return CrossChainMessage.createCrossChainMessage(
+                type,
+                100L,
+                System.currentTimeMillis(),
+                RandomUtil.randomBytes(32),
+                message,
+                new byte[0],
+                new byte[0],
+                RandomUtil.randomBytes(32)
+        );
+    }
+
+    @Test
+    public void testBinaryCodec() {
+        HeterogeneousBlock block = createBlock();
+
+        HeterogeneousBlock decoded = new HeterogeneousBlock();
+        decoded.decode(block.encode());
+
+        assertBlockEquals(block, decoded);
+    }
+
+    @Test
+    public void testAllMessageTypes() {
+        for (CrossChainMessage.CrossChainMessageType type : CrossChainMessage.CrossChainMessageType.values()) {
+            HeterogeneousBlock block = new HeterogeneousBlock(
+                    "testchain",
+                    "antchain.com",
+                    "testchain_1.id",
+                    100L,
+                    ListUtil.toList(createMessage(type))
+            );
+
+            HeterogeneousBlock decoded = new HeterogeneousBlock();
+            decoded.decode(block.encode());
+
+            assertBlockEquals(block, decoded);
+            Assert.assertEquals(
+                    type,
+                    decoded.getUniformCrosschainPacketContexts().get(0).getUcp().getSrcMessage().getType()
+            );
+        }
+    }
+
+    @Test
+    public void testDecodeLegacyJson() {
+        HeterogeneousBlock block = createBlock();
+
+        HeterogeneousBlock decoded = new HeterogeneousBlock();
+        decoded.decode(JSON.toJSONBytes(block));
+
+        assertBlockEquals(block, decoded);
+    }
+
+    @Test
+    public void testUcpIdStableForSameBlock() {
+        CrossChainMessage message = createMessage(CrossChainMessage.CrossChainMessageType.AUTH_MSG);
+        HeterogeneousBlock block = new HeterogeneousBlock(
+                "testchain", "antchain.com", "testchain_1.id", 100L, ListUtil.toList(message, message)
+        );
+        HeterogeneousBlock sameBlock = new HeterogeneousBlock(
+                "testchain", "antchain.com", "testchain_1.id", 100L, ListUtil.toList(message, message)
+        );
+
+        // 重新接收同一个区块得到相同的UCP id，同一区块内相同的消息仍然区分
+        for (int i = 0; i < 2; i++) {
+            Assert.assertEquals(
+                    block.getUniformCrosschainPacketContexts().get(i).getUcpId(),
+                    sameBlock.getUniformCrosschainPacketContexts().get(i).getUcpId()
+            );
+            Assert.assertEquals(
+                    block.getUniformCrosschainPacketContexts().get(i).getUcpId(),
+                    block.toAuthMsgWrappers().get(i).getUcpId()
+            );
+        }
+        Assert.assertNotEquals(
+                block.getUniformCrosschainPacketContexts().get(0).getUcpId(),
+                block.getUniformCrosschainPacketContexts().get(1).getUcpId()
+        );
+    }
+
+    private void assertBlockEquals(HeterogeneousBlock expected, HeterogeneousBlock actual) {
+        Assert.assertEquals(expected.getProduct(), actual.getProduct());
+        Assert.assertEquals(expected.getBlockchainId(), actual.getBlockchainId());
+        Assert.assertEquals(expected.getHeight(), actual.getHeight());
+        Assert.assertEquals(expected.getDomain(), actual.getDomain());
+        Assert.assertEquals(expected.getUniformCrosschainPacketContexts().size(), actual.getUniformCrosschainPacketContexts().size());
+
+        UniformCrosschainPacketContext expectedUcp = expected.getUniformCrosschainPacketContexts().get(0);
+        UniformCrosschainPacketContext actualUcp = actual.getUniformCrosschainPacketContexts().get(0);
+        Assert.assertEquals(expectedUcp.getUcpId(), actualUcp.getUcpId());
+        Assert.assertEquals(expectedUcp.getProcessState(), actualUcp.getProcessState());
+        Assert.assertEquals(expectedUcp.getSrcDomain(), actualUcp.getSrcDomain());
+        Assert.assertEquals(expectedUcp.getTxHash(), actualUcp.getTxHash());
+        Assert.assertEquals(expectedUcp.getBlockHash(), actualUcp.getBlockHash());
+        Assert.assertArrayEquals(
+                expectedUcp.getUcp().getSrcMessage().getMessage(),
+                actualUcp.getUcp().getSrcMessage().getMessage()
+        );
+    }
+}
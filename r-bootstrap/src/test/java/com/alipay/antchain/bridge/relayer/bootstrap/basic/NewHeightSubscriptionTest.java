@@ -0,0 +1,68 @@
+/*
+ * Copyright 2023 Ant Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alipay.antchain.bridge.relayer.bootstrap.basic;
+
+import java.io.Closeable;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+import com.alipay.antchain.bridge.relayer.commons.model.BlockchainMeta;
+import com.alipay.antchain.bridge.relayer.core.service.anchor.context.AnchorProcessContext;
+import com.alipay.antchain.bridge.relayer.core.service.anchor.tasks.NewHeightSubscription;
+import com.alipay.antchain.bridge.relayer.core.types.blockchain.AbstractBlockchainClient;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+public class NewHeightSubscriptionTest {
+
+    @Test
+    public void testPolledHeightNotRefreshSubscription() throws Exception {
+        AbstractBlockchainClient blockchainClient = Mockito.mock(AbstractBlockchainClient.class);
+        Mockito.when(blockchainClient.subscribeNewHeight(ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenReturn(Mockito.mock(Closeable.class));
+        AnchorProcessContext processContext = Mockito.mock(AnchorProcessContext.class);
+        Mockito.when(processContext.getBlockchainClient()).thenReturn(blockchainClient);
+        Mockito.when(processContext.getBlockchainMeta()).thenReturn(Mockito.mock(BlockchainMeta.class));
+
+        NewHeightSubscription subscription = new NewHeightSubscription(processContext, 200, 60000);
+        // 订阅刚建立，还没有推送
+        Assert.assertEquals(-1, subscription.readLatestHeight());
+
+        ArgumentCaptor<LongConsumer> heightConsumer = ArgumentCaptor.forClass(LongConsumer.class);
+        Mockito.verify(blockchainClient).subscribeNewHeight(heightConsumer.capture(), ArgumentMatchers.<Consumer<Throwable>>any());
+        heightConsumer.getValue().accept(10);
+        Assert.assertEquals(10, subscription.readLatestHeight());
+
+        // 查询到的高度只合并到最新高度
+        subscription.onPolledHeight(20);
+        Assert.assertEquals(20, subscription.readLatestHeight());
+        subscription.onPolledHeight(15);
+        Assert.assertEquals(20, subscription.readLatestHeight());
+
+        // 长时间没有推送，即使polling任务一直在查询，订阅也视为失效
+        Thread.sleep(300);
+        subscription.onPolledHeight(30);
+        Assert.assertEquals(-1, subscription.readLatestHeight());
+
+        heightConsumer.getValue().accept(31);
+        Assert.assertEquals(31, subscription.readLatestHeight());
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2023 Ant Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alipay.antchain.bridge.relayer.bootstrap.basic;
+
+import cn.hutool.core.collection.ListUtil;
+import com.alipay.antchain.bridge.relayer.commons.model.SDPMsgWrapper;
+import com.alipay.antchain.bridge.relayer.core.service.committer.SessionCommitWindow;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class SessionCommitWindowTest {
+
+    @Test
+    public void testPipeline() {
+        SessionCommitWindow window = new SessionCommitWindow("session", sdpMsg(0, 0), 2);
+        Assert.assertTrue(window.sync(5));
+        Assert.assertEquals(5, window.getNextSeq());
+
+        window.onSent(ListUtil.toList(sdpMsg(1, 5), sdpMsg(2, 6)));
+        window.onSent(ListUtil.toList(sdpMsg(3, 7)));
+        Assert.assertTrue(window.isFull());
+        Assert.assertEquals(8, window.getNextSeq());
+        Assert.assertFalse(window.getHead().isSpeculative());
+
+        // the first tx confirmed
+        Assert.assertTrue(window.sync(7));
+        Assert.assertFalse(window.isFull());
+        Assert.assertEquals(7, window.getHead().getStartSeq());
+        Assert.assertEquals(8, window.getNextSeq());
+
+        // failed to query seq on chain
+        Assert.assertFalse(window.sync(0));
+
+        Assert.assertTrue(window.sync(8));
+        Assert.assertTrue(window.isEmpty());
+        Assert.assertEquals(8, window.getNextSeq());
+    }
+
+    @Test
+    public void testRecover() {
+        SessionCommitWindow window = new SessionCommitWindow("session", sdpMsg(0, 0), 4);
+        window.sync(5);
+        window.onSent(ListUtil.toList(sdpMsg(1, 5)));
+        window.onSent(ListUtil.toList(sdpMsg(2, 6)));
+        window.onSent(ListUtil.toList(sdpMsg(3, 7)));
+
+        // the head tx failed and is not speculative, so only trailing msgs need to resend
+        window.sync(5);
+        window.startRecovering();
+        Assert.assertEquals(ListUtil.toList(2L, 3L), window.finishRecovering());
+        Assert.assertFalse(window.isRecovering());
+        Assert.assertTrue(window.isEmpty());
+        Assert.assertEquals(5, window.getNextSeq());
+
+        // tx with seq 6 failed because it landed before tx with seq 5
+        window.onSent(ListUtil.toList(sdpMsg(1, 5)));
+        window.onSent(ListUtil.toList(sdpMsg(2, 6)));
+        window.sync(6);
+        Assert.assertTrue(window.getHead().isSpeculative());
+        window.startRecovering();
+        Assert.assertEquals(ListUtil.toList(2L), window.finishRecovering());
+        Assert.assertEquals(6, window.getNextSeq());
+    }
+
+    private SDPMsgWrapper sdpMsg(long id, int seq) {
+        SDPMsgWrapper sdpMsgWrapper = Mockito.mock(SDPMsgWrapper.class);
+        Mockito.when(sdpMsgWrapper.getId()).thenReturn(id);
+        Mockito.when(sdpMsgWrapper.getMsgSequence()).thenReturn(seq);
+        return sdpMsgWrapper;
+    }
+}
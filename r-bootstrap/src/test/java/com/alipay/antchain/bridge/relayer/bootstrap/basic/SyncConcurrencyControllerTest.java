@@ -0,0 +1,74 @@
+/*
+ * Copyright 2023 Ant Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alipay.antchain.bridge.relayer.bootstrap.basic;
+
+import com.alipay.antchain.bridge.relayer.core.service.anchor.tasks.SyncConcurrencyController;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SyncConcurrencyControllerTest {
+
+    @Test
+    public void testIncreaseWhenBehind() {
+        SyncConcurrencyController controller = new SyncConcurrencyController("testchain_1", 4, 1, 8, 2.0);
+        for (int i = 0; i < 10; i++) {
+            controller.onSuccess(controller.nextBatchSize(1000), 100, 1000);
+        }
+        Assert.assertEquals(8, controller.getWindow());
+
+        // not behind, no need to grow
+        controller = new SyncConcurrencyController("testchain_1", 4, 1, 8, 2.0);
+        controller.onSuccess(controller.nextBatchSize(2), 100, 2);
+        Assert.assertEquals(4, controller.getWindow());
+        Assert.assertEquals(2, controller.nextBatchSize(2));
+    }
+
+    @Test
+    public void testDecrease() {
+        SyncConcurrencyController controller = new SyncConcurrencyController("testchain_1", 8, 1, 8, 2.0, 0);
+        controller.onFailure();
+        Assert.assertEquals(4, controller.getWindow());
+
+        controller.onSuccess(4, 100, 1000);
+        for (int i = 0; i < 10; i++) {
+            controller.onSuccess(4, 1000, 1000);
+        }
+        Assert.assertEquals(1, controller.getWindow());
+        Assert.assertEquals(1, controller.getFailureCount());
+    }
+
+    @Test
+    public void testLatencyGrowsWithWindow() {
+        // 每个区块耗时不变，批次耗时随窗口线性增长，不应触发减半
+        SyncConcurrencyController controller = new SyncConcurrencyController("testchain_1", 4, 1, 16, 2.0, 0);
+        for (int i = 0; i < 20; i++) {
+            int batchSize = controller.nextBatchSize(1000);
+            controller.onSuccess(batchSize, 100L * batchSize, 1000);
+        }
+        Assert.assertEquals(16, controller.getWindow());
+    }
+
+    @Test
+    public void testDecreaseCooldown() {
+        SyncConcurrencyController controller = new SyncConcurrencyController("testchain_1", 8, 1, 8, 2.0, 60_000);
+        controller.onFailure();
+        controller.onFailure();
+        controller.onFailure();
+        Assert.assertEquals(4, controller.getWindow());
+        Assert.assertEquals(3, controller.getFailureCount());
+    }
+}
@@ -18,6 +18,7 @@ package com.alipay.antchain.bridge.relayer.bootstrap.repo;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 import javax.annotation.Resource;
 
 import cn.hutool.core.collection.ListUtil;
@@ -40,6 +41,7 @@ import com.alipay.antchain.bridge.relayer.commons.constant.UpperProtocolTypeBeyo
 import com.alipay.antchain.bridge.relayer.commons.model.AuthMsgWrapper;
 import com.alipay.antchain.bridge.relayer.commons.model.SDPMsgCommitResult;
 import com.alipay.antchain.bridge.relayer.commons.model.SDPMsgWrapper;
+import com.alipay.antchain.bridge.relayer.core.service.receiver.handler.AsyncReceiveHandler;
 import com.alipay.antchain.bridge.relayer.dal.entities.*;
 import com.alipay.antchain.bridge.relayer.dal.mapper.AuthMsgArchiveMapper;
 import com.alipay.antchain.bridge.relayer.dal.mapper.AuthMsgPoolMapper;
@@ -107,6 +109,9 @@ public class CrossChainRepositoryTest extends TestBase {
     @Resource
     private ICrossChainMessageRepository crossChainMessageRepository;
 
+    @Resource
+    private AsyncReceiveHandler asyncReceiveHandler;
+
     @Resource
     private AuthMsgArchiveMapper authMsgArchiveMapper;
 
@@ -274,6 +279,7 @@ public class CrossChainRepositoryTest extends TestBase {
     @Test
     public void testUpdateSDPMessageResults() {
         saveSomeSDP();
+        setTxPending(ListUtil.of(DigestUtil.sha256Hex(Integer.toString(10))), DigestUtil.sha256Hex(Integer.toString(10)));
 
         List<SDPMsgCommitResult> results = new ArrayList<>();
 
@@ -297,6 +303,67 @@ public class CrossChainRepositoryTest extends TestBase {
         );
     }
 
+    @Test
+    public void testUpdateSDPMessageResultsForMultiMsgPkg() {
+        saveSomeSDP();
+        // 三条消息在同一笔交易中提交
+        String txHash = HexUtil.encodeHexStr(RandomUtil.randomBytes(32));
+        setTxPending(
+                ListUtil.of(
+                        DigestUtil.sha256Hex(Integer.toString(0)),
+                        DigestUtil.sha256Hex(Integer.toString(1)),
+                        DigestUtil.sha256Hex(Integer.toString(2))
+                ),
+                txHash
+        );
+
+        // 同一笔交易的回执上报了多次
+        List<SDPMsgCommitResult> results = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            results.add(new SDPMsgCommitResult("eth", "ethid", txHash, true, "", System.currentTimeMillis()));
+        }
+
+        List<Integer> updated = crossChainMessageRepository.updateSDPMessageResults(results);
+        Assert.assertEquals(3, updated.stream().mapToInt(Integer::intValue).sum());
+        Assert.assertEquals(
+                3,
+                crossChainMessageRepository.countSDPMessagesByState("eth", "ethid", SDPMsgProcessStateEnum.TX_SUCCESS)
+        );
+        Assert.assertEquals(
+                0,
+                crossChainMessageRepository.countSDPMessagesByState("eth", "ethid", SDPMsgProcessStateEnum.TX_PENDING)
+        );
+    }
+
+    @Test
+    public void testReceiveAMClientReceiptBeforeConfirm() {
+        saveSomeSDP();
+        String txHash = HexUtil.encodeHexStr(RandomUtil.randomBytes(32));
+        setTxPending(
+                ListUtil.of(
+                        DigestUtil.sha256Hex(Integer.toString(0)),
+                        DigestUtil.sha256Hex(Integer.toString(1))
+                ),
+                txHash
+        );
+        crossChainMessageRepository.setTxPendingCount("eth", "ethid", 2);
+
+        // 锚定链上的回执先到达，由receiver把消息更新为TX_SUCCESS
+        Assert.assertTrue(
+                asyncReceiveHandler.receiveAMClientReceipt(
+                        ListUtil.toList(new SDPMsgCommitResult("eth", "ethid", txHash, true, "", System.currentTimeMillis()))
+                )
+        );
+        Assert.assertEquals(0, crossChainMessageRepository.getTxPendingCount("eth", "ethid"));
+
+        // confirm服务随后查询到回执时已经没有TX_PENDING的消息，计数不再变化
+        List<Integer> updated = crossChainMessageRepository.updateSDPMessageResults(
+                ListUtil.toList(new SDPMsgCommitResult("eth", "ethid", txHash, true, "", System.currentTimeMillis()))
+        );
+        Assert.assertEquals(0, updated.stream().mapToInt(Integer::intValue).sum());
+        Assert.assertEquals(0, crossChainMessageRepository.getTxPendingCount("eth", "ethid"));
+    }
+
     @Test
     public void testPeekTxPendingSDPMessageIds() {
         saveSomeSDP();
@@ -418,6 +485,126 @@ public class CrossChainRepositoryTest extends TestBase {
         Assert.assertNotNull(authMsgWrapper.getAuthMessage());
     }
 
+    @Test
+    public void testClaimAuthMessages() {
+        saveElevenAM(getAMCurrentId());
+
+        long firstId = getAMCurrentId() - 10;
+        List<AuthMsgWrapper> claimed = crossChainMessageRepository.claimAuthMessages("test", 5, 10, "owner1", 60_000);
+        Assert.assertEquals(5, claimed.size());
+        // 按id从小到大领取
+        for (int i = 0; i < claimed.size(); i++) {
+            Assert.assertEquals(firstId + i, claimed.get(i).getAuthMsgId());
+        }
+
+        // 租约未到期的消息不会被再次领取
+        List<AuthMsgWrapper> claimedByOther = crossChainMessageRepository.claimAuthMessages("test", 11, 10, "owner2", 60_000);
+        Assert.assertEquals(6, claimedByOther.size());
+        claimedByOther.forEach(
+                am -> Assert.assertTrue(claimed.stream().noneMatch(c -> c.getAuthMsgId() == am.getAuthMsgId()))
+        );
+
+        Assert.assertTrue(crossChainMessageRepository.claimAuthMessages("test", 11, 10, "owner3", 60_000).isEmpty());
+    }
+
+    @Test
+    public void testClaimExpiredAuthMessages() {
+        saveElevenAM(getAMCurrentId());
+
+        Assert.assertEquals(11, crossChainMessageRepository.claimAuthMessages("test", 11, 10, "owner1", -60_000).size());
+        Assert.assertEquals(11, crossChainMessageRepository.claimAuthMessages("test", 11, 10, "owner2", 60_000).size());
+    }
+
+    @Test
+    public void testReleaseAuthMessages() {
+        saveElevenAM(getAMCurrentId());
+
+        List<Long> ids = crossChainMessageRepository.claimAuthMessages("test", 5, 10, "owner1", 60_000).stream()
+                .map(AuthMsgWrapper::getAuthMsgId)
+                .collect(Collectors.toList());
+        Assert.assertEquals(5, ids.size());
+
+        // 只能释放自己领取的消息
+        Assert.assertEquals(0, crossChainMessageRepository.releaseAuthMessages(ids, "owner2"));
+        Assert.assertEquals(5, crossChainMessageRepository.releaseAuthMessages(ids, "owner1"));
+        Assert.assertEquals(0, crossChainMessageRepository.releaseAuthMessages(ListUtil.empty(), "owner1"));
+
+        Assert.assertEquals(11, crossChainMessageRepository.claimAuthMessages("test", 11, 10, "owner2", 60_000).size());
+    }
+
+    @Test
+    public void testRenewAuthMessages() {
+        saveElevenAM(getAMCurrentId());
+
+        List<Long> ids = crossChainMessageRepository.claimAuthMessages("test", 5, 10, "owner1", -60_000).stream()
+                .map(AuthMsgWrapper::getAuthMsgId)
+                .collect(Collectors.toList());
+        Assert.assertEquals(5, ids.size());
+        Assert.assertEquals(5, crossChainMessageRepository.renewAuthMessages(ids, "owner1", 60_000));
+
+        // 续约后不会被其他调用方领取
+        Assert.assertEquals(6, crossChainMessageRepository.claimAuthMessages("test", 11, 10, "owner2", -60_000).size());
+
+        // 租约过期后被owner2领取，owner1不能再续约
+        Assert.assertEquals(0, crossChainMessageRepository.renewAuthMessages(ids.subList(0, 1), "owner2", 60_000));
+        Assert.assertEquals(0, crossChainMessageRepository.renewAuthMessages(ListUtil.empty(), "owner1", 60_000));
+    }
+
+    @Test
+    public void testUpdateAuthMessagesState() {
+        saveElevenAM(getAMCurrentId());
+
+        List<AuthMsgWrapper> authMsgWrappers = ListUtil.toList(
+                crossChainMessageRepository.getAuthMessage(1),
+                crossChainMessageRepository.getAuthMessage(2),
+                crossChainMessageRepository.getAuthMessage(3)
+        );
+        authMsgWrappers.forEach(am -> am.setProcessState(AuthMsgProcessStateEnum.PROCESSED));
+        authMsgWrappers.get(2).setAmClientContractAddress("am2");
+
+        Assert.assertEquals(3, crossChainMessageRepository.updateAuthMessagesState(authMsgWrappers));
+
+        Assert.assertEquals(AuthMsgProcessStateEnum.PROCESSED, crossChainMessageRepository.getAuthMessage(1).getProcessState());
+        Assert.assertEquals(AuthMsgProcessStateEnum.PROCESSED, crossChainMessageRepository.getAuthMessage(2).getProcessState());
+        Assert.assertEquals("am", crossChainMessageRepository.getAuthMessage(2).getAmClientContractAddress());
+        Assert.assertEquals("am2", crossChainMessageRepository.getAuthMessage(3).getAmClientContractAddress());
+        Assert.assertEquals(AuthMsgProcessStateEnum.PENDING, crossChainMessageRepository.getAuthMessage(4).getProcessState());
+    }
+
+    @Test
+    public void testPutSDPMessages() {
+        List<SDPMsgWrapper> sdpMsgWrappers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            sdpMsgWrappers.add(
+                    new SDPMsgWrapper(
+                            "eth",
+                            "ethid",
+                            "am",
+                            SDPMsgProcessStateEnum.PENDING,
+                            DigestUtil.sha256Hex(Integer.toString(i)),
+                            false,
+                            "",
+                            new AuthMsgWrapper(
+                                    i + 1,
+                                    "test",
+                                    "test",
+                                    "test",
+                                    HexUtil.encodeHexStr(ByteUtil.intToBytes(i)),
+                                    "am",
+                                    AuthMsgProcessStateEnum.PENDING,
+                                    0,
+                                    new byte[]{},
+                                    authMessagePositiveTrust
+                            ),
+                            sdpMessage
+                    )
+            );
+        }
+
+        crossChainMessageRepository.putSDPMessages(sdpMsgWrappers);
+        Assert.assertEquals(3L, getSDPCurrentId());
+    }
+
     private long getAMCurrentId() {
         AuthMsgPoolEntity entity = new AuthMsgPoolEntity();
         entity.setId(0L);
@@ -495,6 +682,17 @@ public class CrossChainRepositoryTest extends TestBase {
         ).getId();
     }
 
+    private void setTxPending(List<String> oldTxHashes, String txHash) {
+        SDPMsgPoolEntity entity = new SDPMsgPoolEntity();
+        entity.setProcessState(SDPMsgProcessStateEnum.TX_PENDING);
+        entity.setTxHash(txHash);
+        sdpMsgPoolMapper.update(
+                entity,
+                new LambdaUpdateWrapper<SDPMsgPoolEntity>()
+                        .in(SDPMsgPoolEntity::getTxHash, oldTxHashes)
+        );
+    }
+
     private void saveSomeSDP() {
 
         for (int i = 0; i < 11; i++) {
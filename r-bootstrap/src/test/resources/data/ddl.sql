@@ -137,12 +137,17 @@ CREATE TABLE IF NOT EXISTS `auth_msg_pool`
     `process_state`             varchar(64)  DEFAULT NULL,
     `fail_count`                int(11)      DEFAULT 0,
     `ext`                       mediumblob,
+    `target_domain`             varchar(128) DEFAULT NULL,
+    `lease_owner`               varchar(64)  DEFAULT NULL,
+    `lease_expire`              datetime     DEFAULT NULL,
     `gmt_create`                datetime     DEFAULT CURRENT_TIMESTAMP,
     `gmt_modified`              datetime     DEFAULT CURRENT_TIMESTAMP,
     PRIMARY KEY (`id`),
     KEY `state` (`process_state`),
     KEY `idx_am_pool_peek` (`domain_name`, `trust_level`, `process_state`, `fail_count`),
-    KEY `idx_domainname_processstate` (`domain_name`, `process_state`)
+    KEY `idx_domainname_processstate` (`domain_name`, `process_state`),
+    KEY `idx_domainname_processstate_target` (`domain_name`, `process_state`, `target_domain`),
+    KEY `idx_domainname_leaseowner` (`domain_name`, `lease_owner`)
 );
 
 CREATE TABLE IF NOT EXISTS `sdp_msg_pool`
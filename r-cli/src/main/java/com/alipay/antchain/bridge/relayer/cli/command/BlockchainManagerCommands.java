@@ -64,6 +64,14 @@ public class BlockchainManagerCommands extends BaseCommands {
         return queryAPI("getBlockchainHeights", product, blockchainId);
     }
 
+    @ShellMethod(value = "Get the adaptive sync concurrency state of the blockchain on the relayer node")
+    Object getSyncConcurrency(
+            @ShellOption(help = "Product type for blockchain, e.g. mychain010") String product,
+            @ShellOption(help = "Local blockchain ID") String blockchainId
+    ) {
+        return queryAPI("getSyncConcurrency", product, blockchainId);
+    }
+
     @ShellMethod(value = "Add a specified blockchain configuration to start the anchor service")
     Object addBlockchainAnchor(
             @ShellOption(help = "Product type for blockchain, e.g. mychain010") String product,
@@ -135,6 +143,15 @@ public class BlockchainManagerCommands extends BaseCommands {
         return queryAPI("setTxPendingLimit", product, blockchainId, Integer.toString(txPendingLimit));
     }
 
+    @ShellMethod(value = "Set max number of cross-chain messages committed in one transaction to the blockchain receiving cross-chain messages")
+    Object setAMPkgSize(
+            @ShellOption(help = "Product type for blockchain, e.g. mychain010") String product,
+            @ShellOption(help = "Local blockchain ID") String blockchainId,
+            @ShellOption(help = "The max number of messages in one package") Integer amPkgSize
+    ) {
+        return queryAPI("setAMPkgSize", product, blockchainId, Integer.toString(amPkgSize));
+    }
+
     @ShellMethod(value = "Query SDP message sequence number on the specified direction")
     Object querySDPMsgSeq(
             @ShellOption(help = "Product type for blockchain receiving cross-chain messages") String receiverProduct,
@@ -20,6 +20,8 @@ public class Constants {
 
     public static final String PENDING_LIMIT = "PENDING_LIMIT";
 
+    public static final String AM_PKG_SIZE = "AM_PKG_SIZE";
+
     public static final String AM_SERVICE_STATUS = "am_service_status";
 
     public static final String HETEROGENEOUS_BBC_CONTEXT = "heterogeneous_bbc_context";
@@ -27,11 +27,14 @@ import com.alipay.antchain.bridge.commons.core.am.AuthMessageFactory;
 import com.alipay.antchain.bridge.commons.core.am.AuthMessageV2;
 import com.alipay.antchain.bridge.commons.core.am.IAuthMessage;
 import com.alipay.antchain.bridge.commons.core.base.CrossChainMessage;
+import com.alipay.antchain.bridge.commons.core.sdp.ISDPMessage;
+import com.alipay.antchain.bridge.commons.core.sdp.SDPMessageFactory;
 import com.alipay.antchain.bridge.relayer.commons.constant.AuthMsgProcessStateEnum;
 import com.alipay.antchain.bridge.relayer.commons.constant.AuthMsgTrustLevelEnum;
 import com.alipay.antchain.bridge.relayer.commons.constant.UpperProtocolTypeBeyondAMEnum;
 import com.alipay.antchain.bridge.relayer.commons.exception.AntChainBridgeRelayerException;
 import com.alipay.antchain.bridge.relayer.commons.exception.RelayerErrorCodeEnum;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -123,6 +126,19 @@ public class AuthMsgWrapper {
 
     private IAuthMessage authMessage;
 
+    /**
+     * 解析后的SDP消息，第一次使用时解析payload，之后复用
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private ISDPMessage sdpMessage;
+
+    /**
+     * SDP消息的接收链域名，从DB读取时直接使用存储的值，不需要解析payload
+     */
+    @Getter(AccessLevel.NONE)
+    private String targetDomain;
+
     private Map<String, String> ledgerInfo = MapUtil.newHashMap();
 
     private boolean isNetworkAM;
@@ -176,6 +192,32 @@ public class AuthMsgWrapper {
         return this.authMessage.getPayload();
     }
 
+    public void setAuthMessage(IAuthMessage authMessage) {
+        this.authMessage = authMessage;
+        this.sdpMessage = null;
+        this.targetDomain = null;
+    }
+
+    public ISDPMessage getSdpMessage() {
+        if (ObjectUtil.isNull(this.sdpMessage) && ObjectUtil.isNotNull(this.authMessage)) {
+            this.sdpMessage = SDPMessageFactory.createSDPMessage(this.authMessage.getPayload());
+        }
+        return this.sdpMessage;
+    }
+
+    /**
+     * 上层协议不是SDP时返回null
+     */
+    public String getTargetDomain() {
+        if (StrUtil.isEmpty(this.targetDomain) && this.protocolType == UpperProtocolTypeBeyondAMEnum.SDP) {
+            ISDPMessage sdp = getSdpMessage();
+            if (ObjectUtil.isNotNull(sdp)) {
+                this.targetDomain = sdp.getTargetDomain().getDomain();
+            }
+        }
+        return this.targetDomain;
+    }
+
     public String getUcpIdHex() {
         return HexUtil.encodeHexStr(this.getUcpId());
     }
@@ -18,8 +18,6 @@ package com.alipay.antchain.bridge.relayer.commons.model;
 
 import cn.hutool.core.util.StrUtil;
 import com.alipay.antchain.bridge.commons.core.sdp.AbstractSDPMessage;
-import com.alipay.antchain.bridge.commons.core.sdp.ISDPMessage;
-import com.alipay.antchain.bridge.commons.core.sdp.SDPMessageFactory;
 import com.alipay.antchain.bridge.relayer.commons.constant.SDPMsgProcessStateEnum;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -37,10 +35,9 @@ public class SDPMsgWrapper {
     public final static String UNORDERED_SDP_MSG_SESSION = "UNORDERED";
 
     public static SDPMsgWrapper buildFrom(AuthMsgWrapper authMsgWrapper) {
-        ISDPMessage sdpMessage = SDPMessageFactory.createSDPMessage(authMsgWrapper.getAuthMessage().getPayload());
         SDPMsgWrapper sdpMsgWrapper = new SDPMsgWrapper();
         sdpMsgWrapper.setAuthMsgWrapper(authMsgWrapper);
-        sdpMsgWrapper.setSdpMessage((AbstractSDPMessage) sdpMessage);
+        sdpMsgWrapper.setSdpMessage((AbstractSDPMessage) authMsgWrapper.getSdpMessage());
 
         return sdpMsgWrapper;
     }
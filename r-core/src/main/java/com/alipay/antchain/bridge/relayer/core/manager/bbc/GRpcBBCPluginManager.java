@@ -58,10 +58,17 @@ public class GRpcBBCPluginManager implements IBBCPluginManager {
 
     private final Map<String, CrossChainServiceGrpc.CrossChainServiceBlockingStub> blockingStubMap = new HashMap<>();
 
+    private final Map<String, CrossChainServiceGrpc.CrossChainServiceFutureStub> futureStubMap = new HashMap<>();
+
     private final long heartbeatDelayedTime;
 
     private final int errorLimitForHeartbeat;
 
+    /**
+     * 异步调用插件服务的超时时间，毫秒
+     */
+    private final long asyncCallDeadline;
+
     public GRpcBBCPluginManager(
             Resource clientKeyPath,
             Resource clientCaPath,
@@ -70,7 +77,8 @@ public class GRpcBBCPluginManager implements IBBCPluginManager {
             ExecutorService clientExecutorService,
             ScheduledExecutorService heartbeatExecutorService,
             long heartbeatDelayedTime,
-            int errorLimitForHeartbeat
+            int errorLimitForHeartbeat,
+            long asyncCallDeadline
     ) {
         this.tlsClientKeyFile = clientKeyPath;
         this.tlsClientCaFile = clientCaPath;
@@ -80,6 +88,7 @@ public class GRpcBBCPluginManager implements IBBCPluginManager {
         this.heartbeatExecutorService = heartbeatExecutorService;
         this.heartbeatDelayedTime = heartbeatDelayedTime;
         this.errorLimitForHeartbeat = errorLimitForHeartbeat;
+        this.asyncCallDeadline = asyncCallDeadline;
     }
 
     /**
@@ -126,7 +135,15 @@ public class GRpcBBCPluginManager implements IBBCPluginManager {
             );
         }
 
-        return new GRpcBBCServiceClient(psId, product, domain, this.blockingStubMap.get(psId));
+        return new GRpcBBCServiceClient(
+                psId,
+                product,
+                domain,
+                this.blockingStubMap.get(psId),
+                this.futureStubMap.get(psId),
+                this.clientExecutorService,
+                this.asyncCallDeadline
+        );
     }
 
     private boolean checkIfProductSupport(String psId, String product) {
@@ -242,8 +259,11 @@ public class GRpcBBCPluginManager implements IBBCPluginManager {
         if (this.blockingStubMap.containsKey(pluginServerDO.getPsId())) {
             return this.blockingStubMap.get(pluginServerDO.getPsId());
         }
-        this.blockingStubMap.put(pluginServerDO.getPsId(), this.createPluginServerGRpcStub(pluginServerDO));
-        return this.blockingStubMap.get(pluginServerDO.getPsId());
+        CrossChainServiceGrpc.CrossChainServiceBlockingStub blockingStub = this.createPluginServerGRpcStub(pluginServerDO);
+        this.blockingStubMap.put(pluginServerDO.getPsId(), blockingStub);
+        // 异步调用的stub与同步stub共用同一个channel
+        this.futureStubMap.put(pluginServerDO.getPsId(), CrossChainServiceGrpc.newFutureStub(blockingStub.getChannel()));
+        return blockingStub;
     }
 
     /**
@@ -278,6 +298,7 @@ public class GRpcBBCPluginManager implements IBBCPluginManager {
 
         this.pluginServerClientMap.remove(psId);
         this.blockingStubMap.remove(psId);
+        this.futureStubMap.remove(psId);
 
         this.pluginServerRepository.deletePluginServer(pluginServerDO);
     }
@@ -511,6 +532,7 @@ public class GRpcBBCPluginManager implements IBBCPluginManager {
 
         this.pluginServerClientMap.remove(psId);
         this.blockingStubMap.remove(psId);
+        this.futureStubMap.remove(psId);
         this.heartbeatFutureMap.remove(psId);
 
         this.pluginServerRepository.updatePluginServerState(psId, PluginServerStateEnum.STOP);
@@ -359,6 +359,16 @@ public class BlockchainManager implements IBlockchainManager {
         return blockchainRepository.getBlockchainMeta(product, blockchainId);
     }
 
+    @Override
+    public BlockchainMeta reloadBlockchainMeta(String product, String blockchainId) {
+        return blockchainRepository.reloadBlockchainMeta(product, blockchainId);
+    }
+
+    @Override
+    public long getBlockchainMetaVersion(String product, String blockchainId) {
+        return blockchainRepository.getBlockchainMetaVersion(product, blockchainId);
+    }
+
     @Override
     public BlockchainMeta getBlockchainMetaByDomain(String domain) {
         return blockchainRepository.getBlockchainMetaByDomain(domain);
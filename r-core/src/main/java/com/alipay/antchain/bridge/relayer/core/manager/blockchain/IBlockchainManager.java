@@ -142,6 +142,24 @@ public interface IBlockchainManager {
      */
     BlockchainMeta getBlockchainMeta(String product, String blockchainId);
 
+    /**
+     * 跳过本地缓存重新读取区块链元信息，用于其他节点更新元信息之后
+     *
+     * @param product      区块链产品类型
+     * @param blockchainId 区块链id
+     * @return 元信息模型
+     */
+    BlockchainMeta reloadBlockchainMeta(String product, String blockchainId);
+
+    /**
+     * 区块链元信息的版本号，元信息每次更新后递增
+     *
+     * @param product      区块链产品类型
+     * @param blockchainId 区块链id
+     * @return 版本号
+     */
+    long getBlockchainMetaVersion(String product, String blockchainId);
+
     BlockchainMeta getBlockchainMetaByDomain(String domain);
 
     String getBlockchainDomain(String product, String blockchainId);
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2023 Ant Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alipay.antchain.bridge.relayer.core.manager.gov;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.core.util.StrUtil;
+import com.alipay.antchain.bridge.relayer.commons.model.CrossChainMsgACLItem;
+
+/**
+ * 跨链消息ACL的内存索引。
+ * <p>
+ * 以 (ownerDomain, grantDomain) 为一级key，(ownerIdHex, grantIdHex) 为二级key，
+ * 身份为空表示任意身份，记作{@link CrossChainMsgACLItem#MEANS_ANY}。
+ * 判断时依次查找精确匹配和三种通配组合，与{@code CrossChainMsgACLRepository#checkItem}的语义一致。
+ */
+public class CrossChainMsgACLIndex {
+
+    private final Map<String, Map<String, Set<String>>> rules = new ConcurrentHashMap<>();
+
+    private final Map<String, CrossChainMsgACLItem> itemsByBizId = new ConcurrentHashMap<>();
+
+    public CrossChainMsgACLIndex(List<CrossChainMsgACLItem> items) {
+        items.forEach(this::add);
+    }
+
+    public boolean check(String ownerDomain, String ownerIdHex, String grantDomain, String grantIdHex) {
+        Map<String, Set<String>> identities = rules.get(getDomainKey(ownerDomain, grantDomain));
+        if (ObjectUtil.isNull(identities)) {
+            return false;
+        }
+        String ownerId = normalizeIdHex(ownerIdHex);
+        String grantId = normalizeIdHex(grantIdHex);
+        return identities.containsKey(getIdentityKey(ownerId, grantId))
+                || identities.containsKey(getIdentityKey(CrossChainMsgACLItem.MEANS_ANY, CrossChainMsgACLItem.MEANS_ANY))
+                || identities.containsKey(getIdentityKey(ownerId, CrossChainMsgACLItem.MEANS_ANY))
+                || identities.containsKey(getIdentityKey(CrossChainMsgACLItem.MEANS_ANY, grantId));
+    }
+
+    public synchronized void add(CrossChainMsgACLItem item) {
+        if (item.getIsDeleted() != 0) {
+            return;
+        }
+        remove(item.getBizId());
+        itemsByBizId.put(item.getBizId(), item);
+        rules.computeIfAbsent(getDomainKey(item.getOwnerDomain(), item.getGrantDomain()), key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(
+                        getIdentityKey(normalizeIdHex(item.getOwnerIdentityHex()), normalizeIdHex(item.getGrantIdentityHex())),
+                        key -> ConcurrentHashMap.newKeySet()
+                ).add(item.getBizId());
+    }
+
+    public synchronized void remove(String bizId) {
+        CrossChainMsgACLItem item = itemsByBizId.remove(bizId);
+        if (ObjectUtil.isNull(item)) {
+            return;
+        }
+        String domainKey = getDomainKey(item.getOwnerDomain(), item.getGrantDomain());
+        Map<String, Set<String>> identities = rules.get(domainKey);
+        if (ObjectUtil.isNull(identities)) {
+            return;
+        }
+        String identityKey = getIdentityKey(normalizeIdHex(item.getOwnerIdentityHex()), normalizeIdHex(item.getGrantIdentityHex()));
+        Set<String> bizIds = identities.get(identityKey);
+        if (ObjectUtil.isNotNull(bizIds)) {
+            bizIds.remove(bizId);
+            if (bizIds.isEmpty()) {
+                identities.remove(identityKey);
+            }
+        }
+        if (identities.isEmpty()) {
+            rules.remove(domainKey);
+        }
+    }
+
+    public int size() {
+        return itemsByBizId.size();
+    }
+
+    private static String normalizeIdHex(String idHex) {
+        return StrUtil.isEmpty(idHex) ? CrossChainMsgACLItem.MEANS_ANY : idHex.toLowerCase();
+    }
+
+    private static String getDomainKey(String ownerDomain, String grantDomain) {
+        return ownerDomain + "^" + grantDomain;
+    }
+
+    private static String getIdentityKey(String ownerIdHex, String grantIdHex) {
+        return ownerIdHex + "^" + grantIdHex;
+    }
+}
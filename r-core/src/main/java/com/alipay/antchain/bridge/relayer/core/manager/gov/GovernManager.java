@@ -17,13 +17,17 @@
 package com.alipay.antchain.bridge.relayer.core.manager.gov;
 
 import java.util.List;
+import java.util.function.Consumer;
 import javax.annotation.Resource;
 
+import cn.hutool.core.util.ObjectUtil;
 import com.alipay.antchain.bridge.relayer.commons.exception.AntChainBridgeRelayerException;
 import com.alipay.antchain.bridge.relayer.commons.exception.RelayerErrorCodeEnum;
 import com.alipay.antchain.bridge.relayer.commons.model.CrossChainMsgACLItem;
 import com.alipay.antchain.bridge.relayer.dal.repository.ICrossChainMsgACLRepository;
+import lombok.Synchronized;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -33,8 +37,35 @@ public class GovernManager implements IGovernManager {
     @Resource
     private ICrossChainMsgACLRepository crossChainMsgACLRepository;
 
+    @Value("${relayer.service.gov.acl.index.enable:true}")
+    private boolean aclIndexEnabled;
+
+    /**
+     * 检查其他节点是否修改了ACL规则的间隔
+     */
+    @Value("${relayer.service.gov.acl.index.version_check_interval:1000}")
+    private long aclVersionCheckInterval;
+
+    /**
+     * 版本号没有变化时，也按这个间隔重新加载，防止递增版本号失败时本地索引一直不更新
+     */
+    @Value("${relayer.service.gov.acl.index.max_refresh_interval:300000}")
+    private long aclIndexMaxRefreshInterval;
+
+    private volatile CrossChainMsgACLIndex aclIndex;
+
+    private volatile long aclIndexVersion = -1;
+
+    private volatile long lastACLVersionCheckTime = 0;
+
+    private volatile long lastACLIndexLoadTime = 0;
+
     @Override
     public boolean verifyCrossChainMsgACL(String ownerDomain, String ownerIdHex, String grantDomain, String grantIdHex) {
+        if (aclIndexEnabled) {
+            return getACLIndex().check(ownerDomain, ownerIdHex, grantDomain, grantIdHex);
+        }
+
         CrossChainMsgACLItem crossChainMsgACLItem = new CrossChainMsgACLItem();
         crossChainMsgACLItem.setOwnerDomain(ownerDomain);
         crossChainMsgACLItem.setOwnerIdentityHex(ownerIdHex);
@@ -47,11 +78,13 @@ public class GovernManager implements IGovernManager {
     @Override
     public void addCrossChainMsgACL(CrossChainMsgACLItem crossChainMsgACLItem) {
         crossChainMsgACLRepository.saveItem(crossChainMsgACLItem);
+        onACLChanged(index -> index.add(crossChainMsgACLItem));
     }
 
     @Override
     public void delCrossChainMsgACL(String bizId) {
         crossChainMsgACLRepository.deleteItem(bizId);
+        onACLChanged(index -> index.remove(bizId));
     }
 
     @Override
@@ -79,4 +112,63 @@ public class GovernManager implements IGovernManager {
     public boolean hasCrossChainMsgACL(String bizId) {
         return crossChainMsgACLRepository.hasItemByBizId(bizId);
     }
+
+    private CrossChainMsgACLIndex getACLIndex() {
+        long now = System.currentTimeMillis();
+        CrossChainMsgACLIndex index = aclIndex;
+        if (ObjectUtil.isNotNull(index) && now - lastACLVersionCheckTime < aclVersionCheckInterval) {
+            return index;
+        }
+        lastACLVersionCheckTime = now;
+        if (
+                ObjectUtil.isNull(index)
+                        || now - lastACLIndexLoadTime >= aclIndexMaxRefreshInterval
+                        || crossChainMsgACLRepository.getACLVersion() != aclIndexVersion
+        ) {
+            return reloadACLIndex();
+        }
+        return index;
+    }
+
+    @Synchronized
+    private CrossChainMsgACLIndex reloadACLIndex() {
+        try {
+            // 先读版本号再加载规则，加载期间的修改会在下一次检查时发现
+            long version = crossChainMsgACLRepository.getACLVersion();
+            CrossChainMsgACLIndex index = new CrossChainMsgACLIndex(crossChainMsgACLRepository.getAllItems());
+            aclIndexVersion = version;
+            aclIndex = index;
+            lastACLIndexLoadTime = System.currentTimeMillis();
+            log.info("load {} crosschain ACL items into index with version {}", index.size(), version);
+            return index;
+        } catch (AntChainBridgeRelayerException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new AntChainBridgeRelayerException(
+                    RelayerErrorCodeEnum.CORE_GOV_ACL_ERROR,
+                    e,
+                    "failed to load crosschain ACL index"
+            );
+        }
+    }
+
+    @Synchronized
+    private void onACLChanged(Consumer<CrossChainMsgACLIndex> change) {
+        long newVersion;
+        try {
+            newVersion = crossChainMsgACLRepository.increaseACLVersion();
+        } catch (Exception e) {
+            // 其他节点会在max_refresh_interval之后重新加载
+            log.warn("failed to increase crosschain ACL version", e);
+            aclIndex = null;
+            return;
+        }
+        if (ObjectUtil.isNotNull(aclIndex) && newVersion == aclIndexVersion + 1) {
+            change.accept(aclIndex);
+            aclIndexVersion = newVersion;
+            return;
+        }
+        // 期间有其他节点修改过规则，下次使用时重新加载
+        aclIndex = null;
+    }
 }
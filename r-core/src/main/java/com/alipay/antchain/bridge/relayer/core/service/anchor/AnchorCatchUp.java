@@ -0,0 +1,185 @@
+/*
+ * Copyright 2023 Ant Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alipay.antchain.bridge.relayer.core.service.anchor;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.alipay.antchain.bridge.relayer.core.service.anchor.context.AnchorProcessContext;
+import com.alipay.antchain.bridge.relayer.core.service.anchor.tasks.BlockNotifyTask;
+import com.alipay.antchain.bridge.relayer.core.service.anchor.tasks.BlockPollingTask;
+import com.alipay.antchain.bridge.relayer.core.service.anchor.tasks.BlockSyncTask;
+import com.alipay.antchain.bridge.relayer.core.service.anchor.tasks.NotifyTaskTypeEnum;
+import com.alipay.antchain.bridge.relayer.core.types.blockchain.AbstractBlock;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 锚定任务的追块模式。
+ *
+ * <pre>
+ * 远端高度与本地notify高度的差距超过 enterGap 时进入追块模式，直到差距小于 exitGap 时退出：
+ *  1. 每批处理 batchSize 个区块，分段从远端读取，每段数量由同步任务的并发控制决定，不写入区块缓存，
+ *     直接交给notify任务处理，每段单独提交；处理当前段时提前读取后面 prefetch 段
+ *  2. 不受 maxDiffBetweenSyncAndNotify 的限制，sync和notify的高度一起前进，每批只写一次同步高度
+ *  3. 每轮最多运行 maxRunTime 毫秒，避免和下一轮重叠
+ * </pre>
+ */
+@Slf4j
+public class AnchorCatchUp {
+
+    private final AnchorProcessContext processContext;
+
+    private final BlockPollingTask blockPollingTask;
+
+    private final BlockSyncTask blockSyncTask;
+
+    private final BlockNotifyTask notifyTask;
+
+    private final long enterGap;
+
+    private final long exitGap;
+
+    private final int batchSize;
+
+    private final int prefetch;
+
+    private final long maxRunTime;
+
+    @Getter
+    private volatile boolean catchingUp = false;
+
+    public AnchorCatchUp(
+            AnchorProcessContext processContext,
+            BlockPollingTask blockPollingTask,
+            BlockSyncTask blockSyncTask,
+            BlockNotifyTask notifyTask,
+            long enterGap,
+            long exitGap,
+            int batchSize,
+            int prefetch,
+            long maxRunTime
+    ) {
+        this.processContext = processContext;
+        this.blockPollingTask = blockPollingTask;
+        this.blockSyncTask = blockSyncTask;
+        this.notifyTask = notifyTask;
+        this.enterGap = enterGap;
+        this.exitGap = exitGap;
+        this.batchSize = batchSize;
+        this.prefetch = prefetch;
+        this.maxRunTime = maxRunTime;
+    }
+
+    /**
+     * 需要追块时执行一轮追块
+     *
+     * @return 本轮是否以追块模式执行，返回false时按正常模式执行
+     */
+    public boolean run() {
+        if (!processContext.getBlockchainClient().ifHasDeployedAMClientContract()) {
+            return false;
+        }
+        // 使用上一轮polling到的高度判断，避免每轮多查询一次远端
+        if (!checkMode(this.blockSyncTask.getRemoteBlockHeaderHeight())) {
+            return false;
+        }
+
+        this.blockPollingTask.doProcess();
+        long remoteHeight = this.blockSyncTask.getRemoteBlockHeaderHeight();
+        long deadline = System.currentTimeMillis() + maxRunTime;
+        String notifyType = NotifyTaskTypeEnum.CROSSCHAIN_MSG_WORKER.getCode();
+
+        while (System.currentTimeMillis() < deadline) {
+            long notifyHeight = this.notifyTask.getNotifyBlockHeaderHeight(notifyType);
+            if (remoteHeight - notifyHeight <= exitGap) {
+                break;
+            }
+            long endHeight = Math.min(remoteHeight, notifyHeight + batchSize);
+            long processedHeight = processBatch(notifyHeight + 1, endHeight, remoteHeight, deadline);
+            if (processedHeight > this.blockSyncTask.getLocalBlockHeaderHeight()) {
+                this.blockSyncTask.saveCatchUpHeight(processedHeight);
+            }
+            log.info(
+                    "catch-up: blockchain {} processed blocks from {} to {}, remote height {}",
+                    processContext.getBlockchainMeta().getMetaKey(),
+                    notifyHeight + 1,
+                    processedHeight,
+                    remoteHeight
+            );
+            if (processedHeight < endHeight) {
+                break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 分段读取并处理{@code startHeight}到{@code endHeight}的区块，处理当前段时最多提前读取{@code prefetch}段
+     *
+     * @return 处理到的高度，读取或处理失败、到达截止时间时小于{@code endHeight}
+     */
+    private long processBatch(long startHeight, long endHeight, long remoteHeight, long deadline) {
+        Deque<CompletableFuture<List<AbstractBlock>>> fetching = new ArrayDeque<>();
+        long nextHeight = startHeight;
+        long processedHeight = startHeight - 1;
+        try {
+            while (System.currentTimeMillis() < deadline) {
+                while (fetching.size() <= prefetch && nextHeight <= endHeight) {
+                    long size = this.blockSyncTask.nextCatchUpBatch(nextHeight, endHeight, remoteHeight);
+                    fetching.add(this.blockSyncTask.queryRemoteBlocksForCatchUp(nextHeight, size, remoteHeight));
+                    nextHeight += size;
+                }
+                if (fetching.isEmpty()) {
+                    break;
+                }
+
+                List<AbstractBlock> blocks = fetching.poll().join();
+                if (blocks.isEmpty()) {
+                    log.error(
+                            "catch-up: query remote block from {} failed for {}",
+                            processedHeight + 1,
+                            processContext.getBlockchainMeta().getMetaKey()
+                    );
+                    break;
+                }
+                processedHeight = this.notifyTask.processCatchUpBlocks(blocks);
+                if (processedHeight < blocks.get(blocks.size() - 1).getHeight()) {
+                    break;
+                }
+            }
+        } finally {
+            // 提前读取但没有处理的区块直接丢弃，下一批重新读取
+            fetching.forEach(future -> future.cancel(false));
+        }
+        return processedHeight;
+    }
+
+    private boolean checkMode(long remoteHeight) {
+        long gap = remoteHeight - this.notifyTask.getNotifyBlockHeaderHeight(NotifyTaskTypeEnum.CROSSCHAIN_MSG_WORKER.getCode());
+        if (!catchingUp && gap > enterGap) {
+            catchingUp = true;
+            log.info("blockchain {} is {} blocks behind, switch to catch-up mode", processContext.getBlockchainMeta().getMetaKey(), gap);
+        } else if (catchingUp && gap <= exitGap) {
+            catchingUp = false;
+            log.info("blockchain {} is {} blocks behind, switch back to normal mode", processContext.getBlockchainMeta().getMetaKey(), gap);
+        }
+        return catchingUp;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2023 Ant Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alipay.antchain.bridge.relayer.core.service.anchor;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import cn.hutool.core.util.ObjectUtil;
+import com.alipay.antchain.bridge.relayer.core.service.anchor.context.AnchorProcessContext;
+import com.alipay.antchain.bridge.relayer.core.service.anchor.tasks.BlockNotifyTask;
+import com.alipay.antchain.bridge.relayer.core.service.anchor.tasks.BlockPollingTask;
+import com.alipay.antchain.bridge.relayer.core.service.anchor.tasks.BlockSyncTask;
+import com.alipay.antchain.bridge.relayer.core.types.blockchain.AbstractBlock;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 锚定任务的流水线模式。
+ *
+ * <pre>
+ * 最新高度同步、账本同步、账本处理三个阶段并行执行：
+ *  1. polling阶段按固定间隔查询远端最新高度
+ *  2. sync阶段持续同步区块，通过有界队列交给notify阶段，队列满时阻塞
+ *  3. notify阶段在当前线程按高度顺序处理区块
+ * 每轮流水线最多运行 maxRunTime 毫秒，结束时会等待其他阶段退出，避免和下一轮重叠。
+ * 线程池没有空闲线程时，本轮退回串行执行账本同步和账本处理。
+ * </pre>
+ */
+@Slf4j
+public class AnchorPipeline {
+
+    private final AnchorProcessContext processContext;
+
+    private final BlockPollingTask blockPollingTask;
+
+    private final BlockSyncTask blockSyncTask;
+
+    private final BlockNotifyTask notifyTask;
+
+    public AnchorPipeline(
+            AnchorProcessContext processContext,
+            BlockPollingTask blockPollingTask,
+            BlockSyncTask blockSyncTask,
+            BlockNotifyTask notifyTask
+    ) {
+        this.processContext = processContext;
+        this.blockPollingTask = blockPollingTask;
+        this.blockSyncTask = blockSyncTask;
+        this.notifyTask = notifyTask;
+    }
+
+    public void run() {
+        // 合约未部署的时候，只同步最新高度
+        this.blockPollingTask.doProcess();
+        if (!processContext.getBlockchainClient().ifHasDeployedAMClientContract()) {
+            log.debug("skip anchor pipeline because of BBC contracts not ready now for blockchain {}",
+                    processContext.getBlockchainMeta().getMetaKey());
+            return;
+        }
+
+        long deadline = System.currentTimeMillis() + processContext.getPipelineMaxRunTime();
+        long syncedHeight = this.blockSyncTask.getLocalBlockHeaderHeight();
+        BlockingQueue<AbstractBlock> syncedBlocks = new ArrayBlockingQueue<>(processContext.getPipelineQueueCapacity());
+        AtomicBoolean stopped = new AtomicBoolean(false);
+
+        Future<?> pollingStage = null;
+        Future<?> syncStage;
+        try {
+            pollingStage = processContext.getAnchorPipelineThreadsPool().submit(() -> runPollingStage(stopped));
+            syncStage = processContext.getAnchorPipelineThreadsPool().submit(
+                    () -> this.blockSyncTask.doPipelinedProcess(syncedHeight, syncedBlocks, stopped)
+            );
+        } catch (RejectedExecutionException e) {
+            stopped.set(true);
+            if (ObjectUtil.isNotNull(pollingStage)) {
+                pollingStage.cancel(true);
+            }
+            log.warn("anchor pipeline threads pool is busy, run anchor tasks serially for {}",
+                    processContext.getBlockchainMeta().getMetaKey());
+            this.blockSyncTask.doProcess();
+            this.notifyTask.doProcess();
+            return;
+        }
+
+        try {
+            this.notifyTask.doPipelinedProcess(syncedHeight, syncedBlocks, syncStage, deadline);
+        } finally {
+            stopped.set(true);
+            waitForStage(pollingStage, "polling");
+            waitForStage(syncStage, "sync");
+        }
+    }
+
+    private void runPollingStage(AtomicBoolean stopped) {
+        while (!stopped.get()) {
+            try {
+                this.blockPollingTask.doProcess();
+            } catch (Exception e) {
+                log.error("pipelined polling stage failed for {} : ", processContext.getBlockchainMeta().getMetaKey(), e);
+            }
+            try {
+                Thread.sleep(processContext.getPipelinePollingInterval());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void waitForStage(Future<?> stage, String stageName) {
+        if (ObjectUtil.isNull(stage)) {
+            return;
+        }
+        try {
+            stage.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("pipelined {} stage failed for {} : ", stageName, processContext.getBlockchainMeta().getMetaKey(), e);
+        }
+    }
+}
@@ -2,7 +2,10 @@ package com.alipay.antchain.bridge.relayer.core.service.anchor;
 
 import java.util.concurrent.ExecutorService;
 
+import cn.hutool.core.util.ObjectUtil;
 import com.alipay.antchain.bridge.relayer.commons.model.BlockchainMeta;
+import com.alipay.antchain.bridge.relayer.core.service.anchor.context.AnchorCheckpointStore;
+import com.alipay.antchain.bridge.relayer.core.service.anchor.context.AnchorProcessConfig;
 import com.alipay.antchain.bridge.relayer.core.service.anchor.context.AnchorProcessContext;
 import com.alipay.antchain.bridge.relayer.core.service.anchor.tasks.*;
 import com.alipay.antchain.bridge.relayer.core.service.receiver.ReceiverService;
@@ -24,6 +27,8 @@ import org.springframework.transaction.support.TransactionTemplate;
  *   - 账本同步任务
  *   - 账本处理任务
  *  3. 一个提交器，该提交器封装了像该区块链提交tx的逻辑
+ *  4. 可选的流水线模式，三组任务通过有界队列并行执行，见 {@link AnchorPipeline}
+ *  5. 可选的追块模式，落后较多时跳过区块缓存成段处理区块，见 {@link AnchorCatchUp}
  * </pre>
  */
 @Getter
@@ -43,19 +48,33 @@ public class AnchorProcess {
 
     private BlockNotifyTask notifyTask;
 
+    /**
+     * 流水线模式，为空时按顺序执行三组任务
+     */
+    private AnchorPipeline anchorPipeline;
+
+    /**
+     * 追块模式，为空时不追块
+     */
+    private AnchorCatchUp anchorCatchUp;
+
+    /**
+     * 当前持有的区块链元信息的版本号
+     */
+    private volatile long metaVersion;
+
+    private volatile long lastMetaRefreshTime;
+
     public AnchorProcess(
             BlockchainMeta chainMeta,
             TransactionTemplate transactionTemplate,
             BlockchainClientPool blockchainClientPool,
             RedissonClient redisson,
-            ExecutorService blockSyncTaskThreadsPool,
             ReceiverService receiverService,
-            int blockCacheCapacity,
-            int blockCacheTTL,
-            int syncBatchSize,
-            int syncAsyncQuerySize,
-            int maxDiffBetweenSyncAndNotify,
-            int notifyBatchSize
+            ExecutorService blockSyncTaskThreadsPool,
+            ExecutorService anchorPipelineThreadsPool,
+            ExecutorService anchorCheckpointThreadsPool,
+            AnchorProcessConfig config
     ) {
         // init context
         this.processContext = new AnchorProcessContext(
@@ -63,26 +82,58 @@ public class AnchorProcess {
                 transactionTemplate,
                 blockchainClientPool,
                 redisson,
-                blockSyncTaskThreadsPool,
                 receiverService,
-                blockCacheCapacity,
-                blockCacheTTL,
-                syncBatchSize,
-                syncAsyncQuerySize,
-                maxDiffBetweenSyncAndNotify,
-                notifyBatchSize
+                blockSyncTaskThreadsPool,
+                anchorPipelineThreadsPool,
+                anchorCheckpointThreadsPool,
+                config
         );
 
         // init tasks
         this.blockPollingTask = new BlockPollingTask(this.processContext);
         this.blockSyncTask = new BlockSyncTask(this.processContext);
         this.notifyTask = new BlockNotifyTask(this.processContext);
+        if (config.isPipelineEnabled()) {
+            this.anchorPipeline = new AnchorPipeline(
+                    this.processContext,
+                    this.blockPollingTask,
+                    this.blockSyncTask,
+                    this.notifyTask
+            );
+        }
+        if (config.isCatchUpEnabled()) {
+            this.anchorCatchUp = new AnchorCatchUp(
+                    this.processContext,
+                    this.blockPollingTask,
+                    this.blockSyncTask,
+                    this.notifyTask,
+                    config.getCatchUpThreshold(),
+                    config.getCatchUpExitGap(),
+                    config.getCatchUpBatchSize(),
+                    config.getCatchUpPrefetch(),
+                    config.getCatchUpMaxRunTime()
+            );
+        }
     }
 
     public void run() {
         log.debug("start anchor process for {} ", processContext.getBlockchainMeta().getMetaKey());
 
+        AnchorCheckpointStore checkpointStore = processContext.getCheckpointStore();
         try {
+            if (ObjectUtil.isNotNull(checkpointStore)) {
+                checkpointStore.begin();
+            }
+            if (ObjectUtil.isNotNull(this.anchorCatchUp) && this.anchorCatchUp.run()) {
+                log.debug("success to run anchor catch-up for {} : ", processContext.getBlockchainMeta().getMetaKey());
+                return;
+            }
+            if (ObjectUtil.isNotNull(this.anchorPipeline)) {
+                // 三个阶段并行执行
+                this.anchorPipeline.run();
+                log.debug("success to run anchor pipeline for {} : ", processContext.getBlockchainMeta().getMetaKey());
+                return;
+            }
             // 同步最新高度
             this.blockPollingTask.doProcess();
             // 同步远程区块
@@ -92,11 +143,27 @@ public class AnchorProcess {
         } catch (Exception e) {
             log.error("anchor process failed for {} : ", processContext.getBlockchainMeta().getMetaKey(), e);
             return;
+        } finally {
+            flushCheckpoint(checkpointStore);
         }
 
         log.debug("success to run anchor process for {} : ", processContext.getBlockchainMeta().getMetaKey());
     }
 
+    /**
+     * 每轮结束时落盘，下一个时间片可能由其他节点执行
+     */
+    private void flushCheckpoint(AnchorCheckpointStore checkpointStore) {
+        if (ObjectUtil.isNull(checkpointStore)) {
+            return;
+        }
+        try {
+            checkpointStore.flush();
+        } catch (Exception e) {
+            log.error("failed to flush anchor checkpoint for {} : ", processContext.getBlockchainMeta().getMetaKey(), e);
+        }
+    }
+
     public void updateBlockchainMetaIntoClient(BlockchainMeta blockchainMeta) {
         processContext.getBlockchainClient().setBlockchainMeta(blockchainMeta);
     }
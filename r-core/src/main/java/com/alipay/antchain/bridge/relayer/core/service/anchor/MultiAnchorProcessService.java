@@ -11,10 +11,11 @@ import com.alipay.antchain.bridge.relayer.commons.exception.AntChainBridgeRelaye
 import com.alipay.antchain.bridge.relayer.commons.exception.RelayerErrorCodeEnum;
 import com.alipay.antchain.bridge.relayer.commons.model.BlockchainMeta;
 import com.alipay.antchain.bridge.relayer.core.manager.blockchain.IBlockchainManager;
+import com.alipay.antchain.bridge.relayer.core.service.anchor.context.AnchorProcessConfig;
+import com.alipay.antchain.bridge.relayer.core.service.anchor.tasks.SyncConcurrencyController;
 import com.alipay.antchain.bridge.relayer.core.service.receiver.ReceiverService;
 import com.alipay.antchain.bridge.relayer.core.types.blockchain.BlockchainClientPool;
 import lombok.Getter;
-import lombok.Synchronized;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RedissonClient;
 import org.springframework.beans.factory.annotation.Value;
@@ -46,6 +47,12 @@ public class MultiAnchorProcessService {
     @Resource
     private ExecutorService blockSyncTaskThreadsPool;
 
+    @Resource
+    private ExecutorService anchorPipelineThreadsPool;
+
+    @Resource
+    private ExecutorService anchorCheckpointThreadsPool;
+
     @Resource
     private TransactionTemplate transactionTemplate;
 
@@ -58,18 +65,90 @@ public class MultiAnchorProcessService {
     @Value("${relayer.service.anchor.sync_task.async_size:10}")
     private int syncTaskAsyncQuerySize;
 
+    @Value("${relayer.service.anchor.sync_task.adaptive.enable:false}")
+    private boolean syncTaskAdaptiveEnabled;
+
+    @Value("${relayer.service.anchor.sync_task.adaptive.min_size:1}")
+    private int syncTaskAdaptiveMinSize;
+
+    @Value("${relayer.service.anchor.sync_task.adaptive.max_size:64}")
+    private int syncTaskAdaptiveMaxSize;
+
+    @Value("${relayer.service.anchor.sync_task.adaptive.latency_tolerance:2.0}")
+    private double syncTaskAdaptiveLatencyTolerance;
+
     @Value("${relayer.service.anchor.sync_task.max_diff_with_notify:100}")
     private int maxDiffBetweenSyncAndNotify;
 
     @Value("${relayer.service.anchor.notify_task.batch_size:32}")
     private int notifyTaskBatchSize;
 
+    @Value("${relayer.service.anchor.notify_task.batch_ingest:false}")
+    private boolean notifyTaskBatchIngestEnabled;
+
     @Value("${relayer.service.anchor.block_cache_capacity:100}")
     private int blockCacheCapacity;
 
     @Value("${relayer.service.anchor.block_cache_ttl:300000}")
     private int blockCacheTTL;
 
+    @Value("${relayer.service.anchor.pipeline.enable:false}")
+    private boolean pipelineEnabled;
+
+    @Value("${relayer.service.anchor.pipeline.queue_capacity:256}")
+    private int pipelineQueueCapacity;
+
+    @Value("${relayer.service.anchor.pipeline.max_run_time:30000}")
+    private long pipelineMaxRunTime;
+
+    @Value("${relayer.service.anchor.pipeline.polling_interval:1000}")
+    private long pipelinePollingInterval;
+
+    @Value("${relayer.service.anchor.subscription.enable:false}")
+    private boolean subscriptionEnabled;
+
+    @Value("${relayer.service.anchor.subscription.max_silence:30000}")
+    private long subscriptionMaxSilence;
+
+    @Value("${relayer.service.anchor.subscription.retry_interval:60000}")
+    private long subscriptionRetryInterval;
+
+    @Value("${relayer.service.anchor.checkpoint.enable:false}")
+    private boolean checkpointEnabled;
+
+    @Value("${relayer.service.anchor.checkpoint.flush_interval:1000}")
+    private long checkpointFlushInterval;
+
+    @Value("${relayer.service.anchor.checkpoint.flush_block_count:32}")
+    private int checkpointFlushBlockCount;
+
+    @Value("${relayer.service.anchor.catch_up.enable:false}")
+    private boolean catchUpEnabled;
+
+    @Value("${relayer.service.anchor.catch_up.threshold:10000}")
+    private long catchUpThreshold;
+
+    @Value("${relayer.service.anchor.catch_up.exit_gap:200}")
+    private long catchUpExitGap;
+
+    @Value("${relayer.service.anchor.catch_up.batch_size:1000}")
+    private int catchUpBatchSize;
+
+    /**
+     * 追块时处理当前段的同时提前读取的段数，为0时读取和处理串行执行
+     */
+    @Value("${relayer.service.anchor.catch_up.prefetch:2}")
+    private int catchUpPrefetch;
+
+    @Value("${relayer.service.anchor.catch_up.max_run_time:30000}")
+    private long catchUpMaxRunTime;
+
+    /**
+     * 元信息版本号没有变化时，最长间隔多久重新读取一次元信息
+     */
+    @Value("${relayer.service.anchor.meta_refresh.max_interval:300000}")
+    private long metaRefreshMaxInterval;
+
     /**
      * 启动指定anchorProcess
      *
@@ -89,40 +168,49 @@ public class MultiAnchorProcessService {
     }
 
     /**
-     * 获取anchorProcess对象
+     * 获取anchorProcess对象，不存在时创建，只有元信息版本变化时才重新加载元信息
      *
      * @param blockchainProduct
      * @param blockchainId
      * @return
      */
-    @Synchronized
     public AnchorProcess getAnchorProcess(String blockchainProduct, String blockchainId) {
-        if (!anchorProcessMap.containsKey(getAnchorProcessKey(blockchainProduct, blockchainId))) {
-            log.info("build new anchor process object for {}-{}", blockchainProduct, blockchainId);
-            newAnchorProcess(blockchainProduct, blockchainId);
-        }
-
-        AnchorProcess anchorProcess = anchorProcessMap.getOrDefault(
+        // 只锁定对应的链，不同链的anchor任务互不阻塞
+        AnchorProcess anchorProcess = anchorProcessMap.computeIfAbsent(
                 getAnchorProcessKey(blockchainProduct, blockchainId),
-                null
+                key -> {
+                    log.info("build new anchor process object for {}-{}", blockchainProduct, blockchainId);
+                    return newAnchorProcess(blockchainProduct, blockchainId);
+                }
         );
-        if (ObjectUtil.isNotNull(anchorProcess)) {
-            updateAnchorProcess(anchorProcess);
-        }
+        refreshAnchorProcess(anchorProcess);
 
         return anchorProcess;
     }
 
+    /**
+     * 本节点上该链同步任务的并发控制状态，未开启自适应控制或者本节点没有运行过该链的anchor任务时返回null
+     */
+    public SyncConcurrencyController getSyncConcurrencyController(String blockchainProduct, String blockchainId) {
+        AnchorProcess anchorProcess = anchorProcessMap.get(getAnchorProcessKey(blockchainProduct, blockchainId));
+        if (ObjectUtil.isNull(anchorProcess)) {
+            return null;
+        }
+        return anchorProcess.getProcessContext().getSyncConcurrencyController();
+    }
+
     private String getAnchorProcessKey(String blockchainProduct, String blockchainId) {
         return blockchainProduct + "_" + blockchainId;
     }
 
     /**
-     * 添加anchorProcess对象
+     * 创建anchorProcess对象
      */
-    private void newAnchorProcess(String blockchainProduct, String blockchainId) {
+    private AnchorProcess newAnchorProcess(String blockchainProduct, String blockchainId) {
 
-        BlockchainMeta blockchainMeta = blockchainManager.getBlockchainMeta(blockchainProduct, blockchainId);
+        // 先读版本号再读元信息，期间发生的更新会在下一次刷新时加载
+        long metaVersion = blockchainManager.getBlockchainMetaVersion(blockchainProduct, blockchainId);
+        BlockchainMeta blockchainMeta = blockchainManager.reloadBlockchainMeta(blockchainProduct, blockchainId);
         if (ObjectUtil.isNull(blockchainMeta)) {
             throw new AntChainBridgeRelayerException(
                     RelayerErrorCodeEnum.SERVICE_MULTI_ANCHOR_PROCESS_START_ANCHOR_FAILED,
@@ -136,14 +224,11 @@ public class MultiAnchorProcessService {
                 transactionTemplate,
                 blockchainClientPool,
                 redisson,
-                blockSyncTaskThreadsPool,
                 receiverService,
-                blockCacheCapacity,
-                blockCacheTTL,
-                syncTaskBatchSize,
-                syncTaskAsyncQuerySize,
-                maxDiffBetweenSyncAndNotify,
-                notifyTaskBatchSize
+                blockSyncTaskThreadsPool,
+                anchorPipelineThreadsPool,
+                anchorCheckpointThreadsPool,
+                buildAnchorProcessConfig()
         );
         if (ObjectUtil.isNull(anchorProcess)) {
             throw new AntChainBridgeRelayerException(
@@ -152,44 +237,82 @@ public class MultiAnchorProcessService {
                     blockchainProduct, blockchainId
             );
         }
-        this.anchorProcessMap.putIfAbsent(
-                anchorProcess.getProcessContext().getBlockchainMeta().getMetaKey(),
-                anchorProcess
-        );
+        anchorProcess.setMetaVersion(metaVersion);
+        anchorProcess.setLastMetaRefreshTime(System.currentTimeMillis());
+        return anchorProcess;
+    }
+
+    private AnchorProcessConfig buildAnchorProcessConfig() {
+        return AnchorProcessConfig.builder()
+                .blockCacheCapacity(blockCacheCapacity)
+                .blockCacheTTL(blockCacheTTL)
+                .syncBatchSize(syncTaskBatchSize)
+                .syncAsyncQuerySize(syncTaskAsyncQuerySize)
+                .syncAdaptiveEnabled(syncTaskAdaptiveEnabled)
+                .syncAdaptiveMinSize(syncTaskAdaptiveMinSize)
+                .syncAdaptiveMaxSize(syncTaskAdaptiveMaxSize)
+                .syncAdaptiveLatencyTolerance(syncTaskAdaptiveLatencyTolerance)
+                .maxDiffBetweenSyncAndNotify(maxDiffBetweenSyncAndNotify)
+                .notifyBatchSize(notifyTaskBatchSize)
+                .notifyBatchIngestEnabled(notifyTaskBatchIngestEnabled)
+                .pipelineEnabled(pipelineEnabled)
+                .pipelineQueueCapacity(pipelineQueueCapacity)
+                .pipelineMaxRunTime(pipelineMaxRunTime)
+                .pipelinePollingInterval(pipelinePollingInterval)
+                .subscriptionEnabled(subscriptionEnabled)
+                .subscriptionMaxSilence(subscriptionMaxSilence)
+                .subscriptionRetryInterval(subscriptionRetryInterval)
+                .checkpointEnabled(checkpointEnabled)
+                .checkpointFlushInterval(checkpointFlushInterval)
+                .checkpointFlushBlockCount(checkpointFlushBlockCount)
+                .catchUpEnabled(catchUpEnabled)
+                .catchUpThreshold(catchUpThreshold)
+                .catchUpExitGap(catchUpExitGap)
+                .catchUpBatchSize(catchUpBatchSize)
+                .catchUpPrefetch(catchUpPrefetch)
+                .catchUpMaxRunTime(catchUpMaxRunTime)
+                .build();
     }
 
     /**
      * 更新anchorProcess对象
+     * <p>
+     * 元信息的版本号变化，或者距上次加载超过{@code metaRefreshMaxInterval}时，才从DB重新加载元信息，
+     * 其余时候只读取一次版本号。
      *
      * @param anchorProcess
      */
-    private void updateAnchorProcess(AnchorProcess anchorProcess) {
+    private void refreshAnchorProcess(AnchorProcess anchorProcess) {
 
-        // 这里可以使用缓存，隔几分钟才能更新到最新的配置，没必要每次都更新
-        BlockchainMeta blockchainMeta = blockchainManager.getBlockchainMeta(
-                anchorProcess.getProcessContext().getBlockchainMeta().getProduct(),
-                anchorProcess.getProcessContext().getBlockchainMeta().getBlockchainId()
-        );
-        if (ObjectUtil.isNull(blockchainMeta)) {
-            throw new AntChainBridgeRelayerException(
-                    RelayerErrorCodeEnum.SERVICE_MULTI_ANCHOR_PROCESS_START_ANCHOR_FAILED,
-                    "none blockchain meta found when update anchor process for {}",
-                    anchorProcess.getProcessContext().getBlockchainMeta().getMetaKey()
-            );
-        }
-        anchorProcess.updateBlockchainMetaIntoClient(blockchainMeta);
+        String product = anchorProcess.getProcessContext().getAnchorProduct();
+        String blockchainId = anchorProcess.getProcessContext().getAnchorBlockchainId();
+        long metaVersion = blockchainManager.getBlockchainMetaVersion(product, blockchainId);
+        long now = System.currentTimeMillis();
+        if (
+                metaVersion != anchorProcess.getMetaVersion()
+                        || now - anchorProcess.getLastMetaRefreshTime() > metaRefreshMaxInterval
+        ) {
+            BlockchainMeta blockchainMeta = blockchainManager.reloadBlockchainMeta(product, blockchainId);
+            if (ObjectUtil.isNull(blockchainMeta)) {
+                throw new AntChainBridgeRelayerException(
+                        RelayerErrorCodeEnum.SERVICE_MULTI_ANCHOR_PROCESS_START_ANCHOR_FAILED,
+                        "none blockchain meta found when update anchor process for {}-{}",
+                        product, blockchainId
+                );
+            }
+            anchorProcess.updateBlockchainMetaIntoClient(blockchainMeta);
+            anchorProcess.setMetaVersion(metaVersion);
+            anchorProcess.setLastMetaRefreshTime(now);
 
-        log.debug("update anchor blockchain meta for : {}_{}", blockchainMeta.getProduct(), blockchainMeta.getBlockchainId());
+            log.debug("update anchor blockchain meta for : {}_{} with version {}", product, blockchainId, metaVersion);
+        }
 
         // 如果部署了跨链服务，就同步domain name信息
         if (
                 anchorProcess.getProcessContext().getBlockchainClient().ifHasDeployedAMClientContract()
                         && StrUtil.isEmpty(anchorProcess.getDomain())
         ) {
-            String domain = blockchainManager.getBlockchainDomain(
-                    blockchainMeta.getProduct(),
-                    blockchainMeta.getBlockchainId()
-            );
+            String domain = blockchainManager.getBlockchainDomain(product, blockchainId);
             if (StrUtil.isEmpty(domain)) {
                 return;
             }
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2023 Ant Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alipay.antchain.bridge.relayer.core.service.anchor.context;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import cn.hutool.core.util.StrUtil;
+import lombok.Synchronized;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+
+/**
+ * anchor任务各个高度的本地检查点。
+ * <p>
+ * 高度先写在本地，达到{@code flushBlockCount}次写入或者距上次落盘超过{@code flushInterval}时，
+ * 异步写入Redis和DB；每轮anchor任务结束时同步落盘。
+ * <p>
+ * 每轮anchor任务开始时在Redis中写入本对象的fence token，如果上一个token不是自己的，
+ * 说明期间有其他节点（或重启前的本节点）运行过该链的anchor任务，本地高度作废，重新从Redis和DB加载。
+ * 异步落盘前同样检查token，token被其他节点替换后不再写入。
+ */
+@Slf4j
+public class AnchorCheckpointStore {
+
+    private static final String FENCE_KEY_PREFIX = "anchor_checkpoint_fence^";
+
+    private final AnchorProcessContext processContext;
+
+    private final RedissonClient redisson;
+
+    private final ExecutorService flushExecutor;
+
+    private final long flushInterval;
+
+    private final int flushBlockCount;
+
+    private final String fenceToken = UUID.randomUUID().toString();
+
+    private final Map<String, Long> heights = new ConcurrentHashMap<>();
+
+    private final Map<String, Long> dirtyHeights = new ConcurrentHashMap<>();
+
+    private final AtomicInteger writesSinceFlush = new AtomicInteger(0);
+
+    private final AtomicBoolean flushing = new AtomicBoolean(false);
+
+    private volatile long lastFlushTime = System.currentTimeMillis();
+
+    public AnchorCheckpointStore(
+            AnchorProcessContext processContext,
+            RedissonClient redisson,
+            ExecutorService flushExecutor,
+            long flushInterval,
+            int flushBlockCount
+    ) {
+        this.processContext = processContext;
+        this.redisson = redisson;
+        this.flushExecutor = flushExecutor;
+        this.flushInterval = flushInterval;
+        this.flushBlockCount = flushBlockCount;
+    }
+
+    /**
+     * 每轮anchor任务开始时调用，获取fence，必要时丢弃本地高度
+     */
+    @Synchronized
+    public void begin() {
+        String previousToken = getFence().getAndSet(fenceToken);
+        if (StrUtil.equals(previousToken, fenceToken)) {
+            return;
+        }
+        log.info(
+                "anchor checkpoint of blockchain {} fenced by {}, reload heights",
+                processContext.getBlockchainMeta().getMetaKey(),
+                StrUtil.isEmpty(previousToken) ? "nobody" : previousToken
+        );
+        heights.clear();
+        dirtyHeights.clear();
+        writesSinceFlush.set(0);
+    }
+
+    public long getHeight(String heightType) {
+        return heights.computeIfAbsent(
+                heightType,
+                key -> processContext.getBlockchainRepository().getAnchorProcessHeight(
+                        processContext.getAnchorProduct(),
+                        processContext.getAnchorBlockchainId(),
+                        key
+                )
+        );
+    }
+
+    public void setHeight(String heightType, long height) {
+        heights.put(heightType, height);
+        dirtyHeights.put(heightType, height);
+        if (
+                writesSinceFlush.incrementAndGet() >= flushBlockCount
+                        || System.currentTimeMillis() - lastFlushTime >= flushInterval
+        ) {
+            flushAsync();
+        }
+    }
+
+    /**
+     * 同步落盘，每轮anchor任务结束时调用，保证任务转移到其他节点前高度已经写入
+     */
+    public void flush() {
+        doFlush();
+    }
+
+    private void flushAsync() {
+        if (!flushing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            flushExecutor.execute(
+                    () -> {
+                        try {
+                            doFlush();
+                        } catch (Exception e) {
+                            log.error("failed to flush anchor checkpoint for blockchain {}", processContext.getBlockchainMeta().getMetaKey(), e);
+                        } finally {
+                            flushing.set(false);
+                        }
+                    }
+            );
+        } catch (Exception e) {
+            flushing.set(false);
+            log.warn("failed to submit checkpoint flush for blockchain {}", processContext.getBlockchainMeta().getMetaKey(), e);
+        }
+    }
+
+    @Synchronized
+    private void doFlush() {
+        if (dirtyHeights.isEmpty()) {
+            return;
+        }
+        if (!StrUtil.equals(fenceToken, getFence().get())) {
+            log.warn(
+                    "anchor checkpoint of blockchain {} fenced by other node, drop {} local heights",
+                    processContext.getBlockchainMeta().getMetaKey(),
+                    dirtyHeights.size()
+            );
+            dirtyHeights.clear();
+            heights.clear();
+            return;
+        }
+
+        Map<String, Long> snapshot = new HashMap<>(dirtyHeights);
+        processContext.getBlockchainRepository().setAnchorProcessHeights(
+                processContext.getAnchorProduct(),
+                processContext.getAnchorBlockchainId(),
+                snapshot
+        );
+        // 落盘期间更新过的高度留到下一次
+        snapshot.forEach(dirtyHeights::remove);
+        writesSinceFlush.set(0);
+        lastFlushTime = System.currentTimeMillis();
+        log.debug("flush {} anchor heights for blockchain {}", snapshot.size(), processContext.getBlockchainMeta().getMetaKey());
+    }
+
+    private RBucket<String> getFence() {
+        return redisson.getBucket(
+                FENCE_KEY_PREFIX + processContext.getAnchorProduct() + "^" + processContext.getAnchorBlockchainId(),
+                StringCodec.INSTANCE
+        );
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2023 Ant Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alipay.antchain.bridge.relayer.core.service.anchor.context;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * 锚定任务的配置，所有链共用一份，由{@code MultiAnchorProcessService}从配置文件读取
+ */
+@Getter
+@Builder
+public class AnchorProcessConfig {
+
+    private final int blockCacheCapacity;
+
+    private final int blockCacheTTL;
+
+    private final int syncBatchSize;
+
+    private final int syncAsyncQuerySize;
+
+    private final boolean syncAdaptiveEnabled;
+
+    private final int syncAdaptiveMinSize;
+
+    private final int syncAdaptiveMaxSize;
+
+    private final double syncAdaptiveLatencyTolerance;
+
+    private final int maxDiffBetweenSyncAndNotify;
+
+    private final int notifyBatchSize;
+
+    private final boolean notifyBatchIngestEnabled;
+
+    private final boolean pipelineEnabled;
+
+    private final int pipelineQueueCapacity;
+
+    private final long pipelineMaxRunTime;
+
+    private final long pipelinePollingInterval;
+
+    private final boolean subscriptionEnabled;
+
+    private final long subscriptionMaxSilence;
+
+    private final long subscriptionRetryInterval;
+
+    private final boolean checkpointEnabled;
+
+    private final long checkpointFlushInterval;
+
+    private final int checkpointFlushBlockCount;
+
+    private final boolean catchUpEnabled;
+
+    private final long catchUpThreshold;
+
+    private final long catchUpExitGap;
+
+    private final int catchUpBatchSize;
+
+    private final int catchUpPrefetch;
+
+    private final long catchUpMaxRunTime;
+}
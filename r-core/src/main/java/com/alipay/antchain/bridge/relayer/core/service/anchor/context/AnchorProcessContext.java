@@ -21,6 +21,9 @@ import java.util.concurrent.ExecutorService;
 import com.alipay.antchain.bridge.relayer.commons.model.BlockchainMeta;
 import com.alipay.antchain.bridge.relayer.core.service.anchor.tasks.CachedBlockQueue;
 import com.alipay.antchain.bridge.relayer.core.service.anchor.tasks.IBlockQueue;
+import com.alipay.antchain.bridge.relayer.core.service.anchor.tasks.MessageHeightIndex;
+import com.alipay.antchain.bridge.relayer.core.service.anchor.tasks.NewHeightSubscription;
+import com.alipay.antchain.bridge.relayer.core.service.anchor.tasks.SyncConcurrencyController;
 import com.alipay.antchain.bridge.relayer.core.service.receiver.ReceiverService;
 import com.alipay.antchain.bridge.relayer.core.types.blockchain.AbstractBlockchainClient;
 import com.alipay.antchain.bridge.relayer.core.types.blockchain.BlockchainClientPool;
@@ -44,6 +47,21 @@ public class AnchorProcessContext {
 
     private IBlockQueue blockQueue;
 
+    /**
+     * 本节点同步过的带跨链消息的高度
+     */
+    private MessageHeightIndex messageHeightIndex;
+
+    /**
+     * 插件服务推送的最新高度，未开启订阅时为空
+     */
+    private NewHeightSubscription newHeightSubscription;
+
+    /**
+     * 各个高度的本地检查点，未开启时为空，直接读写Redis和DB
+     */
+    private AnchorCheckpointStore checkpointStore;
+
     private TransactionTemplate transactionTemplate;
 
     private RedissonClient redisson;
@@ -58,23 +76,38 @@ public class AnchorProcessContext {
 
     private int syncAsyncQuerySize;
 
+    /**
+     * 同步任务并发查询数量的自适应控制，未开启时为空，使用固定的{@code syncAsyncQuerySize}
+     */
+    private SyncConcurrencyController syncConcurrencyController;
+
     private int maxDiffBetweenSyncAndNotify;
 
     private int notifyBatchSize;
 
+    /**
+     * notify任务是否把一批区块的消息放在一个事务内写入
+     */
+    private boolean notifyBatchIngestEnabled;
+
+    private ExecutorService anchorPipelineThreadsPool;
+
+    private int pipelineQueueCapacity;
+
+    private long pipelineMaxRunTime;
+
+    private long pipelinePollingInterval;
+
     public AnchorProcessContext(
             BlockchainMeta blockchainMeta,
             TransactionTemplate transactionTemplate,
             BlockchainClientPool blockchainClientPool,
             RedissonClient redisson,
-            ExecutorService blockSyncTaskThreadsPool,
             ReceiverService receiverService,
-            int blockCacheCapacity,
-            int blockCacheTTL,
-            int syncBatchSize,
-            int syncAsyncQuerySize,
-            int maxDiffBetweenSyncAndNotify,
-            int notifyBatchSize
+            ExecutorService blockSyncTaskThreadsPool,
+            ExecutorService anchorPipelineThreadsPool,
+            ExecutorService anchorCheckpointThreadsPool,
+            AnchorProcessConfig config
     ) {
         this.blockchainClientPool = blockchainClientPool;
         this.anchorProduct = blockchainMeta.getProduct();
@@ -82,19 +115,46 @@ public class AnchorProcessContext {
         this.blockQueue = new CachedBlockQueue(
                 this,
                 redisson,
-                blockCacheCapacity,
-                blockCacheTTL
+                config.getBlockCacheCapacity(),
+                config.getBlockCacheTTL()
         );
+        this.messageHeightIndex = new MessageHeightIndex();
         this.transactionTemplate = transactionTemplate;
         this.redisson = redisson;
         this.blockSyncTaskThreadsPool = blockSyncTaskThreadsPool;
         this.receiverService = receiverService;
-        this.blockCacheCapacity = blockCacheCapacity;
-        this.blockCacheTTL = blockCacheTTL;
-        this.syncBatchSize = syncBatchSize;
-        this.syncAsyncQuerySize = syncAsyncQuerySize;
-        this.maxDiffBetweenSyncAndNotify = maxDiffBetweenSyncAndNotify;
-        this.notifyBatchSize = notifyBatchSize;
+        this.blockCacheCapacity = config.getBlockCacheCapacity();
+        this.blockCacheTTL = config.getBlockCacheTTL();
+        this.syncBatchSize = config.getSyncBatchSize();
+        this.syncAsyncQuerySize = config.getSyncAsyncQuerySize();
+        if (config.isSyncAdaptiveEnabled()) {
+            this.syncConcurrencyController = new SyncConcurrencyController(
+                    blockchainMeta.getMetaKey(),
+                    config.getSyncAsyncQuerySize(),
+                    config.getSyncAdaptiveMinSize(),
+                    config.getSyncAdaptiveMaxSize(),
+                    config.getSyncAdaptiveLatencyTolerance()
+            );
+        }
+        this.maxDiffBetweenSyncAndNotify = config.getMaxDiffBetweenSyncAndNotify();
+        this.notifyBatchSize = config.getNotifyBatchSize();
+        this.notifyBatchIngestEnabled = config.isNotifyBatchIngestEnabled();
+        this.anchorPipelineThreadsPool = anchorPipelineThreadsPool;
+        this.pipelineQueueCapacity = config.getPipelineQueueCapacity();
+        this.pipelineMaxRunTime = config.getPipelineMaxRunTime();
+        this.pipelinePollingInterval = config.getPipelinePollingInterval();
+        if (config.isSubscriptionEnabled()) {
+            this.newHeightSubscription = new NewHeightSubscription(this, config.getSubscriptionMaxSilence(), config.getSubscriptionRetryInterval());
+        }
+        if (config.isCheckpointEnabled()) {
+            this.checkpointStore = new AnchorCheckpointStore(
+                    this,
+                    redisson,
+                    anchorCheckpointThreadsPool,
+                    config.getCheckpointFlushInterval(),
+                    config.getCheckpointFlushBlockCount()
+            );
+        }
 
         // init blockchain client
         blockchainClientPool.createClient(blockchainMeta);
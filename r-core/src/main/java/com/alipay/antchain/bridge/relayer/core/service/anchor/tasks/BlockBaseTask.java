@@ -1,5 +1,6 @@
 package com.alipay.antchain.bridge.relayer.core.service.anchor.tasks;
 
+import cn.hutool.core.util.ObjectUtil;
 import com.alipay.antchain.bridge.relayer.core.service.anchor.context.AnchorProcessContext;
 import lombok.Getter;
 
@@ -21,49 +22,27 @@ public abstract class BlockBaseTask {
     public abstract void doProcess();
 
     public void saveRemoteBlockHeaderHeight(long height) {
-        processContext.getBlockchainRepository().setAnchorProcessHeight(
-                processContext.getBlockchainMeta().getProduct(),
-                processContext.getBlockchainMeta().getBlockchainId(),
-                BlockTaskTypeEnum.POLLING.getCode(),
-                height
-        );
+        saveHeight(BlockTaskTypeEnum.POLLING.getCode(), height);
     }
 
-    protected long getRemoteBlockHeaderHeight() {
-        return processContext.getBlockchainRepository().getAnchorProcessHeight(
-                processContext.getBlockchainMeta().getProduct(),
-                processContext.getBlockchainMeta().getBlockchainId(),
-                BlockTaskTypeEnum.POLLING.getCode()
-        );
+    public long getRemoteBlockHeaderHeight() {
+        return getHeight(BlockTaskTypeEnum.POLLING.getCode());
     }
 
-    protected long getLocalBlockHeaderHeight() {
+    public long getLocalBlockHeaderHeight() {
         return Math.max(
                 processContext.getBlockchainMeta().getProperties().getInitBlockHeight(),
-                processContext.getBlockchainRepository().getAnchorProcessHeight(
-                        processContext.getBlockchainMeta().getProduct(),
-                        processContext.getBlockchainMeta().getBlockchainId(),
-                        BlockTaskTypeEnum.SYNC.getCode()
-                )
+                getHeight(BlockTaskTypeEnum.SYNC.getCode())
         );
     }
 
     protected void saveLocalBlockHeaderHeight(long height) {
-        processContext.getBlockchainRepository().setAnchorProcessHeight(
-                processContext.getBlockchainMeta().getProduct(),
-                processContext.getBlockchainMeta().getBlockchainId(),
-                BlockTaskTypeEnum.SYNC.getCode(),
-                height
-        );
+        saveHeight(BlockTaskTypeEnum.SYNC.getCode(), height);
     }
 
     public long getNotifyBlockHeaderHeight(String workerType) {
         return Math.max(
-                processContext.getBlockchainRepository().getAnchorProcessHeight(
-                        processContext.getBlockchainMeta().getProduct(),
-                        processContext.getBlockchainMeta().getBlockchainId(),
-                        BlockTaskTypeEnum.NOTIFY.toNotifyWorkerHeightType(workerType)
-                ),
+                getHeight(BlockTaskTypeEnum.NOTIFY.toNotifyWorkerHeightType(workerType)),
                 processContext.getBlockchainMeta().getProperties().getInitBlockHeight()
         );
     }
@@ -73,10 +52,32 @@ public abstract class BlockBaseTask {
     }
 
     public void saveNotifyBlockHeaderHeight(String workerType, long height) {
+        saveHeight(BlockTaskTypeEnum.NOTIFY.toNotifyWorkerHeightType(workerType), height);
+    }
+
+    /**
+     * 开启检查点时读写本地高度，否则直接读写Redis和DB
+     */
+    private long getHeight(String heightType) {
+        if (ObjectUtil.isNotNull(processContext.getCheckpointStore())) {
+            return processContext.getCheckpointStore().getHeight(heightType);
+        }
+        return processContext.getBlockchainRepository().getAnchorProcessHeight(
+                processContext.getBlockchainMeta().getProduct(),
+                processContext.getBlockchainMeta().getBlockchainId(),
+                heightType
+        );
+    }
+
+    private void saveHeight(String heightType, long height) {
+        if (ObjectUtil.isNotNull(processContext.getCheckpointStore())) {
+            processContext.getCheckpointStore().setHeight(heightType, height);
+            return;
+        }
         processContext.getBlockchainRepository().setAnchorProcessHeight(
                 processContext.getBlockchainMeta().getProduct(),
                 processContext.getBlockchainMeta().getBlockchainId(),
-                BlockTaskTypeEnum.NOTIFY.toNotifyWorkerHeightType(workerType),
+                heightType,
                 height
         );
     }
@@ -1,8 +1,12 @@
 package com.alipay.antchain.bridge.relayer.core.service.anchor.tasks;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import cn.hutool.core.collection.ListUtil;
 import cn.hutool.core.util.ObjectUtil;
@@ -38,6 +42,8 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class BlockNotifyTask extends BlockBaseTask {
 
+    private static final long PIPELINE_POLL_TIMEOUT = 100;
+
     /**
      * 合约的workers
      */
@@ -120,9 +126,22 @@ public class BlockNotifyTask extends BlockBaseTask {
                     currentHeight,
                     endHeight
             );
-            
+
+            if (getProcessContext().isNotifyBatchIngestEnabled()) {
+                processBlocksInBatch(notifyTaskType, currentHeight, endHeight, localBlockHeaderHeight);
+                continue;
+            }
+
             for (; currentHeight <= endHeight; ++currentHeight) {
-                
+
+                long skippedHeight = skipEmptyBlocks(notifyTaskType, currentHeight, localBlockHeaderHeight);
+                if (skippedHeight >= currentHeight) {
+                    // 跳过的空区块不计入本轮的批量大小
+                    endHeight = Math.min(localBlockHeaderHeight, endHeight + skippedHeight - currentHeight + 1);
+                    currentHeight = skippedHeight;
+                    continue;
+                }
+
                 AbstractBlock block = getProcessContext().getBlockQueue().getBlockFromQueue(currentHeight);
                 if (ObjectUtil.isNull(block)) {
                     log.error(
@@ -133,52 +152,237 @@ public class BlockNotifyTask extends BlockBaseTask {
                     );
                     break;
                 }
-                log.info(
-                        "blockchain {} notify task {} is processing the block {}",
+                if (!processBlockByWorkers(notifyTaskType, block)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * 把{@code currentHeight}到{@code endHeight}的区块作为一批交给workers，一个事务写入所有消息，
+     * 成功后notify高度一次推进到最后一个区块。批量处理失败时逐块处理，定位失败的区块。
+     */
+    private void processBlocksInBatch(NotifyTaskTypeEnum notifyTaskType, long currentHeight, long endHeight, long localBlockHeaderHeight) {
+        long skippedHeight = skipEmptyBlocks(notifyTaskType, currentHeight, localBlockHeaderHeight);
+        if (skippedHeight >= currentHeight) {
+            // 跳过的空区块不计入本轮的批量大小
+            endHeight = Math.min(localBlockHeaderHeight, endHeight + skippedHeight - currentHeight + 1);
+            currentHeight = skippedHeight + 1;
+        }
+
+        List<AbstractBlock> blocks = new ArrayList<>();
+        for (; currentHeight <= endHeight; ++currentHeight) {
+            AbstractBlock block = getProcessContext().getBlockQueue().getBlockFromQueue(currentHeight);
+            if (ObjectUtil.isNull(block)) {
+                log.error(
+                        "blockchain {} notify task {} can't find block {} from block queue so process blocks before it",
                         getProcessContext().getBlockchainMeta().getMetaKey(),
                         notifyTaskType.getCode(),
                         currentHeight
                 );
+                break;
+            }
+            blocks.add(block);
+        }
+        if (blocks.isEmpty() || processBlocksByWorkers(notifyTaskType, blocks)) {
+            return;
+        }
+
+        for (AbstractBlock block : blocks) {
+            if (!processBlockByWorkers(notifyTaskType, block)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 追块模式下处理同步任务直接交付的一段连续区块，整段作为一批处理，失败时逐块处理。
+     *
+     * @return 已处理到的高度
+     */
+    public long processCatchUpBlocks(List<AbstractBlock> blocks) {
+        NotifyTaskTypeEnum notifyTaskType = NotifyTaskTypeEnum.CROSSCHAIN_MSG_WORKER;
+        if (processBlocksByWorkers(notifyTaskType, blocks)) {
+            return blocks.get(blocks.size() - 1).getHeight();
+        }
+        for (AbstractBlock block : blocks) {
+            if (!processBlockByWorkers(notifyTaskType, block)) {
+                break;
+            }
+        }
+        return getNotifyBlockHeaderHeight(notifyTaskType.getCode());
+    }
 
-                boolean processResult = true;
+    /**
+     * 流水线模式下的notify阶段，按高度顺序处理同步阶段交付的区块。
+     * <p>
+     * 高度不超过{@code syncedHeight}的区块在流水线启动前就已同步，直接从区块队列读取；
+     * 之后的区块从{@code syncedBlocks}中获取，同步阶段结束且队列为空，或者到达{@code deadline}时退出。
+     *
+     * @param syncedHeight 流水线启动时本地已同步的高度
+     * @param syncedBlocks 同步阶段与notify阶段之间的有界队列
+     * @param syncStage    同步阶段的future
+     * @param deadline     本轮流水线的截止时间
+     */
+    public void doPipelinedProcess(long syncedHeight, BlockingQueue<AbstractBlock> syncedBlocks, Future<?> syncStage, long deadline) {
+        NotifyTaskTypeEnum notifyTaskType = NotifyTaskTypeEnum.CROSSCHAIN_MSG_WORKER;
+        long currentHeight = getNotifyBlockHeaderHeight(notifyTaskType.getCode()) + 1;
 
-                // 责任链模式，一个区块交给各个worker各处理一遍，且都要处理成功
-                // TODO 一个worker处理失败，会导致该区块会全部重做一遍，这样子worker可能会收到同一个区块多次，需要能有幂等处理能力，这点可以优化
-                for (BlockWorker worker : workersByTask.get(notifyTaskType)) {
-                    if (!worker.process(block)) {
+        try {
+            while (System.currentTimeMillis() < deadline) {
+                AbstractBlock block;
+                if (currentHeight <= syncedHeight) {
+                    long skippedHeight = skipEmptyBlocks(notifyTaskType, currentHeight, syncedHeight);
+                    if (skippedHeight >= currentHeight) {
+                        currentHeight = skippedHeight + 1;
+                        continue;
+                    }
+                    block = getProcessContext().getBlockQueue().getBlockFromQueue(currentHeight);
+                    if (ObjectUtil.isNull(block)) {
                         log.error(
-                                "worker {} process block failed: [ blockchain: {}, height: {} ]",
-                                notifyTaskType,
+                                "blockchain {} pipelined notify task can't find block {} from block queue",
                                 getProcessContext().getBlockchainMeta().getMetaKey(),
                                 currentHeight
                         );
-                        processResult = false;
-                        break;
+                        return;
+                    }
+                } else {
+                    block = syncedBlocks.poll(PIPELINE_POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+                    if (ObjectUtil.isNull(block)) {
+                        if (syncStage.isDone() && syncedBlocks.isEmpty()) {
+                            return;
+                        }
+                        continue;
+                    }
+                    if (block.getHeight() < currentHeight) {
+                        continue;
+                    }
+                    if (block.getHeight() > currentHeight) {
+                        log.error(
+                                "blockchain {} pipelined notify task expect block {} but get block {}",
+                                getProcessContext().getBlockchainMeta().getMetaKey(),
+                                currentHeight,
+                                block.getHeight()
+                        );
+                        return;
                     }
                 }
 
-                // 处理成功，则持久化区块高度
-                if (processResult) {
-                    saveNotifyBlockHeaderHeight(notifyTaskType.getCode(), currentHeight);
-                    log.info(
-                            "successful to process block (height: {}) in notify task {} from chain (product: {}, blockchain_id: {})",
-                            block.getHeight(),
-                            notifyTaskType.getCode(),
-                            block.getProduct(),
-                            block.getBlockchainId()
-                    );
-                } else {
-                    log.error(
-                            "failed to process block (height: {}) in notify task {} from chain (product: {}, blockchain_id: {})",
-                            block.getHeight(),
-                            notifyTaskType.getCode(),
-                            block.getProduct(),
-                            block.getBlockchainId()
-                    );
-                    break;
+                if (!processBlockByWorkers(notifyTaskType, block)) {
+                    return;
                 }
+                ++currentHeight;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("pipelined notify task for blockchain {} interrupted", getProcessContext().getBlockchainMeta().getMetaKey());
+        }
+    }
+
+    /**
+     * 根据同步任务记录的索引，一次性跳过从{@code currentHeight}开始、不超过{@code maxHeight}的没有跨链消息的区块
+     *
+     * @return 跳过之后已处理的高度，没有跳过时返回 {@code currentHeight - 1}
+     */
+    private long skipEmptyBlocks(NotifyTaskTypeEnum notifyTaskType, long currentHeight, long maxHeight) {
+        long emptyEnd = getProcessContext().getMessageHeightIndex().lastEmptyHeight(currentHeight, maxHeight);
+        if (emptyEnd < currentHeight) {
+            return currentHeight - 1;
+        }
+
+        saveNotifyBlockHeaderHeight(notifyTaskType.getCode(), emptyEnd);
+        getProcessContext().getBlockQueue().evictBlocksUpTo(emptyEnd);
+        getProcessContext().getMessageHeightIndex().prune(emptyEnd);
+        log.info(
+                "notify task {} for blockchain {} skip empty blocks from {} to {}",
+                notifyTaskType.getCode(),
+                getProcessContext().getBlockchainMeta().getMetaKey(),
+                currentHeight,
+                emptyEnd
+        );
+        return emptyEnd;
+    }
+
+    private boolean processBlockByWorkers(NotifyTaskTypeEnum notifyTaskType, AbstractBlock block) {
+        log.info(
+                "blockchain {} notify task {} is processing the block {}",
+                getProcessContext().getBlockchainMeta().getMetaKey(),
+                notifyTaskType.getCode(),
+                block.getHeight()
+        );
+
+        // 责任链模式，一个区块交给各个worker各处理一遍，且都要处理成功
+        // TODO 一个worker处理失败，会导致该区块会全部重做一遍，这样子worker可能会收到同一个区块多次，需要能有幂等处理能力，这点可以优化
+        for (BlockWorker worker : workersByTask.get(notifyTaskType)) {
+            if (!worker.process(block)) {
+                log.error(
+                        "worker {} process block failed: [ blockchain: {}, height: {} ]",
+                        notifyTaskType,
+                        getProcessContext().getBlockchainMeta().getMetaKey(),
+                        block.getHeight()
+                );
+                log.error(
+                        "failed to process block (height: {}) in notify task {} from chain (product: {}, blockchain_id: {})",
+                        block.getHeight(),
+                        notifyTaskType.getCode(),
+                        block.getProduct(),
+                        block.getBlockchainId()
+                );
+                return false;
+            }
+        }
+
+        // 处理成功，则持久化区块高度
+        saveNotifyBlockHeaderHeight(notifyTaskType.getCode(), block.getHeight());
+        getProcessContext().getBlockQueue().evictBlocksUpTo(block.getHeight());
+        getProcessContext().getMessageHeightIndex().prune(block.getHeight());
+        log.info(
+                "successful to process block (height: {}) in notify task {} from chain (product: {}, blockchain_id: {})",
+                block.getHeight(),
+                notifyTaskType.getCode(),
+                block.getProduct(),
+                block.getBlockchainId()
+        );
+        return true;
+    }
+
+    private boolean processBlocksByWorkers(NotifyTaskTypeEnum notifyTaskType, List<AbstractBlock> blocks) {
+        AbstractBlock lastBlock = blocks.get(blocks.size() - 1);
+        log.info(
+                "blockchain {} notify task {} is processing blocks from {} to {}",
+                getProcessContext().getBlockchainMeta().getMetaKey(),
+                notifyTaskType.getCode(),
+                blocks.get(0).getHeight(),
+                lastBlock.getHeight()
+        );
+
+        for (BlockWorker worker : workersByTask.get(notifyTaskType)) {
+            if (!worker.process(blocks)) {
+                log.warn(
+                        "failed to process blocks from {} to {} in notify task {} from chain {}, retry block by block",
+                        blocks.get(0).getHeight(),
+                        lastBlock.getHeight(),
+                        notifyTaskType.getCode(),
+                        getProcessContext().getBlockchainMeta().getMetaKey()
+                );
+                return false;
             }
         }
+
+        // 高度在worker的事务之外写入，宕机后重做这些区块时，receiver会跳过已经写入的消息
+        saveNotifyBlockHeaderHeight(notifyTaskType.getCode(), lastBlock.getHeight());
+        getProcessContext().getBlockQueue().evictBlocksUpTo(lastBlock.getHeight());
+        getProcessContext().getMessageHeightIndex().prune(lastBlock.getHeight());
+        log.info(
+                "successful to process blocks from {} to {} in notify task {} from chain (product: {}, blockchain_id: {})",
+                blocks.get(0).getHeight(),
+                lastBlock.getHeight(),
+                notifyTaskType.getCode(),
+                lastBlock.getProduct(),
+                lastBlock.getBlockchainId()
+        );
+        return true;
     }
 
     private boolean ifDeployContract(NotifyTaskTypeEnum taskType) {
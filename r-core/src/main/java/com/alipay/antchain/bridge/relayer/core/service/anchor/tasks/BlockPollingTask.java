@@ -1,5 +1,6 @@
 package com.alipay.antchain.bridge.relayer.core.service.anchor.tasks;
 
+import cn.hutool.core.util.ObjectUtil;
 import com.alipay.antchain.bridge.relayer.commons.exception.AntChainBridgeRelayerException;
 import com.alipay.antchain.bridge.relayer.commons.exception.RelayerErrorCodeEnum;
 import com.alipay.antchain.bridge.relayer.core.service.anchor.context.AnchorProcessContext;
@@ -18,7 +19,13 @@ public class BlockPollingTask extends BlockBaseTask {
     @Override
     public void doProcess() {
         try {
-            long latestHeight = queryRemoteBlockHeaderHeight();
+            long latestHeight = readSubscribedHeight();
+            if (latestHeight < 0) {
+                latestHeight = queryRemoteBlockHeaderHeight();
+                if (ObjectUtil.isNotNull(getProcessContext().getNewHeightSubscription())) {
+                    getProcessContext().getNewHeightSubscription().onPolledHeight(latestHeight);
+                }
+            }
             if (getRemoteBlockHeaderHeight() < latestHeight) {
                 log.info("polling height {} remote block header from {}", latestHeight, getProcessContext().getBlockchainMeta().getMetaKey());
                 saveRemoteBlockHeaderHeight(latestHeight);
@@ -33,6 +40,19 @@ public class BlockPollingTask extends BlockBaseTask {
         }
     }
 
+    /**
+     * 开启订阅时使用插件服务推送的高度
+     *
+     * @return 没有可用的推送高度时返回-1
+     */
+    private long readSubscribedHeight() {
+        NewHeightSubscription subscription = getProcessContext().getNewHeightSubscription();
+        if (ObjectUtil.isNull(subscription)) {
+            return -1;
+        }
+        return subscription.readLatestHeight();
+    }
+
     private long queryRemoteBlockHeaderHeight() {
         return getProcessContext().getBlockchainClient().getLastBlockHeight();
     }
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2023 Ant Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alipay.antchain.bridge.relayer.core.service.anchor.tasks;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import cn.hutool.core.lang.Assert;
+import com.alipay.antchain.bridge.relayer.core.types.blockchain.AbstractBlock;
+
+/**
+ * 以区块高度为下标的环形缓存，无锁。
+ * <p>
+ * 区块高度连续且按顺序被notify任务消费，所以高度为 h 的区块存放在 {@code h % capacity} 的槽位上，
+ * 新区块会覆盖同一槽位上更早的区块，更早的区块不会覆盖更新的区块，
+ * notify处理完成后可以显式清理已处理高度的槽位，已清理的高度不会再放入缓存。
+ */
+public class BlockRingBuffer {
+
+    private final AtomicReferenceArray<AbstractBlock> slots;
+
+    private final int capacity;
+
+    /**
+     * 已清理到的高度
+     */
+    private final AtomicLong evictedHeight = new AtomicLong(-1);
+
+    public BlockRingBuffer(int capacity) {
+        Assert.isTrue(capacity > 0, "capacity of block ring buffer must be positive");
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * 放入区块，槽位上已有不低于该高度的区块或该高度已被清理时忽略
+     */
+    public void put(AbstractBlock block) {
+        long height = block.getHeight();
+        if (height <= evictedHeight.get()) {
+            return;
+        }
+        int index = indexOf(height);
+        while (true) {
+            AbstractBlock current = slots.get(index);
+            if (current != null && current.getHeight() >= height) {
+                return;
+            }
+            if (slots.compareAndSet(index, current, block)) {
+                break;
+            }
+        }
+        // 放入的同时该高度被清理了，撤回放入的区块
+        if (height <= evictedHeight.get()) {
+            slots.compareAndSet(index, block, null);
+        }
+    }
+
+    /**
+     * 获取指定高度的区块，槽位为空或已被其他高度占用时返回null
+     */
+    public AbstractBlock get(long height) {
+        AbstractBlock block = slots.get(indexOf(height));
+        if (block == null || block.getHeight() != height) {
+            return null;
+        }
+        return block;
+    }
+
+    /**
+     * 清理高度不超过{@code height}的区块，已被更高区块覆盖的槽位不受影响
+     */
+    public void evictUpTo(long height) {
+        long from = Math.max(evictedHeight.get() + 1, height - capacity + 1);
+        for (long h = from; h <= height; h++) {
+            int index = indexOf(h);
+            AbstractBlock block = slots.get(index);
+            if (block != null && block.getHeight() <= height) {
+                slots.compareAndSet(index, block, null);
+            }
+        }
+        evictedHeight.accumulateAndGet(height, Math::max);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private int indexOf(long height) {
+        return (int) Math.floorMod(height, (long) capacity);
+    }
+}
@@ -2,14 +2,20 @@ package com.alipay.antchain.bridge.relayer.core.service.anchor.tasks;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Future;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 import cn.hutool.core.lang.Assert;
+import cn.hutool.core.util.ObjectUtil;
 import com.alipay.antchain.bridge.relayer.commons.exception.AntChainBridgeRelayerException;
 import com.alipay.antchain.bridge.relayer.commons.exception.RelayerErrorCodeEnum;
 import com.alipay.antchain.bridge.relayer.core.service.anchor.context.AnchorProcessContext;
 import com.alipay.antchain.bridge.relayer.core.types.blockchain.AbstractBlock;
+import com.alipay.antchain.bridge.relayer.core.types.blockchain.AbstractBlockchainClient;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -18,6 +24,8 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class BlockSyncTask extends BlockBaseTask {
 
+    private static final long PIPELINE_OFFER_TIMEOUT = 100;
+
     public BlockSyncTask(
             AnchorProcessContext processContext
     ) {
@@ -85,10 +93,9 @@ public class BlockSyncTask extends BlockBaseTask {
 
         while (currentHeight <= endHeight) {
 
-            long syncBatch = (endHeight - currentHeight + 1) >= getProcessContext().getSyncAsyncQuerySize() ?
-                    getProcessContext().getSyncAsyncQuerySize() : (endHeight - currentHeight + 1);
+            long syncBatch = nextSyncBatch(endHeight - currentHeight + 1, remoteBlockHeaderHeight - currentHeight + 1);
 
-            List<AbstractBlock> blocks = queryRemoteBlock(currentHeight, syncBatch);
+            List<AbstractBlock> blocks = queryRemoteBlockWithControl(currentHeight, syncBatch, remoteBlockHeaderHeight - currentHeight + 1);
 
             if (blocks.isEmpty()) {
                 log.error(
@@ -99,32 +106,199 @@ public class BlockSyncTask extends BlockBaseTask {
                 );
                 break;
             }
-            blocks.forEach(
-                    block -> getProcessContext().getBlockQueue().putBlockIntoQueue(block)
-            );
+            if (!putBlocksIntoQueue(blocks)) {
+                break;
+            }
+            getProcessContext().getMessageHeightIndex().record(blocks);
             saveLocalBlockHeaderHeight(blocks.get(blocks.size() - 1).getHeight());
             currentHeight = blocks.get(blocks.size() - 1).getHeight() + 1;
         }
     }
 
-    public List<AbstractBlock> queryRemoteBlock(long height, long size) {
-        List<Future<AbstractBlock>> blockFutures = new ArrayList<>((int) size);
-        for (long queryHeight = height; queryHeight < height + size; ++queryHeight) {
-            long finalQueryHeight = queryHeight;
-            blockFutures.add(
-                    getProcessContext().getBlockSyncTaskThreadsPool().submit(
-                            () -> getProcessContext().getBlockchainClient().getEssentialHeaderByHeight(finalQueryHeight)
-                    )
+    /**
+     * 流水线模式下的同步阶段，从{@code syncedHeight}之后持续同步区块，
+     * 同步到的区块放入区块队列后再交给{@code syncedBlocks}，队列满时阻塞，以此对同步阶段形成反压。
+     *
+     * @param syncedHeight 流水线启动时本地已同步的高度
+     * @param syncedBlocks 同步阶段与notify阶段之间的有界队列
+     * @param stopped      流水线结束的信号
+     */
+    public void doPipelinedProcess(long syncedHeight, BlockingQueue<AbstractBlock> syncedBlocks, AtomicBoolean stopped) {
+        long currentHeight = syncedHeight + 1;
+        try {
+            while (!stopped.get()) {
+                long remoteBlockHeaderHeight = getRemoteBlockHeaderHeight();
+                if (currentHeight > remoteBlockHeaderHeight) {
+                    Thread.sleep(getProcessContext().getPipelinePollingInterval());
+                    continue;
+                }
+
+                long syncBatch = nextSyncBatch(remoteBlockHeaderHeight - currentHeight + 1, remoteBlockHeaderHeight - currentHeight + 1);
+                List<AbstractBlock> blocks = queryRemoteBlockWithControl(currentHeight, syncBatch, remoteBlockHeaderHeight - currentHeight + 1);
+                if (blocks.isEmpty()) {
+                    log.error(
+                            "pipelined sync: query remote block from {} to {} failed for {}",
+                            currentHeight,
+                            currentHeight + syncBatch,
+                            getProcessContext().getBlockchainMeta().getMetaKey()
+                    );
+                    return;
+                }
+
+                if (!putBlocksIntoQueue(blocks)) {
+                    return;
+                }
+                getProcessContext().getMessageHeightIndex().record(blocks);
+                saveLocalBlockHeaderHeight(blocks.get(blocks.size() - 1).getHeight());
+                currentHeight = blocks.get(blocks.size() - 1).getHeight() + 1;
+
+                // 区块已进入区块队列，流水线提前结束的话，notify任务下一轮可以从区块队列读取
+                for (AbstractBlock block : blocks) {
+                    while (!syncedBlocks.offer(block, PIPELINE_OFFER_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                        if (stopped.get()) {
+                            return;
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("pipelined sync task for blockchain {} interrupted", getProcessContext().getBlockchainMeta().getMetaKey());
+        } catch (AntChainBridgeRelayerException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new AntChainBridgeRelayerException(
+                    RelayerErrorCodeEnum.SERVICE_MULTI_ANCHOR_PROCESS_SYNC_TASK_FAILED,
+                    e,
+                    "failed to sync block in pipeline for {}",
+                    getProcessContext().getBlockchainMeta().getMetaKey()
             );
         }
-        return blockFutures.stream().map(
-                future -> {
+    }
+
+    /**
+     * 追块模式下从{@code startHeight}开始的下一段区块数，由同步任务的并发控制决定，且不超过{@code endHeight}
+     *
+     * @param remoteHeight 远端最新高度，用于计算落后的区块数
+     */
+    public long nextCatchUpBatch(long startHeight, long endHeight, long remoteHeight) {
+        return nextSyncBatch(endHeight - startHeight + 1, remoteHeight - startHeight + 1);
+    }
+
+    /**
+     * 追块模式下在同步线程池中读取从{@code startHeight}开始的{@code size}个区块，区块不写入区块队列，直接交给notify任务处理。
+     *
+     * @param remoteHeight 远端最新高度，用于计算落后的区块数
+     * @return 查询失败时返回空列表
+     */
+    public CompletableFuture<List<AbstractBlock>> queryRemoteBlocksForCatchUp(long startHeight, long size, long remoteHeight) {
+        return CompletableFuture.supplyAsync(
+                () -> {
                     try {
-                        return future.get();
+                        return queryRemoteBlockWithControl(startHeight, size, remoteHeight - startHeight + 1);
                     } catch (Exception e) {
-                        throw new RuntimeException("failed to get block from future object: ", e);
+                        log.error(
+                                "catch-up: failed to query remote block from {} to {} for {}",
+                                startHeight,
+                                startHeight + size - 1,
+                                getProcessContext().getBlockchainMeta().getMetaKey(),
+                                e
+                        );
+                        return new ArrayList<>();
                     }
-                }
-        ).collect(Collectors.toList());
+                },
+                getProcessContext().getBlockSyncTaskThreadsPool()
+        );
+    }
+
+    /**
+     * 等待区块写入区块队列，写入失败时不能推进本地同步高度，否则其他节点读不到这些区块，
+     * 下一轮从原来的高度重新同步
+     */
+    private boolean putBlocksIntoQueue(List<AbstractBlock> blocks) {
+        try {
+            getProcessContext().getBlockQueue().putBlocksIntoQueue(blocks).join();
+            return true;
+        } catch (CompletionException e) {
+            log.error(
+                    "failed to put blocks [{}, {}] into block queue for {}, retry next round",
+                    blocks.get(0).getHeight(),
+                    blocks.get(blocks.size() - 1).getHeight(),
+                    getProcessContext().getBlockchainMeta().getMetaKey(),
+                    e.getCause()
+            );
+            return false;
+        }
+    }
+
+    /**
+     * 追块模式下区块由notify任务直接处理，处理完成后再推进本地同步高度
+     */
+    public void saveCatchUpHeight(long height) {
+        saveLocalBlockHeaderHeight(height);
+    }
+
+    /**
+     * 本次并发查询的区块数，开启自适应控制时由控制器决定，否则为固定的{@code async_size}
+     *
+     * @param limit 本轮最多查询的区块数
+     * @param lag   落后远端的区块数
+     */
+    private long nextSyncBatch(long limit, long lag) {
+        SyncConcurrencyController controller = getProcessContext().getSyncConcurrencyController();
+        if (ObjectUtil.isNull(controller)) {
+            return Math.min(getProcessContext().getSyncAsyncQuerySize(), limit);
+        }
+        return Math.min(controller.nextBatchSize(lag), limit);
+    }
+
+    private List<AbstractBlock> queryRemoteBlockWithControl(long height, long size, long lag) {
+        SyncConcurrencyController controller = getProcessContext().getSyncConcurrencyController();
+        if (ObjectUtil.isNull(controller)) {
+            return queryRemoteBlock(height, size);
+        }
+        long startTime = System.currentTimeMillis();
+        List<AbstractBlock> blocks;
+        try {
+            blocks = queryRemoteBlock(height, size);
+        } catch (Exception e) {
+            controller.onFailure();
+            throw e;
+        }
+        if (blocks.isEmpty()) {
+            controller.onFailure();
+        } else {
+            controller.onSuccess((int) size, System.currentTimeMillis() - startTime, lag);
+        }
+        return blocks;
+    }
+
+    public List<AbstractBlock> queryRemoteBlock(long height, long size) {
+        AbstractBlockchainClient blockchainClient = getProcessContext().getBlockchainClient();
+        if (blockchainClient.ifSupportReadByHeightRange()) {
+            try {
+                return blockchainClient.getEssentialHeadersByHeightRangeAsync(height, height + size - 1).join();
+            } catch (Exception e) {
+                log.warn(
+                        "failed to read blocks by height range [{}, {}] for {}, fallback to read by height",
+                        height,
+                        height + size - 1,
+                        getProcessContext().getBlockchainMeta().getMetaKey(),
+                        e
+                );
+            }
+        }
+
+        // 所有高度的请求同时发出，等待期间不占用线程池
+        List<CompletableFuture<AbstractBlock>> blockFutures = new ArrayList<>((int) size);
+        for (long queryHeight = height; queryHeight < height + size; ++queryHeight) {
+            blockFutures.add(blockchainClient.getEssentialHeaderByHeightAsync(queryHeight));
+        }
+        try {
+            CompletableFuture.allOf(blockFutures.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            throw new RuntimeException("failed to get block from future object: ", e.getCause());
+        }
+        return blockFutures.stream().map(CompletableFuture::join).collect(Collectors.toList());
     }
-}
\ No newline at end of file
+}
@@ -16,10 +16,10 @@
 
 package com.alipay.antchain.bridge.relayer.core.service.anchor.tasks;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
-import cn.hutool.cache.Cache;
-import cn.hutool.cache.CacheUtil;
 import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.core.util.StrUtil;
 import com.alipay.antchain.bridge.relayer.core.service.anchor.context.AnchorProcessContext;
@@ -28,6 +28,8 @@ import com.alipay.antchain.bridge.relayer.core.types.blockchain.HeterogeneousBlo
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.BatchOptions;
+import org.redisson.api.RBatch;
 import org.redisson.api.RBucket;
 import org.redisson.api.RedissonClient;
 import org.redisson.client.codec.ByteArrayCodec;
@@ -39,7 +41,7 @@ public class CachedBlockQueue implements IBlockQueue {
 
     private AnchorProcessContext processContext;
 
-    private final Cache<String, AbstractBlock> blockCache;
+    private final BlockRingBuffer blockCache;
 
     private final RedissonClient redisson;
 
@@ -54,7 +56,7 @@ public class CachedBlockQueue implements IBlockQueue {
             int blockCacheTTL
     ) {
         this.processContext = processContext;
-        this.blockCache = CacheUtil.newFIFOCache(blockCacheCapacity);
+        this.blockCache = new BlockRingBuffer(blockCacheCapacity);
         this.redisson = redisson;
         this.blockCacheTTL = blockCacheTTL;
     }
@@ -63,9 +65,50 @@ public class CachedBlockQueue implements IBlockQueue {
         putBlockIntoCache(block);
     }
 
+    @Override
+    public CompletableFuture<Void> putBlocksIntoQueue(List<AbstractBlock> blocks) {
+        if (blocks.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        RBatch batch = redisson.createBatch(BatchOptions.defaults());
+        for (AbstractBlock block : blocks) {
+            blockCache.put(block);
+            batch.getBucket(
+                    getRedisCacheKey(block.getProduct(), block.getBlockchainId(), block.getHeight()),
+                    ByteArrayCodec.INSTANCE
+            ).setAsync(
+                    block.encode(),
+                    blockCacheTTL,
+                    TimeUnit.MILLISECONDS
+            );
+        }
+
+        long startHeight = blocks.get(0).getHeight();
+        long endHeight = blocks.get(blocks.size() - 1).getHeight();
+        log.info("put blocks [{}, {}] into redis for {}", startHeight, endHeight, processContext.getBlockchainMeta().getMetaKey());
+        return batch.executeAsync().toCompletableFuture().whenComplete(
+                (result, throwable) -> {
+                    if (ObjectUtil.isNotNull(throwable)) {
+                        log.error(
+                                "failed to put blocks [{}, {}] into redis for {}",
+                                startHeight, endHeight, processContext.getBlockchainMeta().getMetaKey(),
+                                throwable
+                        );
+                    }
+                }
+        ).thenApply(result -> null);
+    }
+
+    @Override
+    public void evictBlocksUpTo(long height) {
+        blockCache.evictUpTo(height);
+    }
+
     public AbstractBlock getBlockFromQueue(long height) {
-        if (blockCache.containsKey(getMemCacheKey(height))) {
-            return blockCache.get(getMemCacheKey(height), false);
+        AbstractBlock cachedBlock = blockCache.get(height);
+        if (ObjectUtil.isNotNull(cachedBlock)) {
+            return cachedBlock;
         }
 
         if (height <= latestBlockHeightFetched) {
@@ -105,8 +148,7 @@ public class CachedBlockQueue implements IBlockQueue {
 
         log.debug("put block {} from blockchain {}-{} into cache", block.getHeight(), block.getProduct(), block.getBlockchainId());
 
-        String key = getMemCacheKey(block.getHeight());
-        blockCache.put(key, block);
+        blockCache.put(block);
 
         log.info("put block into redis {}-{}-{}", block.getProduct(), block.getBlockchainId(), block.getHeight());
         redisson.getBucket(
@@ -119,10 +161,6 @@ public class CachedBlockQueue implements IBlockQueue {
         );
     }
 
-    private String getMemCacheKey(long blockHeight) {
-        return Long.toString(blockHeight);
-    }
-
     private String getRedisCacheKey(String product, String blockchainId, long blockHeight) {
         return StrUtil.format("{}^{}^{}", product, blockchainId, blockHeight);
     }
@@ -16,11 +16,29 @@
 
 package com.alipay.antchain.bridge.relayer.core.service.anchor.tasks;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 import com.alipay.antchain.bridge.relayer.core.types.blockchain.AbstractBlock;
 
 public interface IBlockQueue {
 
     void putBlockIntoQueue(AbstractBlock block);
 
+    /**
+     * 批量放入一个同步窗口的区块，只产生一次远端写入
+     *
+     * @param blocks 高度连续的区块
+     * @return 远端写入完成时结束，写入失败时异常结束，调用方确认写入成功后才能推进同步高度
+     */
+    CompletableFuture<Void> putBlocksIntoQueue(List<AbstractBlock> blocks);
+
     AbstractBlock getBlockFromQueue(long height);
+
+    /**
+     * notify任务处理完{@code height}后，清理不再需要的区块
+     *
+     * @param height 已处理的高度
+     */
+    void evictBlocksUpTo(long height);
 }
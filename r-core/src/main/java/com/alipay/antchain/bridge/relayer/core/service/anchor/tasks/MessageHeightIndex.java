@@ -0,0 +1,93 @@
+/*
+ * Copyright 2023 Ant Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alipay.antchain.bridge.relayer.core.service.anchor.tasks;
+
+import java.util.List;
+import java.util.TreeSet;
+
+import cn.hutool.core.util.ObjectUtil;
+import com.alipay.antchain.bridge.relayer.core.types.blockchain.AbstractBlock;
+import lombok.Synchronized;
+
+/**
+ * 记录本节点同步过的区块中，哪些高度带有跨链消息。
+ * <p>
+ * 索引只覆盖本节点连续同步过的高度区间 [coveredFrom, coveredTo]，区间内只保存带消息的高度。
+ * notify任务可以据此一次性跳过没有消息的高度，区间之外的高度仍然逐块处理。
+ */
+public class MessageHeightIndex {
+
+    private final TreeSet<Long> heightsWithMessages = new TreeSet<>();
+
+    private long coveredFrom = -1;
+
+    private long coveredTo = -1;
+
+    /**
+     * 记录一个同步窗口的区块
+     *
+     * @param blocks 高度连续的区块
+     */
+    @Synchronized
+    public void record(List<AbstractBlock> blocks) {
+        if (ObjectUtil.isEmpty(blocks)) {
+            return;
+        }
+        long firstHeight = blocks.get(0).getHeight();
+        if (coveredTo < 0 || firstHeight != coveredTo + 1) {
+            // 和已覆盖的区间不连续，重新开始
+            heightsWithMessages.clear();
+            coveredFrom = firstHeight;
+        }
+        for (AbstractBlock block : blocks) {
+            if (block.ifHasCrossChainMessages()) {
+                heightsWithMessages.add(block.getHeight());
+            }
+        }
+        coveredTo = blocks.get(blocks.size() - 1).getHeight();
+    }
+
+    /**
+     * 从{@code from}开始，不超过{@code to}的、可以确定没有跨链消息的最后一个高度
+     *
+     * @return 可以跳过的最后一个高度，无法跳过时返回 {@code from - 1}
+     */
+    @Synchronized
+    public long lastEmptyHeight(long from, long to) {
+        if (coveredTo < 0 || from < coveredFrom || from > coveredTo) {
+            return from - 1;
+        }
+        long end = Math.min(to, coveredTo);
+        Long next = heightsWithMessages.ceiling(from);
+        if (ObjectUtil.isNotNull(next) && next <= end) {
+            end = next - 1;
+        }
+        return end;
+    }
+
+    /**
+     * notify任务处理完{@code height}后清理索引
+     */
+    @Synchronized
+    public void prune(long height) {
+        if (coveredTo < 0) {
+            return;
+        }
+        heightsWithMessages.headSet(height, true).clear();
+        coveredFrom = Math.max(coveredFrom, height + 1);
+    }
+}
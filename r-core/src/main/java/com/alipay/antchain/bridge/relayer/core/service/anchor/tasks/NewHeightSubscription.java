@@ -0,0 +1,136 @@
+/*
+ * Copyright 2023 Ant Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alipay.antchain.bridge.relayer.core.service.anchor.tasks;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicLong;
+
+import cn.hutool.core.util.ObjectUtil;
+import com.alipay.antchain.bridge.relayer.core.service.anchor.context.AnchorProcessContext;
+import lombok.Synchronized;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 插件服务推送的最新高度。
+ * <p>
+ * polling任务优先使用推送的高度，订阅断开、插件服务不支持订阅或者长时间没有推送时，
+ * polling任务仍然向插件服务查询最新高度。订阅断开后间隔{@code retryInterval}重新订阅。
+ * <p>
+ * 本节点不再运行该链的anchor任务时，下一次推送会关闭订阅。
+ */
+@Slf4j
+public class NewHeightSubscription {
+
+    private final AnchorProcessContext processContext;
+
+    /**
+     * 超过该时间没有推送，或者polling任务没有读取推送的高度，都认为订阅失效
+     */
+    private final long maxSilence;
+
+    private final long retryInterval;
+
+    private final AtomicLong latestHeight = new AtomicLong(-1);
+
+    private volatile Closeable subscription;
+
+    private volatile long lastEventTime;
+
+    private volatile long lastReadTime;
+
+    private volatile long nextRetryTime;
+
+    public NewHeightSubscription(AnchorProcessContext processContext, long maxSilence, long retryInterval) {
+        this.processContext = processContext;
+        this.maxSilence = maxSilence;
+        this.retryInterval = retryInterval;
+    }
+
+    /**
+     * 读取推送的最新高度，订阅失效时返回-1，调用方需要自行查询
+     */
+    public long readLatestHeight() {
+        long now = System.currentTimeMillis();
+        this.lastReadTime = now;
+        subscribeIfNeeded(now);
+        if (ObjectUtil.isNull(this.subscription) || now - this.lastEventTime > maxSilence) {
+            return -1;
+        }
+        return latestHeight.get();
+    }
+
+    /**
+     * 主动查询到的高度也记录下来，避免推送的高度回退。
+     * <p>
+     * 这里不刷新{@code lastEventTime}，订阅是否失效只看推送，否则推送中断后每{@code maxSilence}才会查询一次
+     */
+    public void onPolledHeight(long height) {
+        latestHeight.accumulateAndGet(height, Math::max);
+    }
+
+    @Synchronized
+    private void subscribeIfNeeded(long now) {
+        if (ObjectUtil.isNotNull(this.subscription) || now < this.nextRetryTime) {
+            return;
+        }
+        this.nextRetryTime = now + retryInterval;
+        try {
+            this.subscription = processContext.getBlockchainClient().subscribeNewHeight(
+                    this::onNewHeight,
+                    this::onClosed
+            );
+            // 订阅建立前的高度由polling任务查询得到
+            this.lastEventTime = 0;
+            log.info("subscribe new height for blockchain {}", processContext.getBlockchainMeta().getMetaKey());
+        } catch (Exception e) {
+            log.warn("failed to subscribe new height for blockchain {}", processContext.getBlockchainMeta().getMetaKey(), e);
+        }
+    }
+
+    private void onNewHeight(long height) {
+        long now = System.currentTimeMillis();
+        if (now - this.lastReadTime > maxSilence) {
+            log.info("nobody reads new height for blockchain {}, close the subscription", processContext.getBlockchainMeta().getMetaKey());
+            close();
+            return;
+        }
+        latestHeight.accumulateAndGet(height, Math::max);
+        this.lastEventTime = now;
+    }
+
+    private void onClosed(Throwable t) {
+        if (ObjectUtil.isNull(t)) {
+            log.info("new height subscription for blockchain {} completed", processContext.getBlockchainMeta().getMetaKey());
+        } else {
+            log.warn("new height subscription for blockchain {} failed: {}", processContext.getBlockchainMeta().getMetaKey(), t.getMessage());
+        }
+        this.subscription = null;
+    }
+
+    @Synchronized
+    public void close() {
+        if (ObjectUtil.isNull(this.subscription)) {
+            return;
+        }
+        try {
+            this.subscription.close();
+        } catch (Exception e) {
+            log.warn("failed to close new height subscription for blockchain {}", processContext.getBlockchainMeta().getMetaKey(), e);
+        }
+        this.subscription = null;
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2023 Ant Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alipay.antchain.bridge.relayer.core.service.anchor.tasks;
+
+import cn.hutool.core.lang.Assert;
+import lombok.Getter;
+import lombok.Synchronized;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 同步任务并发查询区块数量的自适应控制，AIMD。
+ * <ul>
+ *     <li>一批查询成功、单个区块的耗时没有明显超过基线、且落后的区块多于当前窗口时，窗口加一</li>
+ *     <li>单个区块的耗时超过基线的{@code latencyTolerance}倍，或者查询失败时，窗口减半</li>
+ * </ul>
+ * 耗时按本批区块数平均，窗口变大本身带来的批次耗时增加不会触发减半。
+ * 基线取观察到的最小平滑耗时，并随时间缓慢上调，避免插件服务长期变慢后窗口一直被压在最小值。
+ * 两次减半至少间隔{@code adjustCooldown}毫秒，同一次变慢期间并发返回的多批查询只减半一次。
+ */
+@Slf4j
+@Getter
+public class SyncConcurrencyController {
+
+    private static final double EWMA_WEIGHT = 0.2;
+
+    private static final double BASELINE_DRIFT = 1.01;
+
+    private static final long DEFAULT_ADJUST_COOLDOWN = 1_000L;
+
+    private final String blockchainKey;
+
+    private final int minWindow;
+
+    private final int maxWindow;
+
+    private final double latencyTolerance;
+
+    private final long adjustCooldown;
+
+    private volatile int window;
+
+    /**
+     * 每批查询中单个区块耗时的指数平滑值，毫秒
+     */
+    private volatile double smoothedLatency = -1;
+
+    /**
+     * 耗时基线，毫秒
+     */
+    private volatile double baselineLatency = -1;
+
+    private volatile long successCount;
+
+    private volatile long failureCount;
+
+    private volatile long lastAdjustTime;
+
+    public SyncConcurrencyController(String blockchainKey, int initWindow, int minWindow, int maxWindow, double latencyTolerance) {
+        this(blockchainKey, initWindow, minWindow, maxWindow, latencyTolerance, DEFAULT_ADJUST_COOLDOWN);
+    }
+
+    public SyncConcurrencyController(String blockchainKey, int initWindow, int minWindow, int maxWindow, double latencyTolerance, long adjustCooldown) {
+        Assert.isTrue(minWindow > 0 && minWindow <= maxWindow, "illegal window range [{}, {}]", minWindow, maxWindow);
+        this.blockchainKey = blockchainKey;
+        this.minWindow = minWindow;
+        this.maxWindow = maxWindow;
+        this.latencyTolerance = latencyTolerance;
+        this.adjustCooldown = adjustCooldown;
+        this.window = Math.max(minWindow, Math.min(maxWindow, initWindow));
+    }
+
+    /**
+     * 本次查询的区块数量
+     *
+     * @param lag 剩余待同步的区块数
+     */
+    public int nextBatchSize(long lag) {
+        return (int) Math.max(1, Math.min(window, lag));
+    }
+
+    /**
+     * 记录一批查询成功
+     *
+     * @param batchSize 本批查询的区块数
+     * @param latency   本批查询耗时，毫秒
+     * @param lag       本批查询前剩余待同步的区块数
+     */
+    @Synchronized
+    public void onSuccess(int batchSize, long latency, long lag) {
+        successCount++;
+        double latencyPerBlock = (double) latency / Math.max(1, batchSize);
+        smoothedLatency = smoothedLatency < 0 ? latencyPerBlock : EWMA_WEIGHT * latencyPerBlock + (1 - EWMA_WEIGHT) * smoothedLatency;
+        baselineLatency = baselineLatency < 0 ? smoothedLatency : Math.min(smoothedLatency, baselineLatency * BASELINE_DRIFT);
+
+        if (smoothedLatency > baselineLatency * latencyTolerance) {
+            decrease("latency per block " + (long) smoothedLatency + "ms over baseline " + (long) baselineLatency + "ms");
+            return;
+        }
+        // 只有窗口被用满、且还有更多区块待同步时才扩大
+        if (batchSize >= window && lag > window && window < maxWindow) {
+            window++;
+            lastAdjustTime = System.currentTimeMillis();
+            log.debug("sync window of blockchain {} increase to {}", blockchainKey, window);
+        }
+    }
+
+    @Synchronized
+    public void onFailure() {
+        failureCount++;
+        decrease("query failed");
+    }
+
+    private void decrease(String reason) {
+        int newWindow = Math.max(minWindow, window / 2);
+        if (newWindow == window || System.currentTimeMillis() - lastAdjustTime < adjustCooldown) {
+            return;
+        }
+        window = newWindow;
+        lastAdjustTime = System.currentTimeMillis();
+        log.info("sync window of blockchain {} decrease to {} because of {}", blockchainKey, window, reason);
+    }
+}
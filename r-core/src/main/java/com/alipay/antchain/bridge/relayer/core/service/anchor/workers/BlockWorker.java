@@ -1,5 +1,7 @@
 package com.alipay.antchain.bridge.relayer.core.service.anchor.workers;
 
+import java.util.List;
+
 import com.alipay.antchain.bridge.relayer.core.service.anchor.context.AnchorProcessContext;
 import com.alipay.antchain.bridge.relayer.core.types.blockchain.AbstractBlock;
 import lombok.Getter;
@@ -25,4 +27,19 @@ public abstract class BlockWorker {
      * @return
      */
     public abstract boolean process(AbstractBlock block);
+
+    /**
+     * 批量处理一段高度连续的区块，要么全部成功，要么全部失败，默认逐块处理
+     *
+     * @param blocks 高度连续的区块
+     * @return
+     */
+    public boolean process(List<AbstractBlock> blocks) {
+        for (AbstractBlock block : blocks) {
+            if (!process(block)) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
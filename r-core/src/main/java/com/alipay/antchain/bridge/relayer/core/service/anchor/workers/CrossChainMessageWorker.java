@@ -1,5 +1,8 @@
 package com.alipay.antchain.bridge.relayer.core.service.anchor.workers;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 import com.alipay.antchain.bridge.relayer.core.service.anchor.context.AnchorProcessContext;
 import com.alipay.antchain.bridge.relayer.core.service.receiver.ReceiverService;
 import com.alipay.antchain.bridge.relayer.core.types.blockchain.AbstractBlock;
@@ -23,6 +26,32 @@ public class CrossChainMessageWorker extends BlockWorker {
         return dealHeteroBlockchain(block);
     }
 
+    @Override
+    public boolean process(List<AbstractBlock> blocks) {
+        try {
+            receiver.receiveBlocks(
+                    blocks.stream().map(block -> (HeterogeneousBlock) block).collect(Collectors.toList())
+            );
+            log.info(
+                    "success to process crosschain messages on blocks from {} to {} from blockchain {}",
+                    blocks.get(0).getHeight(),
+                    blocks.get(blocks.size() - 1).getHeight(),
+                    blocks.get(0).getBlockchainId()
+            );
+        } catch (Exception e) {
+            log.error(
+                    "failed to process blocks from {} to {} from blockchain {}-{}",
+                    blocks.get(0).getHeight(),
+                    blocks.get(blocks.size() - 1).getHeight(),
+                    blocks.get(0).getProduct(),
+                    blocks.get(0).getBlockchainId(),
+                    e
+            );
+            return false;
+        }
+        return true;
+    }
+
     public boolean dealHeteroBlockchain(AbstractBlock block) {
         try {
             receiver.receiveBlock((HeterogeneousBlock) block);
@@ -1,6 +1,7 @@
 package com.alipay.antchain.bridge.relayer.core.service.committer;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.locks.Lock;
@@ -15,6 +16,7 @@ import com.alipay.antchain.bridge.relayer.commons.constant.SDPMsgProcessStateEnu
 import com.alipay.antchain.bridge.relayer.commons.exception.AntChainBridgeRelayerException;
 import com.alipay.antchain.bridge.relayer.commons.exception.RelayerErrorCodeEnum;
 import com.alipay.antchain.bridge.relayer.commons.model.AuthMsgPackage;
+import com.alipay.antchain.bridge.relayer.commons.model.AuthMsgWrapper;
 import com.alipay.antchain.bridge.relayer.commons.model.SDPMsgCommitResult;
 import com.alipay.antchain.bridge.relayer.commons.model.SDPMsgWrapper;
 import com.alipay.antchain.bridge.relayer.core.manager.blockchain.IBlockchainManager;
@@ -31,7 +33,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.TransactionStatus;
-import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionCallback;
 import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
@@ -59,23 +61,88 @@ public class CommitterService {
     @Resource
     private TransactionTemplate transactionTemplate;
 
+    @Resource
+    private CommitterSessionRouter committerSessionRouter;
+
+    @Resource
+    private TxPendingCounter txPendingCounter;
+
+    /**
+     * 开启后每个节点都为所有链运行committer，只提交按一致性哈希归属本节点的session，
+     * 节点集合稳定时提交session不再加分布式锁
+     */
+    @Value("${relayer.service.committer.session_affinity.enable:false}")
+    private boolean sessionAffinityEnabled;
+
+    /**
+     * session亲和开启时，为读到本节点的消息最多分页读取的次数
+     */
+    @Value("${relayer.service.committer.session_affinity.max_peek_pages:16}")
+    private int sessionAffinityMaxPeekPages;
+
     @Value("${relayer.service.committer.ccmsg.batch_size:128}")
     private int commitBatchSize;
 
+    /**
+     * 每个AuthMsgPackage最多打包的消息数，即一笔交易提交的消息数，
+     * 可以通过系统配置 AM_PKG_SIZE-{product}-{blockchainId} 按接收链覆盖
+     */
+    @Value("${relayer.service.committer.ccmsg.pkg_size:1}")
+    private int defaultAMPkgSize;
+
+    /**
+     * AM_PKG_SIZE没有配置时系统配置不会被缓存，这里按链缓存一段时间
+     */
+    @Value("${relayer.service.committer.ccmsg.pkg_size_refresh_interval:10000}")
+    private long amPkgSizeRefreshInterval;
+
+    private final Map<String, AMPkgSizeState> amPkgSizeStates = new ConcurrentHashMap<>();
+
     @Value("${relayer.service.committer.threads.core_size:32}")
     private int committerServiceCoreSize;
 
+    /**
+     * 有序session的流水线提交，每个session最多有 pipeline.window 笔未越过链上序号的交易，
+     * 提交下一笔交易不用等待前一笔确认
+     */
+    @Value("${relayer.service.committer.pipeline.enable:false}")
+    private boolean pipelineEnabled;
+
+    @Value("${relayer.service.committer.pipeline.window:4}")
+    private int pipelineWindow;
+
+    /**
+     * 超过该时间没有处理的窗口作废，比如该链的committer任务已经调度到其他节点
+     */
+    @Value("${relayer.service.committer.pipeline.state_ttl:300000}")
+    private long pipelineStateTTL;
+
+    /**
+     * 有在途交易的有序session的提交窗口，keyed by session key
+     */
+    private final Map<String, SessionCommitWindow> commitWindows = new ConcurrentHashMap<>();
+
     public void process(String blockchainProduct, String blockchainId) {
 
-        if (isBusyBlockchain(blockchainProduct, blockchainId)) {
+        if (txPendingCounter.isOverLimit(blockchainProduct, blockchainId)) {
             log.info("blockchain {}-{} are too busy to receive new message", blockchainProduct, blockchainId);
             return;
         }
 
         List<SDPMsgWrapper> sdpMsgWrappers = new ArrayList<>();
+        // 不区分session归属时是否读到了消息，空闲标记通过Redis共享，只能按这个结果设置
+        boolean anyPending = false;
 
         if (this.blockchainIdleDCache.ifAMCommitterIdle(blockchainProduct, blockchainId)) {
             log.debug("blockchain {}-{} has no messages processed recently, so skip it this committing process", blockchainProduct, blockchainId);
+        } else if (sessionAffinityEnabled) {
+            sdpMsgWrappers = peekOwnSDPMessages(blockchainProduct, blockchainId);
+            anyPending = !sdpMsgWrappers.isEmpty() || !crossChainMessageRepository.peekSDPMessages(
+                    blockchainProduct,
+                    blockchainId,
+                    SDPMsgProcessStateEnum.PENDING,
+                    1
+            ).isEmpty();
         } else {
             sdpMsgWrappers = crossChainMessageRepository.peekSDPMessages(
                     blockchainProduct,
@@ -83,12 +150,15 @@ public class CommitterService {
                     SDPMsgProcessStateEnum.PENDING,
                     commitBatchSize
             );
+            anyPending = !sdpMsgWrappers.isEmpty();
         }
 
         if (!sdpMsgWrappers.isEmpty()) {
             log.info("peek {} sdp msg for blockchain {} from pool", sdpMsgWrappers.size(), blockchainId);
         } else {
-            this.blockchainIdleDCache.setLastEmptyAMSendQueueTime(blockchainProduct, blockchainId);
+            if (!anyPending) {
+                this.blockchainIdleDCache.setLastEmptyAMSendQueueTime(blockchainProduct, blockchainId);
+            }
             log.debug("[committer] peek zero sdp msg for blockchain {} from pool", blockchainId);
         }
 
@@ -98,19 +168,27 @@ public class CommitterService {
                 committerServiceCoreSize
         );
 
+        if (pipelineEnabled) {
+            // 没有新消息但窗口内还有在途交易的session也要处理，以便发现失败的交易
+            addInFlightSessions(blockchainProduct, blockchainId, sdpMsgsMap);
+        }
+
         if (!sdpMsgsMap.isEmpty()) {
             log.info("peek {} sdp msg sessions for blockchain {} from pool", sdpMsgsMap.size(), blockchainId);
         } else {
             log.debug("peek zero sdp msg sessions for blockchain {} from pool", blockchainId);
         }
 
+        int amPkgSize = sdpMsgsMap.isEmpty() ? defaultAMPkgSize : getAMPkgSize(blockchainProduct, blockchainId);
+
         List<Future> futures = new ArrayList<>();
         for (Map.Entry<String, List<SDPMsgWrapper>> entry : sdpMsgsMap.entrySet()) {
             futures.add(
                     committerServiceThreadsPool.submit(
                             wrapRequestTask(
                                     entry.getKey(),
-                                    entry.getValue()
+                                    entry.getValue(),
+                                    amPkgSize
                             )
                     )
             );
@@ -120,22 +198,71 @@ public class CommitterService {
         ProcessUtils.waitAllFuturesDone(blockchainProduct, blockchainId, futures, log);
     }
 
-    private boolean isBusyBlockchain(String blockchainProduct, String blockchainId) {
-
-        String pendingLimit = systemConfigRepository.getSystemConfig(
-                StrUtil.format("{}-{}-{}", Constants.PENDING_LIMIT, blockchainProduct, blockchainId)
-        );
-
-        boolean busy = false;
-        if (!StrUtil.isEmpty(pendingLimit)) {
-            busy = crossChainMessageRepository.countSDPMessagesByState(
+    /**
+     * 按id分页读取PENDING消息，跳过归属其他节点的session，直到读满commitBatchSize条或者读完，
+     * 避免其他节点的消息一直占满每次读取的前commitBatchSize条，本节点的session饿死
+     */
+    private List<SDPMsgWrapper> peekOwnSDPMessages(String blockchainProduct, String blockchainId) {
+        List<SDPMsgWrapper> result = new ArrayList<>();
+        long afterId = 0;
+        for (int i = 0; i < sessionAffinityMaxPeekPages && result.size() < commitBatchSize; i++) {
+            List<SDPMsgWrapper> page = crossChainMessageRepository.peekSDPMessages(
                     blockchainProduct,
                     blockchainId,
-                    SDPMsgProcessStateEnum.TX_PENDING
-            ) >= Integer.parseInt(pendingLimit);
+                    SDPMsgProcessStateEnum.PENDING,
+                    afterId,
+                    commitBatchSize
+            );
+            page.stream()
+                    .filter(sdpMsgWrapper -> committerSessionRouter.ifOwnSession(sdpMsgWrapper.getSessionKey()))
+                    .limit(commitBatchSize - result.size())
+                    .forEach(result::add);
+            if (page.size() < commitBatchSize) {
+                break;
+            }
+            afterId = page.get(page.size() - 1).getId();
         }
+        return result;
+    }
 
-        return busy;
+    private void addInFlightSessions(String blockchainProduct, String blockchainId, Map<String, List<SDPMsgWrapper>> sdpMsgsMap) {
+        commitWindows.forEach(
+                (sessionKey, window) -> {
+                    if (window.isExpired(pipelineStateTTL)) {
+                        log.info("commit window of session {} expired, drop it", sessionKey);
+                        commitWindows.remove(sessionKey);
+                        return;
+                    }
+                    if (
+                            sdpMsgsMap.containsKey(sessionKey)
+                                    || !StrUtil.equals(blockchainProduct, window.getSessionTemplate().getReceiverBlockchainProduct())
+                                    || !StrUtil.equals(blockchainId, window.getSessionTemplate().getReceiverBlockchainId())
+                    ) {
+                        return;
+                    }
+                    if (sessionAffinityEnabled && !committerSessionRouter.ifOwnSession(sessionKey)) {
+                        return;
+                    }
+                    sdpMsgsMap.put(sessionKey, new ArrayList<>());
+                }
+        );
+    }
+
+    private int getAMPkgSize(String blockchainProduct, String blockchainId) {
+        AMPkgSizeState state = amPkgSizeStates.computeIfAbsent(
+                StrUtil.format("{}^{}", blockchainProduct, blockchainId),
+                key -> new AMPkgSizeState()
+        );
+        long now = System.currentTimeMillis();
+        if (now - state.loadTime >= amPkgSizeRefreshInterval) {
+            String pkgSize = systemConfigRepository.getSystemConfig(
+                    StrUtil.format("{}-{}-{}", Constants.AM_PKG_SIZE, blockchainProduct, blockchainId)
+            );
+            state.pkgSize = StrUtil.isNumeric(pkgSize) && Integer.parseInt(pkgSize) > 0 ?
+                    Integer.parseInt(pkgSize) : Math.max(1, defaultAMPkgSize);
+            state.loadTime = now;
+        }
+        return state.pkgSize;
     }
 
     private Map<String, List<SDPMsgWrapper>> groupSession(List<SDPMsgWrapper> sdpMsgWrappers, int remainingWorkerNum) {
@@ -202,33 +329,63 @@ public class CommitterService {
         return sdpMsgsMap;
     }
 
-    private Runnable wrapRequestTask(String sessionName, List<SDPMsgWrapper> sessionMsgs) {
+    private Runnable wrapRequestTask(String sessionName, List<SDPMsgWrapper> sessionMsgs, int amPkgSize) {
         return () -> {
-            Lock sessionLock = crossChainMessageRepository.getSessionLock(sessionName);
-            sessionLock.lock();
-            log.info("get distributed lock for session {}", sessionName);
+            // session亲和开启且节点集合稳定时，session只归一个节点，不需要加锁
+            Lock sessionLock = sessionAffinityEnabled && !committerSessionRouter.ifNeedLock() ?
+                    null : crossChainMessageRepository.getSessionLock(sessionName);
+            if (ObjectUtil.isNotNull(sessionLock)) {
+                sessionLock.lock();
+                log.info("get distributed lock for session {}", sessionName);
+            }
             try {
-                transactionTemplate.execute(
-                        new TransactionCallbackWithoutResult() {
+                Integer txPendingNum = transactionTemplate.execute(
+                        new TransactionCallback<Integer>() {
                             @Override
-                            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                            public Integer doInTransaction(TransactionStatus status) {
                                 // 这是个分布式并发任务，加了session锁后，要check下每个SDP消息的最新状态，防止重复处理
                                 List<SDPMsgWrapper> sessionMsgsUpdate = filterOutdatedMsg(sessionMsgs);
 
                                 // p2p按seq排序，后续需要按序提交
                                 sortSDPMsgList(sessionMsgsUpdate);
 
-                                for (SDPMsgWrapper sdpMsgWrapper : sessionMsgsUpdate) {
-                                    // 逐笔提交，但包装为数组调用批量更新接口
-                                    log.info("committing msg of id {} for session {}", sdpMsgWrapper.getId(), sessionName);
-                                    batchCommitSDPMsg(sessionName, ListUtil.toList(sdpMsgWrapper));
+                                SessionCommitWindow window = getCommitWindow(sessionName, sessionMsgsUpdate);
+                                if (ObjectUtil.isNotNull(window) && !syncCommitWindow(window)) {
+                                    return 0;
+                                }
+
+                                // 同一session的消息接收者和发送链相同，按序每amPkgSize条打成一个包，一笔交易提交
+                                int pendingNum = 0;
+                                for (List<SDPMsgWrapper> pkgMsgs : Lists.partition(sessionMsgsUpdate, amPkgSize)) {
+                                    if (ObjectUtil.isNotNull(window) && window.isFull()) {
+                                        log.info("commit window of session {} is full, wait for confirmation", sessionName);
+                                        break;
+                                    }
+                                    log.info(
+                                            "committing {} msgs from id {} for session {}",
+                                            pkgMsgs.size(), pkgMsgs.get(0).getId(), sessionName
+                                    );
+                                    pendingNum += batchCommitSDPMsg(sessionName, pkgMsgs, window);
                                 }
+                                return pendingNum;
                             }
                         }
                 );
+                // 事务提交后再增加计数，回滚的消息不计入
+                if (ObjectUtil.defaultIfNull(txPendingNum, 0) > 0) {
+                    txPendingCounter.onTxPending(
+                            sessionMsgs.get(0).getReceiverBlockchainProduct(),
+                            sessionMsgs.get(0).getReceiverBlockchainId(),
+                            txPendingNum
+                    );
+                }
+                commitWindows.computeIfPresent(sessionName, (key, window) -> window.isEmpty() ? null : window);
             } catch (AntChainBridgeRelayerException e) {
+                // 事务回滚后窗口记录的交易和DB不一致，丢弃窗口，按链上序号重新开始
+                commitWindows.remove(sessionName);
                 throw e;
             } catch (Exception e) {
+                commitWindows.remove(sessionName);
                 throw new AntChainBridgeRelayerException(
                         RelayerErrorCodeEnum.SERVICE_COMMITTER_PROCESS_CCMSG_FAILED,
                         e,
@@ -236,17 +393,86 @@ public class CommitterService {
                         sessionName, sessionMsgs.size()
                 );
             } finally {
-                sessionLock.unlock();
-                log.info("release distributed lock for session {}", sessionName);
+                if (ObjectUtil.isNotNull(sessionLock)) {
+                    sessionLock.unlock();
+                    log.info("release distributed lock for session {}", sessionName);
+                }
             }
         };
     }
 
+    private SessionCommitWindow getCommitWindow(String sessionName, List<SDPMsgWrapper> sessionMsgs) {
+        if (!pipelineEnabled || StrUtil.startWith(sessionName, SDPMsgWrapper.UNORDERED_SDP_MSG_SESSION)) {
+            return null;
+        }
+        SessionCommitWindow window = commitWindows.get(sessionName);
+        if (ObjectUtil.isNotNull(window) && window.isExpired(pipelineStateTTL)) {
+            log.info("commit window of session {} expired, drop it", sessionName);
+            commitWindows.remove(sessionName);
+            window = null;
+        }
+        if (ObjectUtil.isNull(window)) {
+            if (sessionMsgs.isEmpty()) {
+                return null;
+            }
+            window = new SessionCommitWindow(sessionName, sessionMsgs.get(0), pipelineWindow);
+            commitWindows.put(sessionName, window);
+        }
+        return window;
+    }
+
+    /**
+     * 用链上序号同步窗口，窗口头部的交易失败时等窗口内交易都有结果后重置失败的消息
+     *
+     * @return 本轮是否可以继续提交
+     */
+    private boolean syncCommitWindow(SessionCommitWindow window) {
+        SDPMsgWrapper template = window.getSessionTemplate();
+        if (!window.sync(getSDPMsgSeqOnChain(template.getReceiverBlockchainProduct(), template.getReceiverBlockchainId(), template))) {
+            return false;
+        }
+        if (window.isEmpty()) {
+            return true;
+        }
+
+        Map<Long, SDPMsgProcessStateEnum> states = crossChainMessageRepository.getSDPMessages(window.getInFlightIds(), false)
+                .stream().collect(Collectors.toMap(SDPMsgWrapper::getId, SDPMsgWrapper::getProcessState));
+        if (
+                !window.isRecovering() && window.getHead().getIds().stream()
+                        .anyMatch(id -> states.get(id) == SDPMsgProcessStateEnum.TX_FAILED)
+        ) {
+            log.warn(
+                    "tx for msgs with seq from {} to {} failed in commit window of session {}, start to recover",
+                    window.getHead().getStartSeq(), window.getHead().getEndSeq() - 1, window.getSessionKey()
+            );
+            window.startRecovering();
+        }
+        if (!window.isRecovering()) {
+            return !window.isFull();
+        }
+        if (states.containsValue(SDPMsgProcessStateEnum.TX_PENDING)) {
+            log.info("commit window of session {} is recovering, wait for in-flight txs", window.getSessionKey());
+            return false;
+        }
+        List<Long> resendIds = window.finishRecovering();
+        log.info(
+                "commit window of session {} recovered to seq {}, reset {} failed msgs to pending",
+                window.getSessionKey(), window.getSeqOnChain(), crossChainMessageRepository.resetFailedSDPMessages(resendIds)
+        );
+        // 重置的消息在下一轮重新提交
+        return false;
+    }
+
     private List<SDPMsgWrapper> filterOutdatedMsg(List<SDPMsgWrapper> sessionMsgs) {
+        // 一次查询锁住session的所有消息
+        Set<Long> pendingIds = crossChainMessageRepository.getSDPMessages(
+                sessionMsgs.stream().map(SDPMsgWrapper::getId).collect(Collectors.toList()),
+                true
+        ).stream().filter(
+                sdpMsgWrapper -> sdpMsgWrapper.getProcessState() == SDPMsgProcessStateEnum.PENDING
+        ).map(SDPMsgWrapper::getId).collect(Collectors.toSet());
         return sessionMsgs.stream().filter(
-                sdpMsgWrapper ->
-                        crossChainMessageRepository.getSDPMessage(sdpMsgWrapper.getId(), true)
-                                .getProcessState() == SDPMsgProcessStateEnum.PENDING
+                sdpMsgWrapper -> pendingIds.contains(sdpMsgWrapper.getId())
         ).collect(Collectors.toList());
     }
 
@@ -267,19 +493,22 @@ public class CommitterService {
         }
     }
 
-    private void batchCommitSDPMsg(String sessionName, List<SDPMsgWrapper> msgs) {
+    /**
+     * @return 状态更新为TX_PENDING的消息数
+     */
+    private int batchCommitSDPMsg(String sessionName, List<SDPMsgWrapper> msgs, SessionCommitWindow window) {
 
         String receiverProduct = msgs.get(0).getReceiverBlockchainProduct();
         String receiverBlockchainId = msgs.get(0).getReceiverBlockchainId();
 
-        ParsedSDPMsgSet msgSet = parseSDPMsgList(receiverProduct, receiverBlockchainId, msgs);
+        ParsedSDPMsgSet msgSet = parseSDPMsgList(receiverProduct, receiverBlockchainId, msgs, window);
 
         // 处理脏数据
         updateExpiredMsg(msgSet);
 
         // 处理新数据
         if (msgSet.getUpload().isEmpty()) {
-            return;
+            return 0;
         }
 
         log.info("AMCommitter: {} messages should uploaded for session {}", sessionName, msgSet.getUpload().size());
@@ -287,9 +516,14 @@ public class CommitterService {
         // 提交上链
         try {
 
+            Map<Long, AuthMsgWrapper> authMsgWrapperMap = crossChainMessageRepository.getAuthMessages(
+                    msgSet.getUpload().stream()
+                            .map(sdpMsgWrapper -> sdpMsgWrapper.getAuthMsgWrapper().getAuthMsgId())
+                            .collect(Collectors.toList())
+            );
             msgSet.getUpload().forEach(
                     sdpMsgWrapper -> sdpMsgWrapper.setAuthMsgWrapper(
-                            crossChainMessageRepository.getAuthMessage(sdpMsgWrapper.getAuthMsgWrapper().getAuthMsgId())
+                            authMsgWrapperMap.get(sdpMsgWrapper.getAuthMsgWrapper().getAuthMsgId())
                     )
             );
 
@@ -314,6 +548,7 @@ public class CommitterService {
                 throw new RuntimeException("failed to commit msgs");
             }
 
+            int pendingNum = 0;
             for (SDPMsgWrapper msg : msgSet.getUpload()) {
                 msg.setTxSuccess(res.isCommitSuccess());
                 msg.setTxHash(res.getTxHash());
@@ -323,8 +558,15 @@ public class CommitterService {
                 if (!crossChainMessageRepository.updateSDPMessage(msg)) {
                     throw new RuntimeException("database update failed");
                 }
+                if (msg.getProcessState() == SDPMsgProcessStateEnum.TX_PENDING) {
+                    pendingNum++;
+                }
             }
             log.info("AMCommitter: messages for session {} status updated in database", sessionName);
+            if (ObjectUtil.isNotNull(window)) {
+                window.onSent(msgSet.getUpload());
+            }
+            return pendingNum;
 
         } catch (Exception e) {
             throw new AntChainBridgeRelayerException(
@@ -414,10 +656,13 @@ public class CommitterService {
         }
     }
 
-    private ParsedSDPMsgSet parseSDPMsgList(String product, String blockchainId, List<SDPMsgWrapper> msgs) {
-        long seqOnChain = -1;
+    /**
+     * @param window 流水线提交的窗口，不为空时使用窗口同步的链上序号，并且从窗口的下一个序号开始提交
+     */
+    private ParsedSDPMsgSet parseSDPMsgList(String product, String blockchainId, List<SDPMsgWrapper> msgs, SessionCommitWindow window) {
+        long seqOnChain = ObjectUtil.isNull(window) ? -1 : window.getSeqOnChain();
         ParsedSDPMsgSet set = new ParsedSDPMsgSet();
-        long lastIndex = seqOnChain; // NOTE: this is the first seq which need to send to blockchain
+        long lastIndex = ObjectUtil.isNull(window) ? seqOnChain : window.getNextSeq(); // NOTE: this is the first seq which need to send to blockchain
 
         for (SDPMsgWrapper msg : msgs) { // precondition: msgs was sorted
 
@@ -495,4 +740,11 @@ public class CommitterService {
                 Comparator.comparingInt(SDPMsgWrapper::getMsgSequence)
         );
     }
+
+    private static class AMPkgSizeState {
+
+        private volatile int pkgSize = 1;
+
+        private volatile long loadTime;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2023 Ant Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alipay.antchain.bridge.relayer.core.service.committer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import cn.hutool.core.lang.hash.MurmurHash;
+import cn.hutool.core.util.ObjectUtil;
+import com.alipay.antchain.bridge.relayer.commons.model.ActiveNode;
+import com.alipay.antchain.bridge.relayer.dal.repository.IScheduleRepository;
+import lombok.Getter;
+import lombok.Synchronized;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 按一致性哈希把committer的session分配给在线节点。
+ * <p>
+ * 在线节点取自心跳表{@code dt_active_node}，每{@code refreshInterval}毫秒刷新一次。
+ * 节点集合变化后的{@code stableWindow}毫秒内，各节点看到的归属可能不一致，此时提交session仍需要加锁；
+ * 节点集合稳定后，每个session只有一个节点提交，不再加锁。
+ * <p>
+ * 本节点不在心跳表中时（刚启动或心跳超时），认为所有session都归本节点，并且加锁提交。
+ */
+@Slf4j
+public class CommitterSessionRouter {
+
+    private final String localNodeId;
+
+    private final IScheduleRepository scheduleRepository;
+
+    private final long nodeTimeToLive;
+
+    private final long refreshInterval;
+
+    private final long stableWindow;
+
+    private final int virtualNodeNum;
+
+    private volatile TreeMap<Long, String> ring = new TreeMap<>();
+
+    @Getter
+    private volatile Set<String> members = new HashSet<>();
+
+    private volatile long lastRefreshTime = 0;
+
+    private volatile long lastMembershipChangeTime = 0;
+
+    public CommitterSessionRouter(
+            String localNodeId,
+            IScheduleRepository scheduleRepository,
+            long nodeTimeToLive,
+            long refreshInterval,
+            long stableWindow,
+            int virtualNodeNum
+    ) {
+        this.localNodeId = localNodeId;
+        this.scheduleRepository = scheduleRepository;
+        this.nodeTimeToLive = nodeTimeToLive;
+        this.refreshInterval = refreshInterval;
+        this.stableWindow = stableWindow;
+        this.virtualNodeNum = virtualNodeNum;
+    }
+
+    /**
+     * session是否由本节点提交
+     */
+    public boolean ifOwnSession(String sessionKey) {
+        refreshIfNeeded();
+        if (!members.contains(localNodeId)) {
+            return true;
+        }
+        return ObjectUtil.equals(localNodeId, getOwner(sessionKey));
+    }
+
+    /**
+     * 提交session时是否需要加锁
+     */
+    public boolean ifNeedLock() {
+        refreshIfNeeded();
+        return !members.contains(localNodeId)
+                || System.currentTimeMillis() - lastMembershipChangeTime < stableWindow;
+    }
+
+    public String getOwner(String sessionKey) {
+        TreeMap<Long, String> currRing = this.ring;
+        if (currRing.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> entry = currRing.ceilingEntry(hash(sessionKey));
+        return ObjectUtil.isNull(entry) ? currRing.firstEntry().getValue() : entry.getValue();
+    }
+
+    @Synchronized
+    private void refreshIfNeeded() {
+        long now = System.currentTimeMillis();
+        if (now - lastRefreshTime < refreshInterval) {
+            return;
+        }
+        lastRefreshTime = now;
+
+        Set<String> newMembers;
+        try {
+            newMembers = scheduleRepository.getAllActiveNodes().stream()
+                    .filter(node -> node.ifActive(nodeTimeToLive))
+                    .map(ActiveNode::getNodeId)
+                    .collect(Collectors.toCollection(TreeSet::new));
+        } catch (Exception e) {
+            log.warn("failed to refresh active nodes for committer session router", e);
+            return;
+        }
+        if (newMembers.equals(members)) {
+            return;
+        }
+
+        TreeMap<Long, String> newRing = new TreeMap<>();
+        for (String nodeId : newMembers) {
+            for (int i = 0; i < virtualNodeNum; i++) {
+                newRing.put(hash(nodeId + "#" + i), nodeId);
+            }
+        }
+        log.info("committer session router members change from [{}] to [{}]", String.join(",", members), String.join(",", newMembers));
+        ring = newRing;
+        members = newMembers;
+        lastMembershipChangeTime = now;
+    }
+
+    private static long hash(String key) {
+        return MurmurHash.hash64(key.getBytes(StandardCharsets.UTF_8));
+    }
+}
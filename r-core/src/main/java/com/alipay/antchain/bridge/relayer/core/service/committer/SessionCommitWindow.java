@@ -0,0 +1,181 @@
+/*
+ * Copyright 2023 Ant Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alipay.antchain.bridge.relayer.core.service.committer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import cn.hutool.core.collection.CollUtil;
+import com.alipay.antchain.bridge.relayer.commons.model.SDPMsgWrapper;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Synchronized;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 有序session流水线提交的窗口。
+ * <p>
+ * 记录本节点已经提交、但链上序号还没有越过的交易，最多{@code maxInFlight}笔，
+ * 下一笔交易从{@code nextSeq}开始提交，不用等待前面的交易确认。
+ * <p>
+ * 窗口头部的交易失败后，链上序号不再前进，后面的交易也会因为序号不连续而失败。
+ * 此时进入恢复状态，不再提交新的交易，等窗口内所有交易都有结果后，
+ * 把失败的消息重置为PENDING，窗口退回到链上序号重新提交。
+ * 提交时链上序号恰好等于起始序号的交易（非投机提交）失败时和非流水线模式一样，不会重新提交。
+ */
+@Slf4j
+@Getter
+public class SessionCommitWindow {
+
+    private final String sessionKey;
+
+    /**
+     * 用于查询链上序号
+     */
+    private final SDPMsgWrapper sessionTemplate;
+
+    private final int maxInFlight;
+
+    private final Deque<InFlightTx> inFlightTxs = new ArrayDeque<>();
+
+    private volatile long seqOnChain = -1;
+
+    private volatile long nextSeq = -1;
+
+    private volatile boolean recovering = false;
+
+    private volatile long lastActiveTime = System.currentTimeMillis();
+
+    public SessionCommitWindow(String sessionKey, SDPMsgWrapper sessionTemplate, int maxInFlight) {
+        this.sessionKey = sessionKey;
+        this.sessionTemplate = sessionTemplate;
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    /**
+     * 用链上最新的序号同步窗口，移除链上序号已经越过的交易
+     *
+     * @return 链上序号回退时返回false，可能是查询失败，本轮不再提交
+     */
+    @Synchronized
+    public boolean sync(long newSeqOnChain) {
+        this.lastActiveTime = System.currentTimeMillis();
+        if (newSeqOnChain < this.seqOnChain) {
+            log.warn("seq on chain of session {} goes back from {} to {}", sessionKey, this.seqOnChain, newSeqOnChain);
+            return false;
+        }
+        this.seqOnChain = newSeqOnChain;
+        if (newSeqOnChain > this.nextSeq) {
+            // 窗口内的交易都已上链，或者有其他节点提交过该session
+            inFlightTxs.clear();
+        }
+        while (!inFlightTxs.isEmpty() && inFlightTxs.peekFirst().getEndSeq() <= newSeqOnChain) {
+            inFlightTxs.pollFirst();
+        }
+        if (inFlightTxs.isEmpty()) {
+            this.nextSeq = newSeqOnChain;
+            this.recovering = false;
+        }
+        return true;
+    }
+
+    /**
+     * 记录一笔提交成功的交易，消息需要按序号排好并且从{@code nextSeq}开始
+     */
+    @Synchronized
+    public void onSent(List<SDPMsgWrapper> msgs) {
+        if (CollUtil.isEmpty(msgs)) {
+            return;
+        }
+        long startSeq = msgs.get(0).getMsgSequence();
+        long endSeq = msgs.get(msgs.size() - 1).getMsgSequence() + 1;
+        inFlightTxs.addLast(
+                new InFlightTx(
+                        startSeq,
+                        endSeq,
+                        startSeq > this.seqOnChain,
+                        msgs.stream().map(SDPMsgWrapper::getId).collect(Collectors.toList())
+                )
+        );
+        this.nextSeq = endSeq;
+    }
+
+    public boolean isFull() {
+        return inFlightTxs.size() >= maxInFlight;
+    }
+
+    public boolean isEmpty() {
+        return inFlightTxs.isEmpty();
+    }
+
+    public InFlightTx getHead() {
+        return inFlightTxs.peekFirst();
+    }
+
+    @Synchronized
+    public List<Long> getInFlightIds() {
+        return inFlightTxs.stream().flatMap(tx -> tx.getIds().stream()).collect(Collectors.toList());
+    }
+
+    public void startRecovering() {
+        this.recovering = true;
+    }
+
+    /**
+     * 窗口内的交易都已经有结果后调用，窗口退回到链上序号
+     *
+     * @return 需要重新提交的消息id
+     */
+    @Synchronized
+    public List<Long> finishRecovering() {
+        List<Long> ids = new ArrayList<>();
+        InFlightTx head = inFlightTxs.peekFirst();
+        for (InFlightTx tx : inFlightTxs) {
+            if (tx == head && !tx.isSpeculative()) {
+                continue;
+            }
+            ids.addAll(tx.getIds());
+        }
+        inFlightTxs.clear();
+        this.nextSeq = this.seqOnChain;
+        this.recovering = false;
+        return ids;
+    }
+
+    public boolean isExpired(long ttl) {
+        return System.currentTimeMillis() - lastActiveTime > ttl;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class InFlightTx {
+
+        private final long startSeq;
+
+        private final long endSeq;
+
+        /**
+         * 提交时链上序号还没有到达startSeq
+         */
+        private final boolean speculative;
+
+        private final List<Long> ids;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2023 Ant Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alipay.antchain.bridge.relayer.core.service.committer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Resource;
+
+import cn.hutool.core.util.StrUtil;
+import com.alipay.antchain.bridge.relayer.commons.constant.Constants;
+import com.alipay.antchain.bridge.relayer.commons.constant.SDPMsgProcessStateEnum;
+import com.alipay.antchain.bridge.relayer.dal.repository.ICrossChainMessageRepository;
+import com.alipay.antchain.bridge.relayer.dal.repository.ISystemConfigRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 接收链TX_PENDING消息数的计数，用于committer的准入控制。
+ * <p>
+ * 计数保存在Redis中，committer提交后增加、confirm确认后减少，
+ * 判断是否超过 PENDING_LIMIT-{product}-{blockchainId} 时不再查询DB。
+ * 计数只在事务提交后更新，节点宕机等情况下可能和DB不一致，每隔{@code reconcileInterval}用DB的计数校正一次。
+ */
+@Component
+@Slf4j
+public class TxPendingCounter {
+
+    @Resource
+    private ICrossChainMessageRepository crossChainMessageRepository;
+
+    @Resource
+    private ISystemConfigRepository systemConfigRepository;
+
+    @Value("${relayer.service.committer.tx_pending.reconcile_interval:60000}")
+    private long reconcileInterval;
+
+    /**
+     * PENDING_LIMIT没有配置时系统配置不会被缓存，这里按链缓存一段时间
+     */
+    @Value("${relayer.service.committer.tx_pending.limit_refresh_interval:10000}")
+    private long limitRefreshInterval;
+
+    private final Map<String, ChainState> chainStates = new ConcurrentHashMap<>();
+
+    /**
+     * 接收链的TX_PENDING消息数是否达到了PENDING_LIMIT，没有配置PENDING_LIMIT时总是返回false
+     */
+    public boolean isOverLimit(String product, String blockchainId) {
+        ChainState state = chainStates.computeIfAbsent(
+                StrUtil.format("{}^{}", product, blockchainId),
+                key -> new ChainState()
+        );
+        long now = System.currentTimeMillis();
+        if (now - state.limitLoadTime >= limitRefreshInterval) {
+            String pendingLimit = systemConfigRepository.getSystemConfig(
+                    StrUtil.format("{}-{}-{}", Constants.PENDING_LIMIT, product, blockchainId)
+            );
+            state.limit = StrUtil.isNumeric(pendingLimit) ? Long.parseLong(pendingLimit) : -1;
+            state.limitLoadTime = now;
+        }
+        if (state.limit < 0) {
+            return false;
+        }
+
+        long count;
+        if (now - state.reconcileTime >= reconcileInterval) {
+            count = reconcile(product, blockchainId);
+            state.reconcileTime = now;
+        } else {
+            count = crossChainMessageRepository.getTxPendingCount(product, blockchainId);
+        }
+        return count >= state.limit;
+    }
+
+    /**
+     * 消息变为TX_PENDING，在事务提交后调用
+     */
+    public void onTxPending(String product, String blockchainId, int num) {
+        if (num > 0) {
+            crossChainMessageRepository.addTxPendingCount(product, blockchainId, num);
+        }
+    }
+
+    /**
+     * TX_PENDING的消息得到确认，在状态落库后调用
+     */
+    public void onTxConfirmed(String product, String blockchainId, int num) {
+        if (num > 0) {
+            crossChainMessageRepository.addTxPendingCount(product, blockchainId, -num);
+        }
+    }
+
+    private long reconcile(String product, String blockchainId) {
+        long count = crossChainMessageRepository.countSDPMessagesByState(
+                product,
+                blockchainId,
+                SDPMsgProcessStateEnum.TX_PENDING
+        );
+        long last = crossChainMessageRepository.getTxPendingCount(product, blockchainId);
+        crossChainMessageRepository.setTxPendingCount(product, blockchainId, count);
+        if (last != count) {
+            log.info("reconcile tx pending count of blockchain {}-{} from {} to {}", product, blockchainId, last, count);
+        }
+        return count;
+    }
+
+    private static class ChainState {
+
+        private volatile long limit = -1;
+
+        private volatile long limitLoadTime;
+
+        private volatile long reconcileTime;
+    }
+}
@@ -4,6 +4,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
@@ -20,9 +22,9 @@ import com.alipay.antchain.bridge.relayer.commons.model.SDPMsgCommitResult;
 import com.alipay.antchain.bridge.relayer.commons.model.SDPMsgWrapper;
 import com.alipay.antchain.bridge.relayer.core.manager.blockchain.IBlockchainManager;
 import com.alipay.antchain.bridge.relayer.core.manager.network.IRelayerNetworkManager;
+import com.alipay.antchain.bridge.relayer.core.service.committer.TxPendingCounter;
 import com.alipay.antchain.bridge.relayer.core.types.blockchain.AbstractBlockchainClient;
 import com.alipay.antchain.bridge.relayer.core.types.blockchain.BlockchainClientPool;
-import com.alipay.antchain.bridge.relayer.core.types.blockchain.HeteroBlockchainClient;
 import com.alipay.antchain.bridge.relayer.core.types.network.IRelayerClientPool;
 import com.alipay.antchain.bridge.relayer.core.types.network.RelayerClient;
 import com.alipay.antchain.bridge.relayer.dal.repository.ICrossChainMessageRepository;
@@ -55,6 +57,9 @@ public class AMConfirmService {
     @Resource
     private IBlockchainManager blockchainManager;
 
+    @Resource
+    private TxPendingCounter txPendingCounter;
+
     public void process(String product, String blockchainId) {
         List<SDPMsgWrapper> sdpMsgWrappers = crossChainMessageRepository.peekSDPMessages(
                 product,
@@ -71,47 +76,56 @@ public class AMConfirmService {
         if (ObjectUtil.isNull(client)) {
             client = blockchainClientPool.createClient(blockchainManager.getBlockchainMeta(product, blockchainId));
         }
-        HeteroBlockchainClient heteroBlockchainClient = (HeteroBlockchainClient) client;
-
-        List<Future<CrossChainMessageReceipt>> futureList = new ArrayList<>();
-        sdpMsgWrappers.forEach(
-                sdpMsgWrapper -> futureList.add(
-                        confirmServiceThreadsPool.submit(
-                                () -> heteroBlockchainClient.queryCommittedTxReceipt(sdpMsgWrapper.getTxHash())
-                        )
-                )
-        );
-
-        List<SDPMsgCommitResult> commitResults = new ArrayList<>();
-        futureList.forEach(
-                future -> {
-                    CrossChainMessageReceipt receipt;
-                    try {
-                        receipt = future.get();
-                    } catch (InterruptedException | ExecutionException e) {
-                        throw new RuntimeException(
-                                String.format("failed to query cross-chain receipt for ( product: %s, bid: %s )", product, blockchainId),
-                                e
-                        );
-                    }
-                    if (receipt.isConfirmed()) {
-                        commitResults.add(
-                                new SDPMsgCommitResult(
-                                        product,
-                                        blockchainId,
-                                        receipt.getTxhash(),
-                                        receipt.isSuccessful(),
-                                        receipt.getErrorMsg(),
-                                        System.currentTimeMillis()
+        AbstractBlockchainClient finalClient = client;
+
+        // 回执查询并发发出，收到回执后直接转换为提交结果，不占用线程池
+        // 一笔交易可能提交了多条消息，每个交易hash只查询一次回执
+        List<CompletableFuture<SDPMsgCommitResult>> futureList = sdpMsgWrappers.stream()
+                .map(SDPMsgWrapper::getTxHash)
+                .distinct()
+                .map(
+                        txHash -> finalClient.queryCommittedTxReceiptAsync(txHash)
+                                .thenApply(
+                                        receipt -> {
+                                            if (!receipt.isConfirmed()) {
+                                                return null;
+                                            }
+                                            log.info("sdp confirmed : (tx: {}, is_success: {}, error_msg: {})",
+                                                    receipt.getTxhash(), receipt.isSuccessful(), receipt.getErrorMsg());
+                                            return new SDPMsgCommitResult(
+                                                    product,
+                                                    blockchainId,
+                                                    receipt.getTxhash(),
+                                                    receipt.isSuccessful(),
+                                                    receipt.getErrorMsg(),
+                                                    System.currentTimeMillis()
+                                            );
+                                        }
                                 )
-                        );
-                        log.info("sdp confirmed : (tx: {}, is_success: {}, error_msg: {})",
-                                receipt.getTxhash(), receipt.isSuccessful(), receipt.getErrorMsg());
-                    }
-                }
-        );
+                ).collect(Collectors.toList());
+
+        List<SDPMsgCommitResult> commitResults;
+        try {
+            commitResults = CompletableFuture.allOf(futureList.toArray(new CompletableFuture[0]))
+                    .thenApply(
+                            v -> futureList.stream()
+                                    .map(CompletableFuture::join)
+                                    .filter(ObjectUtil::isNotNull)
+                                    .collect(Collectors.toList())
+                    ).join();
+        } catch (CompletionException e) {
+            throw new RuntimeException(
+                    String.format("failed to query cross-chain receipt for ( product: %s, bid: %s )", product, blockchainId),
+                    e.getCause()
+            );
+        }
 
-        crossChainMessageRepository.updateSDPMessageResults(commitResults);
+        // 按交易hash更新TX_PENDING的消息，一笔交易可能包含多条消息，以实际更新的行数减少计数
+        txPendingCounter.onTxConfirmed(
+                product,
+                blockchainId,
+                crossChainMessageRepository.updateSDPMessageResults(commitResults).stream().mapToInt(Integer::intValue).sum()
+        );
     }
 
     public void processSentToRemoteRelayer(String product, String blockchainId) {
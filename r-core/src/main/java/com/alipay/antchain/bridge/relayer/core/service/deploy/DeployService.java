@@ -19,9 +19,12 @@ package com.alipay.antchain.bridge.relayer.core.service.deploy;
 import java.util.concurrent.locks.Lock;
 import javax.annotation.Resource;
 
+import cn.hutool.core.util.ObjectUtil;
 import com.alipay.antchain.bridge.relayer.commons.model.BlockchainMeta;
 import com.alipay.antchain.bridge.relayer.core.manager.blockchain.IBlockchainManager;
 import com.alipay.antchain.bridge.relayer.core.service.deploy.task.AbstractAsyncTaskExecutor;
+import com.alipay.antchain.bridge.relayer.core.types.blockchain.AbstractBlockchainClient;
+import com.alipay.antchain.bridge.relayer.core.types.blockchain.BlockchainClientPool;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RedissonClient;
 import org.springframework.stereotype.Service;
@@ -47,6 +50,9 @@ public class DeployService {
     @Resource
     private RedissonClient redisson;
 
+    @Resource
+    private BlockchainClientPool blockchainClientPool;
+
     public void process(String product, String blockchainId){
         BlockchainMeta blockchainMeta = blockchainManager.getBlockchainMeta(product, blockchainId);
 
@@ -79,6 +85,27 @@ public class DeployService {
         } finally {
             lock.unlock();
         }
+        // 部署完成后立即刷新本节点客户端的合约状态，不必等待退避时间
+        recheckContracts(blockchainMeta);
+    }
+
+    private void recheckContracts(BlockchainMeta blockchainMeta) {
+        AbstractBlockchainClient blockchainClient = blockchainClientPool.getClient(
+                blockchainMeta.getProduct(),
+                blockchainMeta.getBlockchainId()
+        );
+        if (ObjectUtil.isNull(blockchainClient)) {
+            return;
+        }
+        try {
+            log.info(
+                    "contracts of blockchain {} ready after deploy: {}",
+                    blockchainMeta.getMetaKey(),
+                    blockchainClient.recheckDeployedAMClientContract()
+            );
+        } catch (Exception e) {
+            log.warn("failed to recheck contracts of blockchain {} after deploy", blockchainMeta.getMetaKey(), e);
+        }
     }
 
     private String getRowLockName(String product, String blockchainId) {
@@ -44,6 +44,7 @@ import com.alipay.antchain.bridge.relayer.commons.model.*;
 import com.alipay.antchain.bridge.relayer.core.manager.bcdns.IBCDNSManager;
 import com.alipay.antchain.bridge.relayer.core.manager.network.IRelayerCredentialManager;
 import com.alipay.antchain.bridge.relayer.core.manager.network.IRelayerNetworkManager;
+import com.alipay.antchain.bridge.relayer.core.service.process.ProcessService;
 import com.alipay.antchain.bridge.relayer.core.types.network.BaseRelayerClient;
 import com.alipay.antchain.bridge.relayer.core.types.network.IRelayerClientPool;
 import com.alipay.antchain.bridge.relayer.core.types.network.RelayerClient;
@@ -82,6 +83,9 @@ public class DomainRouterQueryService {
     @Resource
     private TransactionTemplate transactionTemplate;
 
+    @Resource
+    private ProcessService processService;
+
     @Value("#{scheduleContext.nodeId}")
     private String localNodeId;
 
@@ -121,6 +125,21 @@ public class DomainRouterQueryService {
     }
 
     private void processEachTask(MarkDTTask task) {
+        queryDomainRouter(task);
+
+        // 路由和通道已经建立，立即更新等待该路由的NOT_READY消息
+        DomainRouterQueryMarkDTTask currTask = new DomainRouterQueryMarkDTTask(task);
+        try {
+            processService.portNotReadyAuthMessages(currTask.getSenderDomain(), currTask.getReceiverDomain());
+        } catch (Exception e) {
+            log.error(
+                    "failed to port NOT_READY auth messages for channel {}-{}",
+                    currTask.getSenderDomain(), currTask.getReceiverDomain(), e
+            );
+        }
+    }
+
+    private void queryDomainRouter(MarkDTTask task) {
         transactionTemplate.execute(
                 new TransactionCallbackWithoutResult() {
                     @Override
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2023 Ant Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alipay.antchain.bridge.relayer.core.service.process;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.alipay.antchain.bridge.relayer.commons.constant.AuthMsgProcessStateEnum;
+import com.alipay.antchain.bridge.relayer.commons.model.AuthMsgWrapper;
+import com.alipay.antchain.bridge.relayer.commons.model.SDPMsgWrapper;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 一组领取的AM的处理上下文。
+ * <p>
+ * 处理完的AM和产生的SDP消息先记录在这里，整组处理完后批量写入。
+ * 发往远端中继的SDP消息在这组AM的事务提交后再合并发送，
+ * 发送结果在新的事务中落库，数据库事务中不等待网络请求。
+ */
+@Getter
+public class AMChunkContext {
+
+    @Getter
+    @AllArgsConstructor
+    public static class RemoteSDPMsg {
+
+        private final SDPMsgWrapper sdpMsgWrapper;
+
+        /**
+         * 处理前AM的状态，发送失败时恢复
+         */
+        private final AuthMsgProcessStateEnum originalState;
+
+        private final RemoteAMBatchSender.RemoteAM remoteAM;
+    }
+
+    private final List<AuthMsgWrapper> processedAMs = new ArrayList<>();
+
+    private final List<SDPMsgWrapper> sdpMsgs = new ArrayList<>();
+
+    private final List<RemoteSDPMsg> remoteSDPMsgs = new ArrayList<>();
+}
@@ -1,11 +1,12 @@
 package com.alipay.antchain.bridge.relayer.core.service.process;
 
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
 import javax.annotation.Resource;
 
 import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.core.util.StrUtil;
 import com.alipay.antchain.bridge.commons.core.sdp.AbstractSDPMessage;
-import com.alipay.antchain.bridge.commons.core.sdp.SDPMessageFactory;
 import com.alipay.antchain.bridge.relayer.commons.constant.AuthMsgProcessStateEnum;
 import com.alipay.antchain.bridge.relayer.commons.constant.AuthMsgTrustLevelEnum;
 import com.alipay.antchain.bridge.relayer.commons.constant.SDPMsgProcessStateEnum;
@@ -53,14 +54,29 @@ public class AuthenticMessageProcess {
     @Resource
     private IScheduleRepository scheduleRepository;
 
+    @Resource
+    private RemoteAMBatchSender remoteAMBatchSender;
+
     @Value("${relayer.service.process.sdp.acl_on:true}")
     private boolean sdpACLOn;
 
     @Value("${relayer.service.process.ccmsg.fail_limit:10}")
     private int ccmsgFailLimit;
 
-    // TODO: 当支持TP-PROOF之后，应该从网络中获得到UCP，其携带着TP-PROOF
     public boolean doProcess(AuthMsgWrapper amMsgWrapper) {
+        return doProcess(amMsgWrapper, null);
+    }
+
+    /**
+     * 处理AM
+     *
+     * @param amMsgWrapper AM
+     * @param chunkContext 不为空时处理结果只记录到上下文中，由{@link #saveChunkContext}批量写入，
+     *                     发往远端中继的SDP消息由{@link #sendRemoteSDPMsgs}和{@link #finishRemoteSDPMsgs}完成发送和落库
+     * @return 是否处理成功
+     */
+    // TODO: 当支持TP-PROOF之后，应该从网络中获得到UCP，其携带着TP-PROOF
+    public boolean doProcess(AuthMsgWrapper amMsgWrapper, AMChunkContext chunkContext) {
 
         log.info("process auth msg : (src_domain: {}, id: {}, if_remote: {})",
                 amMsgWrapper.getDomain(), amMsgWrapper.getAuthMsgId(), amMsgWrapper.isNetworkAM());
@@ -96,23 +112,22 @@ public class AuthenticMessageProcess {
                 );
                 // 处理上层协议
                 if (amMsgWrapper.getAuthMessage().getUpperProtocol() == UpperProtocolTypeBeyondAMEnum.SDP.getCode()) {
-                    processSDPMsg(amMsgWrapper);
+                    if (processSDPMsg(amMsgWrapper, originalState, chunkContext)) {
+                        // 发送后再更新AM
+                        return true;
+                    }
                 } else {
                     throw new RuntimeException("unsupported am upper protocol type: " + amMsgWrapper.getProtocolType());
                 }
             }
 
-            return crossChainMessageRepository.updateAuthMessage(amMsgWrapper);
-        } catch (SendAuthMessageException e) {
-            amMsgWrapper.setFailCount(amMsgWrapper.getFailCount() + 1);
-            if (amMsgWrapper.getFailCount() > ccmsgFailLimit) {
-                amMsgWrapper.setProcessState(AuthMsgProcessStateEnum.FAILED);
-                log.error("am {} out of retry times: ", amMsgWrapper.getAuthMsgId(), e);
-            } else {
-                amMsgWrapper.setProcessState(originalState);
-                log.warn("am {} with fail count {} process failed", amMsgWrapper.getAuthMsgId(), amMsgWrapper.getFailCount(), e);
+            if (ObjectUtil.isNotNull(chunkContext)) {
+                chunkContext.getProcessedAMs().add(amMsgWrapper);
+                return true;
             }
             return crossChainMessageRepository.updateAuthMessage(amMsgWrapper);
+        } catch (SendAuthMessageException e) {
+            return onSendAuthMessageFailed(amMsgWrapper, originalState, e);
         } catch (CrossChainChannelNotExistException e) {
             log.error("failed to process sdp (send: {}, dest: {}) because that crosschain channel not found: ",
                     e.getSenderDomain(), e.getReceiverDomain(), e);
@@ -132,6 +147,61 @@ public class AuthenticMessageProcess {
         }
     }
 
+    /**
+     * 批量写入上下文中记录的SDP消息和AM状态，需要在事务中调用
+     */
+    public void saveChunkContext(AMChunkContext chunkContext) {
+        crossChainMessageRepository.putSDPMessages(chunkContext.getSdpMsgs());
+        crossChainMessageRepository.updateAuthMessagesState(chunkContext.getProcessedAMs());
+        chunkContext.getSdpMsgs().clear();
+        chunkContext.getProcessedAMs().clear();
+    }
+
+    /**
+     * 合并发送上下文中记录的远端SDP消息，不要在数据库事务中调用
+     */
+    public void sendRemoteSDPMsgs(AMChunkContext chunkContext) {
+        remoteAMBatchSender.sendAll(
+                chunkContext.getRemoteSDPMsgs().stream()
+                        .map(AMChunkContext.RemoteSDPMsg::getRemoteAM)
+                        .collect(Collectors.toList())
+        );
+    }
+
+    /**
+     * 根据{@link #sendRemoteSDPMsgs}的发送结果更新AM和SDP消息，需要在事务中调用
+     */
+    public void finishRemoteSDPMsgs(AMChunkContext chunkContext) {
+        for (AMChunkContext.RemoteSDPMsg remoteSDPMsg : chunkContext.getRemoteSDPMsgs()) {
+            SDPMsgWrapper sdpMsgWrapper = remoteSDPMsg.getSdpMsgWrapper();
+            try {
+                remoteSDPMsg.getRemoteAM().getResult().join();
+            } catch (CompletionException e) {
+                onSendAuthMessageFailed(
+                        sdpMsgWrapper.getAuthMsgWrapper(),
+                        remoteSDPMsg.getOriginalState(),
+                        newSendAuthMessageException(sdpMsgWrapper, remoteSDPMsg.getRemoteAM().getRelayerNodeId(), e.getCause())
+                );
+                continue;
+            }
+            saveRemoteSDPMsg(sdpMsgWrapper, remoteSDPMsg.getRemoteAM().getRelayerNodeId(), chunkContext);
+            chunkContext.getProcessedAMs().add(sdpMsgWrapper.getAuthMsgWrapper());
+        }
+        saveChunkContext(chunkContext);
+    }
+
+    private boolean onSendAuthMessageFailed(AuthMsgWrapper amMsgWrapper, AuthMsgProcessStateEnum originalState, SendAuthMessageException e) {
+        amMsgWrapper.setFailCount(amMsgWrapper.getFailCount() + 1);
+        if (amMsgWrapper.getFailCount() > ccmsgFailLimit) {
+            amMsgWrapper.setProcessState(AuthMsgProcessStateEnum.FAILED);
+            log.error("am {} out of retry times: ", amMsgWrapper.getAuthMsgId(), e);
+        } else {
+            amMsgWrapper.setProcessState(originalState);
+            log.warn("am {} with fail count {} process failed", amMsgWrapper.getAuthMsgId(), amMsgWrapper.getFailCount(), e);
+        }
+        return crossChainMessageRepository.updateAuthMessage(amMsgWrapper);
+    }
+
     private void processLocalAM(AuthMsgWrapper authMsgWrapper) {
 
         // 填充区块链信息
@@ -166,7 +236,10 @@ public class AuthenticMessageProcess {
         authMsgWrapper.setProcessState(AuthMsgProcessStateEnum.PROCESSED);
     }
 
-    private void processSDPMsg(AuthMsgWrapper authMsgWrapper) {
+    /**
+     * @return 是否记录到上下文中等待发送
+     */
+    private boolean processSDPMsg(AuthMsgWrapper authMsgWrapper, AuthMsgProcessStateEnum originalState, AMChunkContext chunkContext) {
 
         SDPMsgWrapper sdpMsgWrapper = parseSDPMsgFrom(authMsgWrapper);
 
@@ -176,22 +249,18 @@ public class AuthenticMessageProcess {
                     sdpMsgWrapper.getReceiverBlockchainProduct(),
                     sdpMsgWrapper.getReceiverBlockchainId()
             );
-            processLocalSDPMsg(sdpMsgWrapper);
-            return;
+            processLocalSDPMsg(sdpMsgWrapper, chunkContext);
+            return false;
         }
 
-        processRemoteSDPMsg(sdpMsgWrapper);
+        return processRemoteSDPMsg(sdpMsgWrapper, originalState, chunkContext);
     }
 
     public SDPMsgWrapper parseSDPMsgFrom(AuthMsgWrapper authMsgWrapper) {
 
         SDPMsgWrapper sdpMsgWrapper = new SDPMsgWrapper();
 
-        sdpMsgWrapper.setSdpMessage(
-                (AbstractSDPMessage) SDPMessageFactory.createSDPMessage(
-                        authMsgWrapper.getAuthMessage().getPayload()
-                )
-        );
+        sdpMsgWrapper.setSdpMessage((AbstractSDPMessage) authMsgWrapper.getSdpMessage());
 
         sdpMsgWrapper.setAuthMsgWrapper(authMsgWrapper);
 
@@ -244,7 +313,7 @@ public class AuthenticMessageProcess {
         return sdpMsgWrapper;
     }
 
-    private void processRemoteSDPMsg(SDPMsgWrapper sdpMsgWrapper) {
+    private boolean processRemoteSDPMsg(SDPMsgWrapper sdpMsgWrapper, AuthMsgProcessStateEnum originalState, AMChunkContext chunkContext) {
         String relayerNodeId = relayerNetworkManager.findRemoteRelayer(sdpMsgWrapper.getReceiverBlockchainDomain());
         if (ObjectUtil.isNull(relayerNodeId)) {
             throw new UnknownRelayerForDestDomainException(
@@ -270,33 +339,61 @@ public class AuthenticMessageProcess {
                         sdpMsgWrapper.getReceiverBlockchainDomain()
                 );
             }
+            String ledgerInfo = ObjectUtil.isEmpty(sdpMsgWrapper.getAuthMsgWrapper().getLedgerInfo()) ? null
+                    : new String(sdpMsgWrapper.getAuthMsgWrapper().getRawLedgerInfo());
+            if (ObjectUtil.isNotNull(chunkContext)) {
+                chunkContext.getRemoteSDPMsgs().add(
+                        new AMChunkContext.RemoteSDPMsg(
+                                sdpMsgWrapper,
+                                originalState,
+                                new RemoteAMBatchSender.RemoteAM(
+                                        relayerNodeId,
+                                        relayerClient,
+                                        sdpMsgWrapper.getSenderBlockchainDomain(),
+                                        sdpMsgWrapper.getAuthMsgWrapper().getUcpId(),
+                                        sdpMsgWrapper.getAuthMsgWrapper().getAuthMessage(),
+                                        "",
+                                        ledgerInfo
+                                )
+                        )
+                );
+                return true;
+            }
             relayerClient.propagateCrossChainMsg(
                     sdpMsgWrapper.getSenderBlockchainDomain(),
                     sdpMsgWrapper.getAuthMsgWrapper().getUcpId(),
                     sdpMsgWrapper.getAuthMsgWrapper().getAuthMessage(),
                     "",
-                    ObjectUtil.isEmpty(sdpMsgWrapper.getAuthMsgWrapper().getLedgerInfo()) ? null
-                            : new String(sdpMsgWrapper.getAuthMsgWrapper().getRawLedgerInfo())
+                    ledgerInfo
             );
         } catch (Exception e) {
-            throw new SendAuthMessageException(
-                    e,
-                    "failed to send message " +
-                            "( version: {}, from_blockchain: {}, sender: {}, receiver_blockchain: {}, receiver: {}, seq: {}, am_id: {} ) " +
-                            "to remote relayer {}",
-                    sdpMsgWrapper.getVersion(),
-                    sdpMsgWrapper.getSenderBlockchainDomain(),
-                    sdpMsgWrapper.getMsgSender(),
-                    sdpMsgWrapper.getReceiverBlockchainDomain(),
-                    sdpMsgWrapper.getMsgReceiver(),
-                    sdpMsgWrapper.getMsgSequence(),
-                    sdpMsgWrapper.getAuthMsgWrapper().getAuthMsgId(),
-                    relayerNodeId
-            );
+            throw newSendAuthMessageException(sdpMsgWrapper, relayerNodeId, e);
         }
 
+        saveRemoteSDPMsg(sdpMsgWrapper, relayerNodeId, null);
+        return false;
+    }
+
+    private SendAuthMessageException newSendAuthMessageException(SDPMsgWrapper sdpMsgWrapper, String relayerNodeId, Throwable e) {
+        return new SendAuthMessageException(
+                e,
+                "failed to send message " +
+                        "( version: {}, from_blockchain: {}, sender: {}, receiver_blockchain: {}, receiver: {}, seq: {}, am_id: {} ) " +
+                        "to remote relayer {}",
+                sdpMsgWrapper.getVersion(),
+                sdpMsgWrapper.getSenderBlockchainDomain(),
+                sdpMsgWrapper.getMsgSender(),
+                sdpMsgWrapper.getReceiverBlockchainDomain(),
+                sdpMsgWrapper.getMsgReceiver(),
+                sdpMsgWrapper.getMsgSequence(),
+                sdpMsgWrapper.getAuthMsgWrapper().getAuthMsgId(),
+                relayerNodeId
+        );
+    }
+
+    private void saveRemoteSDPMsg(SDPMsgWrapper sdpMsgWrapper, String relayerNodeId, AMChunkContext chunkContext) {
         sdpMsgWrapper.setProcessState(SDPMsgProcessStateEnum.REMOTE_PENDING);
-        crossChainMessageRepository.putSDPMessage(sdpMsgWrapper);
+        putSDPMessage(sdpMsgWrapper, chunkContext);
 
         log.info(
                 "successful to send message " +
@@ -313,7 +410,15 @@ public class AuthenticMessageProcess {
         );
     }
 
-    private void processLocalSDPMsg(SDPMsgWrapper sdpMsgWrapper) {
+    private void putSDPMessage(SDPMsgWrapper sdpMsgWrapper, AMChunkContext chunkContext) {
+        if (ObjectUtil.isNotNull(chunkContext)) {
+            chunkContext.getSdpMsgs().add(sdpMsgWrapper);
+            return;
+        }
+        crossChainMessageRepository.putSDPMessage(sdpMsgWrapper);
+    }
+
+    private void processLocalSDPMsg(SDPMsgWrapper sdpMsgWrapper, AMChunkContext chunkContext) {
         switch (sdpMsgWrapper.getProcessState()) {
             case PENDING:
                 // 检查ACL规则，若规则不满足，则状态置为am_msg_rejected
@@ -345,7 +450,7 @@ public class AuthenticMessageProcess {
                 break;
         }
 
-        crossChainMessageRepository.putSDPMessage(sdpMsgWrapper);
+        putSDPMessage(sdpMsgWrapper, chunkContext);
         log.info(
                 "successful to process sdp msg ( version: {}, from_blockchain: {}, sender: {}, receiver_blockchain: {}, receiver: {}, seq: {}, am_id: {} ) locally",
                 sdpMsgWrapper.getVersion(),
@@ -1,16 +1,22 @@
 package com.alipay.antchain.bridge.relayer.core.service.process;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 
 import cn.hutool.core.collection.ListUtil;
 import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.core.util.StrUtil;
-import com.alipay.antchain.bridge.commons.core.sdp.SDPMessageFactory;
 import com.alipay.antchain.bridge.relayer.commons.constant.AuthMsgProcessStateEnum;
 import com.alipay.antchain.bridge.relayer.commons.constant.AuthMsgTrustLevelEnum;
 import com.alipay.antchain.bridge.relayer.commons.constant.UniformCrosschainPacketStateEnum;
@@ -40,6 +46,8 @@ public class ProcessService {
 
     private static final String NOT_READY_AM_LOCK_PREFIX = "NotReadyMessageLock-";
 
+    private static final long NOT_READY_AM_LOCK_WAIT_TIME = 10_000L;
+
     @Resource
     private AuthenticMessageProcess authenticMessageProcess;
 
@@ -70,9 +78,51 @@ public class ProcessService {
     @Value("${relayer.service.process.ccmsg.not_ready_port.batch_size:64}")
     private int notReadyPortBatchSize;
 
+    /**
+     * 路由建立后由{@link #portNotReadyAuthMessages}直接更新NOT_READY消息，
+     * 这里只是兜底，每条链每隔该时间才检查一次是否有NOT_READY消息
+     */
+    @Value("${relayer.service.process.ccmsg.not_ready_port.sweep_interval:60000}")
+    private long notReadyPortSweepInterval;
+
+    private final Map<String, Long> lastNotReadySweepTimeMap = new ConcurrentHashMap<>();
+
+    /**
+     * 开启后按批领取AM，领取到的AM分组在一个事务中处理，不再逐条加行锁
+     */
+    @Value("${relayer.service.process.ccmsg.lease.enable:false}")
+    private boolean ccmsgLeaseEnabled;
+
+    @Value("${relayer.service.process.ccmsg.lease.time:60000}")
+    private long ccmsgLeaseTime;
+
+    @Value("${relayer.service.process.ccmsg.lease.chunk_size:16}")
+    private int ccmsgLeaseChunkSize;
+
     @Resource
     private RedissonClient redisson;
 
+    @Resource
+    private RemoteAMBatchSender remoteAMBatchSender;
+
+    /**
+     * 只有租约模式下的AM分组才会合并发往其他中继，一个批量请求最多包含{@code ccmsgLeaseChunkSize}条AM
+     */
+    @PostConstruct
+    public void checkRemoteBatchConfig() {
+        if (!remoteAMBatchSender.isRemoteBatchEnabled()) {
+            return;
+        }
+        if (!ccmsgLeaseEnabled) {
+            log.warn("remote am batching only works with relayer.service.process.ccmsg.lease.enable=true, am would be sent one by one");
+        } else if (remoteAMBatchSender.getMaxSize() > ccmsgLeaseChunkSize) {
+            log.warn(
+                    "remote am batch max_size {} is larger than lease chunk_size {}, a batch request carries at most {} am",
+                    remoteAMBatchSender.getMaxSize(), ccmsgLeaseChunkSize, ccmsgLeaseChunkSize
+            );
+        }
+    }
+
     /**
      * 执行指定区块的分布式调度任务
      *
@@ -87,8 +137,17 @@ public class ProcessService {
 
         String domainName = blockchainManager.getBlockchainDomain(blockchainProduct, blockchainId);
 
+        String leaseOwner = ccmsgLeaseEnabled ? UUID.randomUUID().toString() : null;
         if (this.blockchainIdleDCache.ifAMProcessIdle(blockchainProduct, blockchainId)) {
             log.debug("am process : blockchain is idle {}-{}.", blockchainProduct, blockchainId);
+        } else if (StrUtil.isNotEmpty(domainName) && ccmsgLeaseEnabled) {
+            authMsgWrapperList = crossChainMessageRepository.claimAuthMessages(
+                    domainName,
+                    ccmsgBatchSize,
+                    ccmsgFailLimit,
+                    leaseOwner,
+                    ccmsgLeaseTime
+            );
         } else if (StrUtil.isNotEmpty(domainName)) {
             authMsgWrapperList = crossChainMessageRepository.peekAuthMessages(
                     domainName,
@@ -104,11 +163,16 @@ public class ProcessService {
             log.debug("{}-{} for auth msg is idle", blockchainProduct, blockchainId);
         }
 
-        if (crossChainMessageRepository.hasNotReadyAuthMessages(domainName)) {
+        if (ifNeedSweepNotReadyAuthMessages(domainName) && crossChainMessageRepository.hasNotReadyAuthMessages(domainName)) {
             log.debug("there is NOT_READY auth messages for domain {} in DB", domainName);
             processServiceThreadsPool.execute(wrapNotReadyAMPorterTask(domainName));
         }
 
+        if (ccmsgLeaseEnabled) {
+            processLeasedAuthMessages(blockchainProduct, blockchainId, authMsgWrapperList, leaseOwner);
+            return;
+        }
+
         // 使用线程池并发执行
         ProcessUtils.waitAllFuturesDone(
                 blockchainProduct,
@@ -122,38 +186,246 @@ public class ProcessService {
         );
     }
 
+    /**
+     * 处理本次领取的AM，每{@code ccmsgLeaseChunkSize}条一组并发执行，处理完成后释放租约
+     */
+    private void processLeasedAuthMessages(String blockchainProduct, String blockchainId, List<AuthMsgWrapper> authMsgWrapperList, String leaseOwner) {
+        if (authMsgWrapperList.isEmpty()) {
+            return;
+        }
+        try {
+            ProcessUtils.waitAllFuturesDone(
+                    blockchainProduct,
+                    blockchainId,
+                    ListUtil.split(authMsgWrapperList, ccmsgLeaseChunkSize).stream().map(
+                            chunk -> processServiceThreadsPool.submit(wrapLeasedAMChunkTask(chunk, leaseOwner))
+                    ).collect(Collectors.toList()),
+                    log
+            );
+        } finally {
+            try {
+                crossChainMessageRepository.releaseAuthMessages(
+                        authMsgWrapperList.stream().map(AuthMsgWrapper::getAuthMsgId).collect(Collectors.toList()),
+                        leaseOwner
+                );
+            } catch (Exception e) {
+                // 租约到期后消息会被重新领取
+                log.warn("failed to release auth messages leased by {} for blockchain {}-{}", leaseOwner, blockchainProduct, blockchainId, e);
+            }
+        }
+    }
+
+    /**
+     * 一组已领取的AM在一个事务中处理，租约保证没有其他节点同时处理，不需要再加行锁。
+     * 事务开始时先续约，续约的行锁持有到事务提交，租约已经过期并被其他节点领取时放弃整组。
+     * 整组处理完后批量写入SDP消息和AM状态，发往远端中继的消息在事务提交后合并发送，发送结果再在新的事务中更新。
+     * 整组处理失败时逐条重新读取并处理，避免一条消息的失败影响同组的其他消息。
+     */
+    private Runnable wrapLeasedAMChunkTask(List<AuthMsgWrapper> chunk, String leaseOwner) {
+        return () -> {
+            AMChunkContext chunkContext = new AMChunkContext();
+            try {
+                Boolean leaseHeld = transactionTemplate.execute(
+                        status -> {
+                            if (!renewLease(chunk, leaseOwner)) {
+                                return false;
+                            }
+                            chunk.forEach(am -> processAM(am.getAuthMsgId(), am, chunkContext));
+                            authenticMessageProcess.saveChunkContext(chunkContext);
+                            return true;
+                        }
+                );
+                if (!Boolean.TRUE.equals(leaseHeld)) {
+                    return;
+                }
+            } catch (Exception e) {
+                log.warn(
+                        "failed to process auth messages [ {} ] together, retry one by one",
+                        chunk.stream().map(am -> String.valueOf(am.getAuthMsgId())).collect(Collectors.joining(", ")),
+                        e
+                );
+                processAMsOneByOne(chunk, leaseOwner);
+                return;
+            }
+            finishRemoteSDPMsgs(chunkContext);
+        };
+    }
+
+    /**
+     * 续约失败说明租约已经到期，消息可能已被其他节点领取，本次不再处理
+     */
+    private boolean renewLease(List<AuthMsgWrapper> ams, String leaseOwner) {
+        int renewed = crossChainMessageRepository.renewAuthMessages(
+                ams.stream().map(AuthMsgWrapper::getAuthMsgId).collect(Collectors.toList()),
+                leaseOwner,
+                ccmsgLeaseTime
+        );
+        if (renewed == ams.size()) {
+            return true;
+        }
+        log.warn(
+                "lease of auth messages [ {} ] expired and only {} renewed by {}, skip them",
+                ams.stream().map(am -> String.valueOf(am.getAuthMsgId())).collect(Collectors.joining(", ")),
+                renewed,
+                leaseOwner
+        );
+        return false;
+    }
+
+    private void processAMsOneByOne(List<AuthMsgWrapper> chunk, String leaseOwner) {
+        for (AuthMsgWrapper am : chunk) {
+            try {
+                transactionTemplate.execute(
+                        new TransactionCallbackWithoutResult() {
+                            @Override
+                            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                                if (renewLease(ListUtil.toList(am), leaseOwner)) {
+                                    processAM(am.getAuthMsgId(), crossChainMessageRepository.getAuthMessage(am.getAuthMsgId()), null);
+                                }
+                            }
+                        }
+                );
+            } catch (Exception e) {
+                log.error("failed to process leased auth message {}", am.getAuthMsgId(), e);
+            }
+        }
+    }
+
     private Runnable wrapAMTask(long amId) {
         return () -> transactionTemplate.execute(
                 new TransactionCallbackWithoutResult() {
                     @Override
                     protected void doInTransactionWithoutResult(TransactionStatus status) {
+                        processAM(amId, crossChainMessageRepository.getAuthMessage(amId, true), null);
+                    }
+                }
+        );
+    }
 
-                        AuthMsgWrapper am = crossChainMessageRepository.getAuthMessage(amId, true);
-                        if (ObjectUtil.isNull(am)) {
-                            log.error("none auth message found for auth id {}", amId);
-                            return;
+    private void finishRemoteSDPMsgs(AMChunkContext chunkContext) {
+        if (chunkContext.getRemoteSDPMsgs().isEmpty()) {
+            return;
+        }
+        authenticMessageProcess.sendRemoteSDPMsgs(chunkContext);
+        try {
+            transactionTemplate.execute(
+                    new TransactionCallbackWithoutResult() {
+                        @Override
+                        protected void doInTransactionWithoutResult(TransactionStatus status) {
+                            authenticMessageProcess.finishRemoteSDPMsgs(chunkContext);
                         }
+                    }
+            );
+        } catch (Exception e) {
+            // AM状态没有更新，租约到期后会重新发送
+            log.error(
+                    "failed to save sending results of auth messages [ {} ]",
+                    chunkContext.getRemoteSDPMsgs().stream()
+                            .map(msg -> String.valueOf(msg.getSdpMsgWrapper().getAuthMsgWrapper().getAuthMsgId()))
+                            .collect(Collectors.joining(", ")),
+                    e
+            );
+        }
+    }
 
-                        try {
-                            if (!authenticMessageProcess.doProcess(am)) {
-                                throw new RuntimeException(
-                                        StrUtil.format("failed to process auth message for auth id {} for unknown reason", amId)
-                                );
-                            }
+    private void processAM(long amId, AuthMsgWrapper am, AMChunkContext chunkContext) {
+        if (ObjectUtil.isNull(am)) {
+            log.error("none auth message found for auth id {}", amId);
+            return;
+        }
 
-                        } catch (AntChainBridgeRelayerException e) {
-                            throw e;
-                        } catch (Exception e) {
-                            throw new AntChainBridgeRelayerException(
-                                    RelayerErrorCodeEnum.SERVICE_CORE_PROCESS_PROCESS_CCMSG_FAILED,
-                                    e,
-                                    "failed to process auth message for auth id {}",
-                                    amId
-                            );
-                        }
+        try {
+            if (!authenticMessageProcess.doProcess(am, chunkContext)) {
+                throw new RuntimeException(
+                        StrUtil.format("failed to process auth message for auth id {} for unknown reason", amId)
+                );
+            }
+
+        } catch (AntChainBridgeRelayerException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new AntChainBridgeRelayerException(
+                    RelayerErrorCodeEnum.SERVICE_CORE_PROCESS_PROCESS_CCMSG_FAILED,
+                    e,
+                    "failed to process auth message for auth id {}",
+                    amId
+            );
+        }
+    }
+
+    private boolean ifNeedSweepNotReadyAuthMessages(String domain) {
+        if (StrUtil.isEmpty(domain)) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        Long lastSweepTime = lastNotReadySweepTimeMap.get(domain);
+        if (ObjectUtil.isNotNull(lastSweepTime) && now - lastSweepTime < notReadyPortSweepInterval) {
+            return false;
+        }
+        lastNotReadySweepTimeMap.put(domain, now);
+        return true;
+    }
+
+    /**
+     * 发送链到接收链的路由和跨链通道建立后调用，把发送链上等待该接收链的NOT_READY消息按新状态分组批量更新
+     *
+     * @param senderDomain   发送链域名
+     * @param receiverDomain 接收链域名
+     */
+    public void portNotReadyAuthMessages(String senderDomain, String receiverDomain) {
+        if (StrUtil.isEmpty(relayerNetworkManager.findRemoteRelayer(receiverDomain))) {
+            log.warn("receiver domain router for {} still not ready after domain router query", receiverDomain);
+            return;
+        }
+
+        Lock notReadyMessageLock = getNotReadyMessageLock(senderDomain);
+        try {
+            if (!notReadyMessageLock.tryLock(NOT_READY_AM_LOCK_WAIT_TIME, TimeUnit.MILLISECONDS)) {
+                log.warn("failed to lock NOT_READY auth messages of domain {}, leave them to the sweep task", senderDomain);
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            Map<AuthMsgProcessStateEnum, List<Long>> idsByNewState = new HashMap<>();
+            long afterId = 0;
+            List<AuthMsgWrapper> authMsgWrappers;
+            do {
+                authMsgWrappers = crossChainMessageRepository.peekNotReadyAuthMessages(
+                        senderDomain, receiverDomain, afterId, notReadyPortBatchSize
+                );
+                for (AuthMsgWrapper authMsgWrapper : authMsgWrappers) {
+                    // 历史消息没有记录目标域名，从payload解析
+                    if (!StrUtil.equals(receiverDomain, authMsgWrapper.getTargetDomain())) {
+                        continue;
+                    }
+                    AuthMsgProcessStateEnum newState = getStateWithRouterReady(authMsgWrapper, false);
+                    if (newState != AuthMsgProcessStateEnum.NOT_READY) {
+                        idsByNewState.computeIfAbsent(newState, state -> new ArrayList<>()).add(authMsgWrapper.getAuthMsgId());
                     }
                 }
-        );
+                if (!authMsgWrappers.isEmpty()) {
+                    afterId = authMsgWrappers.get(authMsgWrappers.size() - 1).getAuthMsgId();
+                }
+            } while (authMsgWrappers.size() >= notReadyPortBatchSize);
+
+            if (idsByNewState.isEmpty()) {
+                return;
+            }
+            Integer cnt = transactionTemplate.execute(
+                    status -> idsByNewState.entrySet().stream()
+                            .mapToInt(entry -> crossChainMessageRepository.updateNotReadyAuthMessagesState(entry.getValue(), entry.getKey()))
+                            .sum()
+            );
+            log.info(
+                    "successful to update {} NOT_READY auth messages from domain {} to domain {}",
+                    ObjectUtil.defaultIfNull(cnt, 0), senderDomain, receiverDomain
+            );
+        } finally {
+            notReadyMessageLock.unlock();
+        }
     }
 
     private Runnable wrapNotReadyAMPorterTask(String domain) {
@@ -221,22 +493,17 @@ public class ProcessService {
     }
 
     private AuthMsgProcessStateEnum getNewStateForNotReadyMsg(AuthMsgWrapper authMsgWrapper) {
-        if (
-                StrUtil.isEmpty(
-                        relayerNetworkManager.findRemoteRelayer(
-                                SDPMessageFactory.createSDPMessage(authMsgWrapper.getPayload())
-                                        .getTargetDomain().getDomain()
-                        )
-                )
-        ) {
-            log.debug(
-                    "receiver domain router for {} still not ready",
-                    SDPMessageFactory.createSDPMessage(authMsgWrapper.getPayload())
-                            .getTargetDomain().getDomain()
-            );
+        if (StrUtil.isEmpty(relayerNetworkManager.findRemoteRelayer(authMsgWrapper.getTargetDomain()))) {
+            log.debug("receiver domain router for {} still not ready", authMsgWrapper.getTargetDomain());
             return AuthMsgProcessStateEnum.NOT_READY;
         }
+        return getStateWithRouterReady(authMsgWrapper, true);
+    }
 
+    /**
+     * 路由已经就绪时，NOT_READY消息按信任等级应处的状态
+     */
+    private AuthMsgProcessStateEnum getStateWithRouterReady(AuthMsgWrapper authMsgWrapper, boolean lockUcp) {
         if (authMsgWrapper.getTrustLevel() == AuthMsgTrustLevelEnum.ZERO_TRUST) {
             return AuthMsgProcessStateEnum.PROVED;
         }
@@ -245,7 +512,7 @@ public class ProcessService {
         }
         UniformCrosschainPacketContext ucpContext = crossChainMessageRepository.getUniformCrosschainPacket(
                 authMsgWrapper.getUcpId(),
-                true
+                lockUcp
         );
         if (ObjectUtil.isNull(ucpContext)) {
             log.error(
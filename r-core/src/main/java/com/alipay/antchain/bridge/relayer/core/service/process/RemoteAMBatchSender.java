@@ -0,0 +1,195 @@
+/*
+ * Copyright 2023 Ant Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alipay.antchain.bridge.relayer.core.service.process;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import cn.hutool.core.util.StrUtil;
+import com.alipay.antchain.bridge.commons.core.am.IAuthMessage;
+import com.alipay.antchain.bridge.relayer.core.types.exception.RelayerRequestNotSupportedException;
+import com.alipay.antchain.bridge.relayer.core.types.network.RelayerClient;
+import com.alipay.antchain.bridge.relayer.core.types.network.request.BatchPropagateCrossChainMsgRequest;
+import com.alipay.antchain.bridge.relayer.core.types.network.response.BatchPropagateCrossChainMsgRespPayload;
+import com.google.common.collect.Lists;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 按目标中继合并发送AM。
+ * <p>
+ * 调用方先收集一组AM（例如一组领取的AM都处理完后），再一次性交给{@link #sendAll(List)}，
+ * 发往同一中继的AM每{@code maxSize}条合并为一个批量请求，不在调用方线程中等待凑批。
+ * 每条AM的结果通过{@link RemoteAM#getResult()}返回，发送结束时所有结果都已完成。
+ * <p>
+ * 批量请求整体失败时，本批改为逐条发送；只有对端明确拒绝批量请求类型时（例如对端版本较旧），
+ * 才在{@code unsupportedBackoff}毫秒内不再向该中继批量发送，网络抖动等其他失败不影响后续批量发送。
+ */
+@Component
+@Slf4j
+public class RemoteAMBatchSender {
+
+    @Getter
+    public static class RemoteAM {
+
+        private final String relayerNodeId;
+
+        private final RelayerClient relayerClient;
+
+        private final BatchPropagateCrossChainMsgRequest.CrossChainMsg crossChainMsg;
+
+        private final IAuthMessage authMessage;
+
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        /**
+         * 参数与{@link RelayerClient#propagateCrossChainMsg}一致
+         *
+         * @param relayerNodeId 目标中继的nodeId，相同nodeId的AM合并发送
+         * @param relayerClient 目标中继的client
+         */
+        public RemoteAM(
+                String relayerNodeId,
+                RelayerClient relayerClient,
+                String domainName,
+                String ucpId,
+                IAuthMessage authMsg,
+                String udagProof,
+                String ledgerInfo
+        ) {
+            this.relayerNodeId = relayerNodeId;
+            this.relayerClient = relayerClient;
+            this.crossChainMsg = new BatchPropagateCrossChainMsgRequest.CrossChainMsg(udagProof, ucpId, authMsg, domainName, ledgerInfo);
+            this.authMessage = authMsg;
+        }
+    }
+
+    @Getter
+    @Value("${relayer.service.process.ccmsg.remote_batch.enable:false}")
+    private boolean remoteBatchEnabled;
+
+    @Getter
+    @Value("${relayer.service.process.ccmsg.remote_batch.max_size:32}")
+    private int maxSize;
+
+    @Value("${relayer.service.process.ccmsg.remote_batch.unsupported_backoff:600000}")
+    private long unsupportedBackoff;
+
+    private final Map<String, Long> batchDisabledUntil = new ConcurrentHashMap<>();
+
+    /**
+     * 发送一组AM，返回时每条AM的结果都已完成，失败的结果中带有异常
+     */
+    public void sendAll(List<RemoteAM> remoteAMs) {
+        Map<String, List<RemoteAM>> amsByRelayer = remoteAMs.stream().collect(
+                Collectors.groupingBy(RemoteAM::getRelayerNodeId, LinkedHashMap::new, Collectors.toList())
+        );
+        try {
+            amsByRelayer.forEach(
+                    (relayerNodeId, ams) -> {
+                        for (List<RemoteAM> batch : Lists.partition(ams, Math.max(1, maxSize))) {
+                            if (
+                                    !remoteBatchEnabled || batch.size() == 1
+                                            || System.currentTimeMillis() < batchDisabledUntil.getOrDefault(relayerNodeId, 0L)
+                            ) {
+                                sendOneByOne(batch);
+                            } else {
+                                sendInBatch(relayerNodeId, batch);
+                            }
+                        }
+                    }
+            );
+        } finally {
+            // 出现未处理的异常时，没有结果的AM按失败处理，避免调用方认为已经发送
+            remoteAMs.stream().filter(am -> !am.result.isDone()).forEach(
+                    am -> am.result.completeExceptionally(
+                            new RuntimeException(
+                                    StrUtil.format("am request (ucp_id: {}) is not sent", am.crossChainMsg.getUcpId())
+                            )
+                    )
+            );
+        }
+    }
+
+    private void sendInBatch(String relayerNodeId, List<RemoteAM> batch) {
+        List<BatchPropagateCrossChainMsgRespPayload.PropagateResult> results;
+        try {
+            results = batch.get(0).relayerClient.batchPropagateCrossChainMsg(
+                    batch.stream().map(msg -> msg.crossChainMsg).collect(Collectors.toList())
+            );
+            if (results.size() != batch.size()) {
+                throw new RuntimeException(
+                        StrUtil.format("expect {} results but get {}", batch.size(), results.size())
+                );
+            }
+        } catch (RelayerRequestNotSupportedException e) {
+            batchDisabledUntil.put(relayerNodeId, System.currentTimeMillis() + unsupportedBackoff);
+            log.warn(
+                    "relayer {} rejects batch am request, send {} am one by one and stop batching for {}ms",
+                    relayerNodeId, batch.size(), unsupportedBackoff, e
+            );
+            sendOneByOne(batch);
+            return;
+        } catch (Exception e) {
+            log.warn("failed to send {} am in batch to relayer {}, send them one by one", batch.size(), relayerNodeId, e);
+            sendOneByOne(batch);
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            RemoteAM msg = batch.get(i);
+            BatchPropagateCrossChainMsgRespPayload.PropagateResult result = results.get(i);
+            if (result.isSuccess()) {
+                msg.result.complete(null);
+            } else {
+                msg.result.completeExceptionally(
+                        new RuntimeException(
+                                StrUtil.format(
+                                        "am request (ucp_id: {}) from domain {} failed: {}",
+                                        msg.crossChainMsg.getUcpId(), msg.crossChainMsg.getDomainName(), result.getErrorMsg()
+                                )
+                        )
+                );
+            }
+        }
+        log.debug("send {} am in batch to relayer {}", batch.size(), relayerNodeId);
+    }
+
+    private void sendOneByOne(List<RemoteAM> batch) {
+        for (RemoteAM msg : batch) {
+            try {
+                msg.relayerClient.propagateCrossChainMsg(
+                        msg.crossChainMsg.getDomainName(),
+                        msg.crossChainMsg.getUcpId(),
+                        msg.authMessage,
+                        msg.crossChainMsg.getUdagProof(),
+                        msg.crossChainMsg.getLedgerInfo()
+                );
+                msg.result.complete(null);
+            } catch (Exception e) {
+                msg.result.completeExceptionally(e);
+            }
+        }
+    }
+}
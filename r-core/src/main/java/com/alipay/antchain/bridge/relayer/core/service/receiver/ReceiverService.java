@@ -2,6 +2,8 @@ package com.alipay.antchain.bridge.relayer.core.service.receiver;
 
 import java.util.Base64;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 import javax.annotation.Resource;
 
 import cn.hutool.core.util.StrUtil;
@@ -16,13 +18,16 @@ import com.alipay.antchain.bridge.relayer.commons.model.UniformCrosschainPacketC
 import com.alipay.antchain.bridge.relayer.core.service.receiver.handler.AsyncReceiveHandler;
 import com.alipay.antchain.bridge.relayer.core.service.receiver.handler.SyncReceiveHandler;
 import com.alipay.antchain.bridge.relayer.core.types.blockchain.HeterogeneousBlock;
+import com.alipay.antchain.bridge.relayer.dal.repository.ICrossChainMessageRepository;
 import com.alipay.antchain.bridge.relayer.dal.repository.impl.BlockchainIdleDCache;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.TransactionCallbackWithoutResult;
 import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
+@Slf4j
 public class ReceiverService {
 
     /**
@@ -43,6 +48,9 @@ public class ReceiverService {
     @Resource
     private TransactionTemplate transactionTemplate;
 
+    @Resource
+    private ICrossChainMessageRepository crossChainMessageRepository;
+
     /**
      * 链外请求receive接口
      *
@@ -83,25 +91,77 @@ public class ReceiverService {
     }
 
     public void receiveBlock(HeterogeneousBlock block) {
+        if (!block.ifHasCrossChainMessages()) {
+            return;
+        }
+        transactionTemplate.execute(
+                new TransactionCallbackWithoutResult() {
+                    @Override
+                    protected void doInTransactionWithoutResult(TransactionStatus status) {
+                        receiveUCPAndAM(block.getUniformCrosschainPacketContexts(), block.toAuthMsgWrappers());
+                    }
+                }
+        );
+    }
+
+    /**
+     * 在一个事务内接收多个区块的消息，UCP和AM各用一条多行insert写入
+     * <p>
+     * 通知高度在事务提交后才写入，而且可能异步落盘，两者不是原子的，节点在两者之间宕机会重新接收这些区块，
+     * 已经写入的UCP及其AM会被跳过。
+     *
+     * @param blocks 高度连续的区块
+     */
+    public void receiveBlocks(List<HeterogeneousBlock> blocks) {
+        List<HeterogeneousBlock> blocksWithMessages = blocks.stream()
+                .filter(HeterogeneousBlock::ifHasCrossChainMessages)
+                .collect(Collectors.toList());
+        if (blocksWithMessages.isEmpty()) {
+            return;
+        }
         transactionTemplate.execute(
                 new TransactionCallbackWithoutResult() {
                     @Override
                     protected void doInTransactionWithoutResult(TransactionStatus status) {
-                        if (block.getUniformCrosschainPacketContexts().isEmpty()) {
-                            return;
-                        }
-                        receiveUCP(block.getUniformCrosschainPacketContexts());
-
-                        List<AuthMsgWrapper> authMessages = block.toAuthMsgWrappers();
-                        if (authMessages.isEmpty()) {
-                            return;
-                        }
-                        receiveAM(authMessages);
+                        receiveUCPAndAM(
+                                blocksWithMessages.stream()
+                                        .flatMap(block -> block.getUniformCrosschainPacketContexts().stream())
+                                        .collect(Collectors.toList()),
+                                blocksWithMessages.stream()
+                                        .flatMap(block -> block.toAuthMsgWrappers().stream())
+                                        .collect(Collectors.toList())
+                        );
                     }
                 }
         );
     }
 
+    /**
+     * 跳过已经写入的UCP及其AM，使重新接收同一批区块是幂等的
+     */
+    private void receiveUCPAndAM(List<UniformCrosschainPacketContext> ucpContexts, List<AuthMsgWrapper> authMessages) {
+        Set<String> savedUcpIds = crossChainMessageRepository.getSavedUniformCrosschainPacketIds(
+                ucpContexts.stream().map(UniformCrosschainPacketContext::getUcpId).collect(Collectors.toList())
+        );
+        if (!savedUcpIds.isEmpty()) {
+            log.warn("skip {} ucp received before: [ {} ]", savedUcpIds.size(), String.join(", ", savedUcpIds));
+            ucpContexts = ucpContexts.stream()
+                    .filter(ucpContext -> !savedUcpIds.contains(ucpContext.getUcpId()))
+                    .collect(Collectors.toList());
+            authMessages = authMessages.stream()
+                    .filter(am -> !savedUcpIds.contains(am.getUcpId()))
+                    .collect(Collectors.toList());
+        }
+        if (ucpContexts.isEmpty()) {
+            return;
+        }
+        receiveUCP(ucpContexts);
+        if (authMessages.isEmpty()) {
+            return;
+        }
+        receiveAM(authMessages);
+    }
+
     /**
      * 接收am消息的接口
      *
@@ -1,13 +1,16 @@
 package com.alipay.antchain.bridge.relayer.core.service.receiver.handler;
 
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import javax.annotation.Resource;
 
+import cn.hutool.core.lang.Pair;
 import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.core.util.StrUtil;
-import com.alipay.antchain.bridge.commons.core.sdp.ISDPMessage;
-import com.alipay.antchain.bridge.commons.core.sdp.SDPMessageFactory;
 import com.alipay.antchain.bridge.relayer.commons.constant.AuthMsgProcessStateEnum;
 import com.alipay.antchain.bridge.relayer.commons.constant.UpperProtocolTypeBeyondAMEnum;
 import com.alipay.antchain.bridge.relayer.commons.model.AuthMsgWrapper;
@@ -15,6 +18,7 @@ import com.alipay.antchain.bridge.relayer.commons.model.SDPMsgCommitResult;
 import com.alipay.antchain.bridge.relayer.commons.model.UniformCrosschainPacketContext;
 import com.alipay.antchain.bridge.relayer.core.manager.blockchain.IBlockchainManager;
 import com.alipay.antchain.bridge.relayer.core.manager.network.IRelayerNetworkManager;
+import com.alipay.antchain.bridge.relayer.core.service.committer.TxPendingCounter;
 import com.alipay.antchain.bridge.relayer.dal.repository.ICrossChainMessageRepository;
 import com.alipay.antchain.bridge.relayer.dal.repository.IScheduleRepository;
 import lombok.extern.slf4j.Slf4j;
@@ -40,6 +44,9 @@ public class AsyncReceiveHandler {
     @Resource
     private IRelayerNetworkManager relayerNetworkManager;
 
+    @Resource
+    private TxPendingCounter txPendingCounter;
+
     public void receiveUniformCrosschainPackets(List<UniformCrosschainPacketContext> ucpContexts) {
 
         int rowsNum = crossChainMessageRepository.putUniformCrosschainPackets(ucpContexts);
@@ -56,9 +63,12 @@ public class AsyncReceiveHandler {
 
     public void receiveAuthMessages(List<AuthMsgWrapper> authMsgWrappers) {
 
+        // 同一批消息里，相同的发送链和接收链只解析一次路由
+        Map<String, Boolean> routeCache = new HashMap<>();
+        Set<Pair<String, String>> unknownRoutes = new LinkedHashSet<>();
         int rowsNum = crossChainMessageRepository.putAuthMessages(
                 authMsgWrappers.stream()
-                        .map(this::resetAuthMessageState)
+                        .map(authMsgWrapper -> resetAuthMessageState(authMsgWrapper, routeCache, unknownRoutes))
                         .collect(Collectors.toList())
         );
         if (authMsgWrappers.size() != rowsNum) {
@@ -69,26 +79,38 @@ public class AsyncReceiveHandler {
                     )
             );
         }
+        unknownRoutes.forEach(route -> scheduleRepository.markForDomainRouterQuery(route.getKey(), route.getValue()));
         log.info("receive AuthenticMessages to pool success");
     }
 
-    private AuthMsgWrapper resetAuthMessageState(AuthMsgWrapper authMsgWrapper) {
+    private AuthMsgWrapper resetAuthMessageState(
+            AuthMsgWrapper authMsgWrapper,
+            Map<String, Boolean> routeCache,
+            Set<Pair<String, String>> unknownRoutes
+    ) {
         if (authMsgWrapper.getProtocolType() == UpperProtocolTypeBeyondAMEnum.SDP) {
-            ISDPMessage sdpMessage = SDPMessageFactory.createSDPMessage(authMsgWrapper.getAuthMessage().getPayload());
-            if (
-                    !blockchainManager.hasBlockchain(sdpMessage.getTargetDomain().getDomain())
-                            && (
-                            StrUtil.isEmpty(relayerNetworkManager.findRemoteRelayer(sdpMessage.getTargetDomain().getDomain()))
-                                    || !relayerNetworkManager.hasCrossChainChannel(authMsgWrapper.getDomain(), sdpMessage.getTargetDomain().getDomain())
-                    )
-            ) {
+            String senderDomain = authMsgWrapper.getDomain();
+            String receiverDomain = authMsgWrapper.getTargetDomain();
+            boolean routable = routeCache.computeIfAbsent(
+                    senderDomain + "^" + receiverDomain,
+                    key -> ifRoutable(senderDomain, receiverDomain)
+            );
+            if (!routable) {
                 authMsgWrapper.setProcessState(AuthMsgProcessStateEnum.NOT_READY);
-                scheduleRepository.markForDomainRouterQuery(authMsgWrapper.getDomain(), sdpMessage.getTargetDomain().getDomain());
+                unknownRoutes.add(new Pair<>(senderDomain, receiverDomain));
             }
         }
         return authMsgWrapper;
     }
 
+    private boolean ifRoutable(String senderDomain, String receiverDomain) {
+        return blockchainManager.hasBlockchain(receiverDomain)
+                || (
+                StrUtil.isNotEmpty(relayerNetworkManager.findRemoteRelayer(receiverDomain))
+                        && relayerNetworkManager.hasCrossChainChannel(senderDomain, receiverDomain)
+        );
+    }
+
     public boolean receiveAMClientReceipt(List<SDPMsgCommitResult> commitResults) {
 
         // 处理空值
@@ -104,6 +126,20 @@ public class AsyncReceiveHandler {
             return false;
         }
 
+        // 回执可能先于AMConfirmService到达，此时由这里把消息从TX_PENDING更新掉，
+        // 事务提交后按接收链汇总实际更新的行数减少计数，否则计数只能等到校正时才回落
+        Map<Pair<String, String>, Integer> confirmedNums = new HashMap<>();
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) > 0) {
+                confirmedNums.merge(
+                        new Pair<>(commitResults.get(i).getReceiveProduct(), commitResults.get(i).getReceiveBlockchainId()),
+                        results.get(i),
+                        Integer::sum
+                );
+            }
+        }
+        confirmedNums.forEach((chain, num) -> txPendingCounter.onTxConfirmed(chain.getKey(), chain.getValue(), num));
+
         for (int i = 0; i < results.size(); i++) {
             if (0 == results.get(i)) {
                 // sql变更行数为0，表示tx hash在DB不存在，可能有多种原因导致，可以跳过，打个warn
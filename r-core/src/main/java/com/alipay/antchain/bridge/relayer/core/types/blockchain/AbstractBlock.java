@@ -24,4 +24,9 @@ public abstract class AbstractBlock {
     public abstract byte[] encode();
 
     public abstract void decode(byte[] data);
+
+    /**
+     * 区块中是否包含跨链消息
+     */
+    public abstract boolean ifHasCrossChainMessages();
 }
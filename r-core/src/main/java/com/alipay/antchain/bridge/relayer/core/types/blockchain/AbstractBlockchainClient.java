@@ -1,5 +1,11 @@
 package com.alipay.antchain.bridge.relayer.core.types.blockchain;
 
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
 import com.alipay.antchain.bridge.commons.bbc.AbstractBBCContext;
 import com.alipay.antchain.bridge.commons.core.base.CrossChainMessageReceipt;
 import com.alipay.antchain.bridge.relayer.commons.model.BlockchainMeta;
@@ -24,16 +30,45 @@ public abstract class AbstractBlockchainClient {
 
     public abstract boolean ifHasDeployedAMClientContract();
 
+    /**
+     * 忽略退避时间，立即重新检查合约是否就绪，合约部署完成后调用
+     */
+    public abstract boolean recheckDeployedAMClientContract();
+
     public abstract long getLastBlockHeight();
 
+    /**
+     * 订阅最新高度的推送，见 {@link com.alipay.antchain.bridge.relayer.core.types.pluginserver.IBBCServiceClient#subscribeNewHeight}
+     */
+    public abstract Closeable subscribeNewHeight(LongConsumer heightConsumer, Consumer<Throwable> closeHandler);
+
     public abstract AbstractBlock getEssentialHeaderByHeight(long height);
 
+    public abstract CompletableFuture<AbstractBlock> getEssentialHeaderByHeightAsync(long height);
+
+    /**
+     * 是否可以按高度区间批量读取区块
+     */
+    public abstract boolean ifSupportReadByHeightRange();
+
+    /**
+     * 按高度区间批量读取区块，返回的区块按高度排序
+     *
+     * @param startHeight 起始高度，包含
+     * @param endHeight   结束高度，包含
+     */
+    public abstract List<AbstractBlock> getEssentialHeadersByHeightRange(long startHeight, long endHeight);
+
+    public abstract CompletableFuture<List<AbstractBlock>> getEssentialHeadersByHeightRangeAsync(long startHeight, long endHeight);
+
     public abstract IAMClientContract getAMClientContract();
 
     public abstract ISDPMsgClientContract getSDPMsgClientContract();
 
     public abstract CrossChainMessageReceipt queryCommittedTxReceipt(String txhash);
 
+    public abstract CompletableFuture<CrossChainMessageReceipt> queryCommittedTxReceiptAsync(String txhash);
+
     public abstract AbstractBBCContext queryBBCContext();
 
     @Getter
@@ -1,8 +1,18 @@
 package com.alipay.antchain.bridge.relayer.core.types.blockchain;
 
+import java.io.Closeable;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
 
+import cn.hutool.core.collection.ListUtil;
 import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.core.util.StrUtil;
 import com.alipay.antchain.bridge.commons.bbc.AbstractBBCContext;
 import com.alipay.antchain.bridge.commons.bbc.DefaultBBCContext;
 import com.alipay.antchain.bridge.commons.bbc.syscontract.ContractStatusEnum;
@@ -13,18 +23,35 @@ import com.alipay.antchain.bridge.relayer.core.manager.bbc.AMClientContractHeter
 import com.alipay.antchain.bridge.relayer.core.manager.bbc.IAMClientContract;
 import com.alipay.antchain.bridge.relayer.core.manager.bbc.ISDPMsgClientContract;
 import com.alipay.antchain.bridge.relayer.core.manager.bbc.SDPMsgClientHeteroBlockchainImpl;
+import com.alipay.antchain.bridge.relayer.core.types.exception.BBCMethodNotSupportedException;
 import com.alipay.antchain.bridge.relayer.core.types.pluginserver.IBBCServiceClient;
+import lombok.Synchronized;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class HeteroBlockchainClient extends AbstractBlockchainClient {
 
+    private static final long RANGE_READ_RETRY_INTERVAL = 600_000L;
+
+    private static final long CONTRACT_CHECK_MIN_BACKOFF = 1_000L;
+
+    private static final long CONTRACT_CHECK_MAX_BACKOFF = 60_000L;
+
     private final IBBCServiceClient bbcClient;
 
     private final IAMClientContract amClientContract;
 
     private final ISDPMsgClientContract sdpMsgClient;
 
+    private volatile long rangeReadDisabledUntil = 0;
+
+    /**
+     * 本地合约未就绪时，向插件服务查询合约状态的退避时间，每次查询仍未就绪则翻倍
+     */
+    private volatile long contractCheckBackoff = CONTRACT_CHECK_MIN_BACKOFF;
+
+    private volatile long nextRemoteContractCheckTime = 0;
+
     public HeteroBlockchainClient(IBBCServiceClient bbcClient, BlockchainMeta blockchainMeta) {
         super(blockchainMeta, bbcClient.getDomain());
         this.bbcClient = bbcClient;
@@ -84,7 +111,42 @@ public class HeteroBlockchainClient extends AbstractBlockchainClient {
         if (checkIfHasAMDeployedLocally()) {
             return true;
         }
-        return checkIfHasAMDeployedRemotely();
+        if (System.currentTimeMillis() < this.nextRemoteContractCheckTime) {
+            return false;
+        }
+        return checkIfHasAMDeployedRemotelyWithBackoff();
+    }
+
+    @Override
+    public boolean recheckDeployedAMClientContract() {
+        this.contractCheckBackoff = CONTRACT_CHECK_MIN_BACKOFF;
+        this.nextRemoteContractCheckTime = 0;
+        return ifHasDeployedAMClientContract();
+    }
+
+    @Synchronized
+    private boolean checkIfHasAMDeployedRemotelyWithBackoff() {
+        // 并发调用时只有一个线程查询插件服务
+        if (System.currentTimeMillis() < this.nextRemoteContractCheckTime) {
+            return checkIfHasAMDeployedLocally();
+        }
+        boolean ready = false;
+        try {
+            ready = checkIfHasAMDeployedRemotely();
+        } finally {
+            if (ready) {
+                this.contractCheckBackoff = CONTRACT_CHECK_MIN_BACKOFF;
+                this.nextRemoteContractCheckTime = 0;
+            } else {
+                this.nextRemoteContractCheckTime = System.currentTimeMillis() + this.contractCheckBackoff;
+                log.debug(
+                        "contracts of blockchain ( product: {}, domain: {} ) not ready, check again after {}ms",
+                        getBlockchainMeta().getProduct(), getDomain(), this.contractCheckBackoff
+                );
+                this.contractCheckBackoff = Math.min(this.contractCheckBackoff * 2, CONTRACT_CHECK_MAX_BACKOFF);
+            }
+        }
+        return ready;
     }
 
     private boolean checkContractsStatus(AbstractBBCContext bbcContext) {
@@ -136,6 +198,11 @@ public class HeteroBlockchainClient extends AbstractBlockchainClient {
         return this.bbcClient.queryLatestHeight();
     }
 
+    @Override
+    public Closeable subscribeNewHeight(LongConsumer heightConsumer, Consumer<Throwable> closeHandler) {
+        return this.bbcClient.subscribeNewHeight(heightConsumer, closeHandler);
+    }
+
     @Override
     public AbstractBlock getEssentialHeaderByHeight(long height) {
         List<CrossChainMessage> messages = this.bbcClient.readCrossChainMessagesByHeight(height);
@@ -148,6 +215,91 @@ public class HeteroBlockchainClient extends AbstractBlockchainClient {
         );
     }
 
+    @Override
+    public CompletableFuture<AbstractBlock> getEssentialHeaderByHeightAsync(long height) {
+        return this.bbcClient.readCrossChainMessagesByHeightAsync(height).thenApply(
+                messages -> new HeterogeneousBlock(
+                        getBlockchainMeta().getProduct(),
+                        getDomain(),
+                        getBlockchainMeta().getBlockchainId(),
+                        height,
+                        messages
+                )
+        );
+    }
+
+    @Override
+    public boolean ifSupportReadByHeightRange() {
+        return System.currentTimeMillis() >= this.rangeReadDisabledUntil;
+    }
+
+    @Override
+    public List<AbstractBlock> getEssentialHeadersByHeightRange(long startHeight, long endHeight) {
+        List<CrossChainMessage> messages;
+        try {
+            messages = this.bbcClient.readCrossChainMessagesByHeightRange(startHeight, endHeight);
+        } catch (BBCMethodNotSupportedException e) {
+            disableRangeRead();
+            throw e;
+        }
+        return buildBlocksByHeightRange(startHeight, endHeight, messages);
+    }
+
+    @Override
+    public CompletableFuture<List<AbstractBlock>> getEssentialHeadersByHeightRangeAsync(long startHeight, long endHeight) {
+        return this.bbcClient.readCrossChainMessagesByHeightRangeAsync(startHeight, endHeight)
+                .thenApply(messages -> buildBlocksByHeightRange(startHeight, endHeight, messages))
+                .whenComplete((blocks, e) -> {
+                    Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                    if (cause instanceof BBCMethodNotSupportedException) {
+                        disableRangeRead();
+                    }
+                });
+    }
+
+    /**
+     * 插件服务明确不支持区间查询时，一段时间内不再尝试，其他失败只影响本次查询
+     */
+    private void disableRangeRead() {
+        this.rangeReadDisabledUntil = System.currentTimeMillis() + RANGE_READ_RETRY_INTERVAL;
+    }
+
+    /**
+     * 按高度把区间内的消息分到各个区块，消息缺少高度或高度不在区间内时抛出异常，由调用方改为逐个高度查询
+     */
+    private List<AbstractBlock> buildBlocksByHeightRange(long startHeight, long endHeight, List<CrossChainMessage> messages) {
+        for (CrossChainMessage message : messages) {
+            if (
+                    ObjectUtil.isNull(message.getProvableData())
+                            || message.getProvableData().getHeight() < startHeight
+                            || message.getProvableData().getHeight() > endHeight
+            ) {
+                throw new RuntimeException(
+                        StrUtil.format(
+                                "message from range [{}, {}] of domain {} has invalid height {}",
+                                startHeight, endHeight, getDomain(),
+                                ObjectUtil.isNull(message.getProvableData()) ? null : message.getProvableData().getHeight()
+                        )
+                );
+            }
+        }
+        Map<Long, List<CrossChainMessage>> messagesByHeight = messages.stream()
+                .collect(Collectors.groupingBy(message -> message.getProvableData().getHeight()));
+        List<AbstractBlock> blocks = new ArrayList<>((int) (endHeight - startHeight + 1));
+        for (long height = startHeight; height <= endHeight; height++) {
+            blocks.add(
+                    new HeterogeneousBlock(
+                            getBlockchainMeta().getProduct(),
+                            getDomain(),
+                            getBlockchainMeta().getBlockchainId(),
+                            height,
+                            messagesByHeight.getOrDefault(height, ListUtil.empty())
+                    )
+            );
+        }
+        return blocks;
+    }
+
     @Override
     public IAMClientContract getAMClientContract() {
         return this.amClientContract;
@@ -163,6 +315,11 @@ public class HeteroBlockchainClient extends AbstractBlockchainClient {
         return this.bbcClient.readCrossChainMessageReceipt(txhash);
     }
 
+    @Override
+    public CompletableFuture<CrossChainMessageReceipt> queryCommittedTxReceiptAsync(String txhash) {
+        return this.bbcClient.readCrossChainMessageReceiptAsync(txhash);
+    }
+
     public AbstractBBCContext queryBBCContext() {
         return this.bbcClient.getContext();
     }
@@ -4,10 +4,10 @@ import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
-import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.util.HexUtil;
+import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.core.util.StrUtil;
-import com.alibaba.fastjson.JSON;
+import cn.hutool.crypto.digest.DigestUtil;
 import com.alibaba.fastjson.annotation.JSONField;
 import com.alipay.antchain.bridge.commons.core.am.AuthMessageFactory;
 import com.alipay.antchain.bridge.commons.core.am.AuthMessageTrustLevelEnum;
@@ -70,16 +70,35 @@ public class HeterogeneousBlock extends AbstractBlock {
                             return ucpContext;
                         }
                 ).collect(Collectors.toList());
+        // 链上消息的UCP id由所在区块、序号和消息内容决定，重新接收同一个区块时能识别出已经写入的消息
+        for (int i = 0; i < this.uniformCrosschainPacketContexts.size(); i++) {
+            this.uniformCrosschainPacketContexts.get(i).setUcpId(
+                    DigestUtil.sha256Hex(
+                            StrUtil.format(
+                                    "{}^{}^{}^{}",
+                                    domain,
+                                    height,
+                                    i,
+                                    DigestUtil.sha256Hex(crossChainMessages.get(i).getMessage())
+                            )
+                    )
+            );
+        }
     }
 
     @Override
     public byte[] encode() {
-        return JSON.toJSONBytes(this);
+        return HeterogeneousBlockCodec.encode(this);
     }
 
     @Override
     public void decode(byte[] data) {
-        BeanUtil.copyProperties(JSON.parseObject(data, HeterogeneousBlock.class), this);
+        HeterogeneousBlockCodec.decode(data, this);
+    }
+
+    @Override
+    public boolean ifHasCrossChainMessages() {
+        return ObjectUtil.isNotEmpty(this.uniformCrosschainPacketContexts);
     }
 
     public List<AuthMsgWrapper> toAuthMsgWrappers() {
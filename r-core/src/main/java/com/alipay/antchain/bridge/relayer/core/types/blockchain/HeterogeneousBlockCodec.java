@@ -0,0 +1,236 @@
+/*
+ * Copyright 2023 Ant Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alipay.antchain.bridge.relayer.core.types.blockchain;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.core.util.StrUtil;
+import com.alibaba.fastjson.JSON;
+import com.alipay.antchain.bridge.commons.core.base.CrossChainDomain;
+import com.alipay.antchain.bridge.commons.core.base.CrossChainMessage;
+import com.alipay.antchain.bridge.commons.core.base.ObjectIdentity;
+import com.alipay.antchain.bridge.commons.core.base.UniformCrosschainPacket;
+import com.alipay.antchain.bridge.relayer.commons.constant.UniformCrosschainPacketStateEnum;
+import com.alipay.antchain.bridge.relayer.commons.model.UniformCrosschainPacketContext;
+
+/**
+ * {@link HeterogeneousBlock}的二进制编解码，用于区块缓存。
+ *
+ * <pre>
+ * 编码格式：
+ *  magic (2 bytes) | version (1 byte) | product | blockchainId | height | domain | ucp count | ucp...
+ *  字符串和字节数组都是长度前缀编码，长度为-1表示null
+ * </pre>
+ * <p>
+ * 旧版本使用JSON编码，以 '{' 开头，解码时仍然兼容。
+ */
+public class HeterogeneousBlockCodec {
+
+    private static final byte[] MAGIC = new byte[]{(byte) 0xAC, (byte) 0xB1};
+
+    public static final byte VERSION_1 = 1;
+
+    private static final byte JSON_PREFIX = '{';
+
+    public static byte[] encode(HeterogeneousBlock block) {
+        try {
+            ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(byteStream);
+            out.write(MAGIC);
+            out.writeByte(VERSION_1);
+            writeString(out, block.getProduct());
+            writeString(out, block.getBlockchainId());
+            out.writeLong(block.getHeight());
+            writeString(out, block.getDomain());
+
+            List<UniformCrosschainPacketContext> ucpContexts = block.getUniformCrosschainPacketContexts();
+            if (ObjectUtil.isNull(ucpContexts)) {
+                out.writeInt(-1);
+            } else {
+                out.writeInt(ucpContexts.size());
+                for (UniformCrosschainPacketContext ucpContext : ucpContexts) {
+                    writeUcpContext(out, ucpContext);
+                }
+            }
+            out.flush();
+            return byteStream.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException("failed to encode heterogeneous block", e);
+        }
+    }
+
+    public static void decode(byte[] data, HeterogeneousBlock block) {
+        if (data.length > 0 && data[0] == JSON_PREFIX) {
+            BeanUtil.copyProperties(JSON.parseObject(data, HeterogeneousBlock.class), block);
+            return;
+        }
+        if (data.length < MAGIC.length + 1 || data[0] != MAGIC[0] || data[1] != MAGIC[1]) {
+            throw new RuntimeException("unknown encoding for heterogeneous block");
+        }
+
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, MAGIC.length, data.length - MAGIC.length));
+            byte version = in.readByte();
+            if (version != VERSION_1) {
+                throw new RuntimeException("unsupported version " + version + " for heterogeneous block");
+            }
+            block.setProduct(readString(in));
+            block.setBlockchainId(readString(in));
+            block.setHeight(in.readLong());
+            block.setDomain(readString(in));
+
+            int ucpSize = in.readInt();
+            if (ucpSize < 0) {
+                block.setUniformCrosschainPacketContexts(null);
+                return;
+            }
+            List<UniformCrosschainPacketContext> ucpContexts = new ArrayList<>(ucpSize);
+            for (int i = 0; i < ucpSize; i++) {
+                ucpContexts.add(readUcpContext(in));
+            }
+            block.setUniformCrosschainPacketContexts(ucpContexts);
+        } catch (IOException e) {
+            throw new RuntimeException("failed to decode heterogeneous block", e);
+        }
+    }
+
+    private static void writeUcpContext(DataOutputStream out, UniformCrosschainPacketContext ucpContext) throws IOException {
+        writeString(out, ucpContext.getUcpId());
+        writeString(out, ucpContext.getProduct());
+        writeString(out, ucpContext.getBlockchainId());
+        writeString(out, ucpContext.getUdagPath());
+        writeString(out, ObjectUtil.isNull(ucpContext.getProcessState()) ? null : ucpContext.getProcessState().name());
+        out.writeBoolean(ucpContext.isFromNetwork());
+        writeString(out, ucpContext.getRelayerId());
+
+        UniformCrosschainPacket ucp = ucpContext.getUcp();
+        out.writeInt(ucp.getVersion());
+        writeString(out, ObjectUtil.isNull(ucp.getSrcDomain()) ? null : ucp.getSrcDomain().getDomain());
+        writeBytes(out, ObjectUtil.isNull(ucp.getPtcId()) ? null : ucp.getPtcId().encode());
+        writeBytes(out, ucp.getTpProof());
+
+        CrossChainMessage message = ucp.getSrcMessage();
+        out.writeInt(encodeMessageType(message.getType()));
+        writeBytes(out, message.getMessage());
+        out.writeLong(message.getProvableData().getHeight());
+        out.writeLong(message.getProvableData().getTimestamp());
+        writeBytes(out, message.getProvableData().getBlockHash());
+        writeBytes(out, message.getProvableData().getLedgerData());
+        writeBytes(out, message.getProvableData().getProof());
+        writeBytes(out, message.getProvableData().getTxHash());
+    }
+
+    /**
+     * 消息类型按插件服务协议中定义的编号写入，不依赖枚举的声明顺序
+     */
+    private static int encodeMessageType(CrossChainMessage.CrossChainMessageType type) {
+        return com.alipay.antchain.bridge.pluginserver.service.CrossChainMessageType.valueOf(type.name()).getNumber();
+    }
+
+    private static CrossChainMessage.CrossChainMessageType decodeMessageType(int code) {
+        try {
+            return CrossChainMessage.CrossChainMessageType.parseFromValue(code);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(StrUtil.format("unknown cross-chain message type {} in encoded block", code), e);
+        }
+    }
+
+    private static UniformCrosschainPacketContext readUcpContext(DataInputStream in) throws IOException {
+        UniformCrosschainPacketContext ucpContext = new UniformCrosschainPacketContext();
+        ucpContext.setUcpId(readString(in));
+        ucpContext.setProduct(readString(in));
+        ucpContext.setBlockchainId(readString(in));
+        ucpContext.setUdagPath(readString(in));
+        String processState = readString(in);
+        ucpContext.setProcessState(ObjectUtil.isNull(processState) ? null : UniformCrosschainPacketStateEnum.valueOf(processState));
+        ucpContext.setFromNetwork(in.readBoolean());
+        ucpContext.setRelayerId(readString(in));
+
+        UniformCrosschainPacket ucp = new UniformCrosschainPacket();
+        ucp.setVersion(in.readInt());
+        String srcDomain = readString(in);
+        if (ObjectUtil.isNotNull(srcDomain)) {
+            ucp.setSrcDomain(new CrossChainDomain(srcDomain));
+        }
+        byte[] rawPtcId = readBytes(in);
+        if (ObjectUtil.isNotEmpty(rawPtcId)) {
+            ucp.setPtcId(ObjectIdentity.decode(rawPtcId));
+        }
+        ucp.setTpProof(readBytes(in));
+
+        CrossChainMessage.CrossChainMessageType type = decodeMessageType(in.readInt());
+        byte[] message = readBytes(in);
+        long height = in.readLong();
+        long timestamp = in.readLong();
+        byte[] blockHash = readBytes(in);
+        byte[] ledgerData = readBytes(in);
+        byte[] proof = readBytes(in);
+        byte[] txHash = readBytes(in);
+        ucp.setSrcMessage(
+                CrossChainMessage.createCrossChainMessage(
+                        type,
+                        height,
+                        timestamp,
+                        blockHash,
+                        message,
+                        ledgerData,
+                        proof,
+                        txHash
+                )
+        );
+        ucpContext.setUcp(ucp);
+
+        return ucpContext;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        writeBytes(out, ObjectUtil.isNull(value) ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] raw = readBytes(in);
+        return ObjectUtil.isNull(raw) ? null : new String(raw, StandardCharsets.UTF_8);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+        if (ObjectUtil.isNull(value)) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int len = in.readInt();
+        if (len < 0) {
+            return null;
+        }
+        byte[] raw = new byte[len];
+        in.readFully(raw);
+        return raw;
+    }
+}
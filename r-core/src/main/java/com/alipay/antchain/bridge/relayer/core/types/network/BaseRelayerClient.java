@@ -28,6 +28,7 @@ import com.alipay.antchain.bridge.commons.core.base.CrossChainMessageReceipt;
 import com.alipay.antchain.bridge.relayer.commons.model.RelayerBlockchainContent;
 import com.alipay.antchain.bridge.relayer.commons.model.RelayerNodeInfo;
 import com.alipay.antchain.bridge.relayer.core.manager.network.IRelayerCredentialManager;
+import com.alipay.antchain.bridge.relayer.core.types.exception.RelayerRequestNotSupportedException;
 import com.alipay.antchain.bridge.relayer.core.types.network.request.*;
 import com.alipay.antchain.bridge.relayer.core.types.network.response.*;
 import lombok.Getter;
@@ -153,6 +154,55 @@ public abstract class BaseRelayerClient implements RelayerClient {
         }
     }
 
+    @Override
+    public List<BatchPropagateCrossChainMsgRespPayload.PropagateResult> batchPropagateCrossChainMsg(
+            List<BatchPropagateCrossChainMsgRequest.CrossChainMsg> crossChainMsgs
+    ) {
+        RelayerRequest request = new BatchPropagateCrossChainMsgRequest(crossChainMsgs);
+        relayerCredentialManager.signRelayerRequest(request);
+
+        RelayerResponse response = validateRelayerResponse(sendRequest(request));
+        if (ObjectUtil.isNull(response)) {
+            throw new RuntimeException(
+                    StrUtil.format(
+                            "batch am request with {} messages to relayer {} failed: empty response found",
+                            crossChainMsgs.size(), remoteNodeInfo.getNodeId()
+                    )
+            );
+        } else if (
+                !response.isSuccess()
+                        && (
+                        StrUtil.startWith(response.getResponseMessage(), RelayerResponse.REQUEST_TYPE_NOT_SUPPORTED_MSG)
+                                || StrUtil.equals(response.getResponseMessage(), RelayerResponse.UNEXPECTED_EXCEPTION_MSG)
+                )
+        ) {
+            // 新版本的服务端逐条处理批量请求中的消息，整个请求只会因为无法识别请求类型而失败
+            throw new RelayerRequestNotSupportedException(
+                    "batch am request rejected by relayer {}: (code: {}, msg: {})",
+                    remoteNodeInfo.getNodeId(), response.getResponseCode(), response.getResponseMessage()
+            );
+        } else if (!response.isSuccess()) {
+            throw new RuntimeException(
+                    StrUtil.format("batch am request with {} messages to relayer {} failed: (code: {}, msg: {})",
+                            crossChainMsgs.size(), remoteNodeInfo.getNodeId(), response.getResponseCode(), response.getResponseMessage()
+                    )
+            );
+        }
+        BatchPropagateCrossChainMsgRespPayload respPayload = BatchPropagateCrossChainMsgRespPayload.decodeFromJson(response.getResponsePayload());
+        if (ObjectUtil.isNull(respPayload) || ObjectUtil.isNull(respPayload.getResults())) {
+            throw new RuntimeException("payload is null for batch am response");
+        }
+        if (respPayload.getResults().size() != crossChainMsgs.size()) {
+            throw new RuntimeException(
+                    StrUtil.format(
+                            "batch am response has {} results but {} messages sent",
+                            respPayload.getResults().size(), crossChainMsgs.size()
+                    )
+            );
+        }
+        return respPayload.getResults();
+    }
+
     @Override
     public Map<String, CrossChainMessageReceipt> queryCrossChainMessageReceipts(List<String> ucpIds) {
         RelayerRequest request = new QueryCrossChainMsgReceiptRequest(ucpIds);
@@ -8,6 +8,8 @@ import com.alipay.antchain.bridge.commons.core.am.IAuthMessage;
 import com.alipay.antchain.bridge.commons.core.base.CrossChainMessageReceipt;
 import com.alipay.antchain.bridge.relayer.commons.model.RelayerBlockchainContent;
 import com.alipay.antchain.bridge.relayer.commons.model.RelayerNodeInfo;
+import com.alipay.antchain.bridge.relayer.core.types.network.request.BatchPropagateCrossChainMsgRequest;
+import com.alipay.antchain.bridge.relayer.core.types.network.response.BatchPropagateCrossChainMsgRespPayload;
 import com.alipay.antchain.bridge.relayer.core.types.network.response.HelloStartRespPayload;
 
 public interface RelayerClient {
@@ -42,6 +44,16 @@ public interface RelayerClient {
      */
     void propagateCrossChainMsg(String domainName, String ucpId, IAuthMessage authMsg, String udagProof, String ledgerInfo);
 
+    /**
+     * 一次发送多条AM，返回每条AM的处理结果
+     *
+     * @param crossChainMsgs 待发送的AM
+     * @return 和crossChainMsgs一一对应的结果
+     */
+    List<BatchPropagateCrossChainMsgRespPayload.PropagateResult> batchPropagateCrossChainMsg(
+            List<BatchPropagateCrossChainMsgRequest.CrossChainMsg> crossChainMsgs
+    );
+
     Map<String, CrossChainMessageReceipt> queryCrossChainMessageReceipts(List<String> ucpIds);
 
     HelloStartRespPayload helloStart(byte[] rand, String relayerNodeId);
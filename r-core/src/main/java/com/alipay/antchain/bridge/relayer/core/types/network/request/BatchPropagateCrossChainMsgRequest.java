@@ -0,0 +1,93 @@
+/*
+ * Copyright 2023 Ant Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alipay.antchain.bridge.relayer.core.types.network.request;
+
+import java.util.List;
+
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.codec.Base64;
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.annotation.JSONField;
+import com.alipay.antchain.bridge.commons.core.am.IAuthMessage;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * 一次发送多条AM给同一个远端中继，整个请求只签名一次
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class BatchPropagateCrossChainMsgRequest extends RelayerRequest {
+
+    public static BatchPropagateCrossChainMsgRequest createFrom(RelayerRequest relayerRequest) {
+        BatchPropagateCrossChainMsgRequest request = JSON.parseObject(relayerRequest.getRequestPayload(), BatchPropagateCrossChainMsgRequest.class);
+        BeanUtil.copyProperties(relayerRequest, request);
+        return request;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    public static class CrossChainMsg {
+
+        @JSONField
+        private String udagProof;
+
+        @JSONField
+        private String ucpId;
+
+        @JSONField
+        private String authMsg;
+
+        @JSONField
+        private String domainName;
+
+        @JSONField
+        private String ledgerInfo;
+
+        public CrossChainMsg(
+                String udagProof,
+                String ucpId,
+                IAuthMessage authMsg,
+                String domainName,
+                String ledgerInfo
+        ) {
+            this.udagProof = udagProof;
+            this.ucpId = ucpId;
+            this.authMsg = Base64.encode(authMsg.encode());
+            this.domainName = domainName;
+            this.ledgerInfo = ledgerInfo;
+        }
+    }
+
+    @JSONField
+    private List<CrossChainMsg> crossChainMsgs;
+
+    public BatchPropagateCrossChainMsgRequest(List<CrossChainMsg> crossChainMsgs) {
+        super(
+                RelayerRequestType.BATCH_PROPAGATE_CROSSCHAIN_MESSAGE
+        );
+        this.crossChainMsgs = crossChainMsgs;
+
+        setRequestPayload(
+                JSON.toJSONBytes(this)
+        );
+    }
+}
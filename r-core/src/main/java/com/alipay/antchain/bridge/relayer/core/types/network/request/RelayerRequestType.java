@@ -45,7 +45,9 @@ public enum RelayerRequestType {
 
     CROSSCHAIN_CHANNEL_START("crosschainChannelStart"),
 
-    CROSSCHAIN_CHANNEL_COMPLETE("crosschainChannelComplete");
+    CROSSCHAIN_CHANNEL_COMPLETE("crosschainChannelComplete"),
+
+    BATCH_PROPAGATE_CROSSCHAIN_MESSAGE("batchPropagateCrossChainMsg");
 
     private final String code;
 
@@ -68,6 +70,8 @@ public enum RelayerRequestType {
             return CROSSCHAIN_CHANNEL_COMPLETE;
         } else if (StrUtil.equals(value, QUERY_CROSSCHAIN_MSG_RECEIPT.code)) {
             return QUERY_CROSSCHAIN_MSG_RECEIPT;
+        } else if (StrUtil.equals(value, BATCH_PROPAGATE_CROSSCHAIN_MESSAGE.code)) {
+            return BATCH_PROPAGATE_CROSSCHAIN_MESSAGE;
         }
         throw new AntChainBridgeRelayerException(
                 RelayerErrorCodeEnum.UNKNOWN_INTERNAL_ERROR,
@@ -95,6 +99,8 @@ public enum RelayerRequestType {
                 return CROSSCHAIN_CHANNEL_START;
             case 8:
                 return CROSSCHAIN_CHANNEL_COMPLETE;
+            case 9:
+                return BATCH_PROPAGATE_CROSSCHAIN_MESSAGE;
             default:
                 return null;
         }
@@ -48,6 +48,16 @@ public class RelayerResponse {
 
     public static final int FAILED = -1;
 
+    /**
+     * 服务端不支持请求类型时返回的错误信息前缀
+     */
+    public static final String REQUEST_TYPE_NOT_SUPPORTED_MSG = "request type not supported";
+
+    /**
+     * 服务端处理请求时出现未预期异常返回的错误信息，旧版本解析不了新的请求类型时也会返回该信息
+     */
+    public static final String UNEXPECTED_EXCEPTION_MSG = "unexpected exception happened";
+
     public static final short TLV_TYPE_RELAYER_RESPONSE_CODE = 0;
 
     public static final short TLV_TYPE_RELAYER_RESPONSE_MSG = 1;
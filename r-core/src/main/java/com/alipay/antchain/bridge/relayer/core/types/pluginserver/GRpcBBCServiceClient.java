@@ -1,6 +1,12 @@
 package com.alipay.antchain.bridge.relayer.core.types.pluginserver;
 
+import java.io.Closeable;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 import java.util.stream.Collectors;
 
 import com.alibaba.fastjson.JSON;
@@ -9,11 +15,27 @@ import com.alipay.antchain.bridge.commons.bbc.DefaultBBCContext;
 import com.alipay.antchain.bridge.commons.core.base.CrossChainMessage;
 import com.alipay.antchain.bridge.commons.core.base.CrossChainMessageReceipt;
 import com.alipay.antchain.bridge.pluginserver.service.*;
+import com.alipay.antchain.bridge.relayer.core.types.exception.BBCMethodNotSupportedException;
 import com.alipay.antchain.bridge.relayer.core.utils.PluginServerUtils;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.protobuf.ByteString;
+import io.grpc.Context;
+import io.grpc.stub.StreamObserver;
 
 public class GRpcBBCServiceClient implements IBBCServiceClient {
 
+    /**
+     * 插件服务不认识请求类型时返回的错误码，旧版本插件服务解析不到新的请求类型时也返回该错误码
+     */
+    private static final int UNSUPPORTED_BBC_REQUEST_CODE = 200;
+
+    /**
+     * 插件服务上BBC对象未启动的错误码，需要重新发送启动请求
+     */
+    private static final int BBC_OBJECT_NOT_STARTED_CODE = 217;
+
     private String psId;
 
     private final String product;
@@ -22,13 +44,33 @@ public class GRpcBBCServiceClient implements IBBCServiceClient {
 
     private CrossChainServiceGrpc.CrossChainServiceBlockingStub blockingStub;
 
+    private CrossChainServiceGrpc.CrossChainServiceFutureStub futureStub;
+
+    /**
+     * 异步调用返回后，解析响应和处理错误码的线程池，处理错误码时可能会同步调用插件服务
+     */
+    private final Executor asyncCallExecutor;
+
+    private final long asyncCallDeadline;
+
     private AbstractBBCContext bbcContext;
 
-    public GRpcBBCServiceClient(String psId, String product, String domain, CrossChainServiceGrpc.CrossChainServiceBlockingStub blockingStub) {
+    public GRpcBBCServiceClient(
+            String psId,
+            String product,
+            String domain,
+            CrossChainServiceGrpc.CrossChainServiceBlockingStub blockingStub,
+            CrossChainServiceGrpc.CrossChainServiceFutureStub futureStub,
+            Executor asyncCallExecutor,
+            long asyncCallDeadline
+    ) {
         this.psId = psId;
         this.product = product;
         this.domain = domain;
         this.blockingStub = blockingStub;
+        this.futureStub = futureStub;
+        this.asyncCallExecutor = asyncCallExecutor;
+        this.asyncCallDeadline = asyncCallDeadline;
     }
 
     @Override
@@ -97,14 +139,27 @@ public class GRpcBBCServiceClient implements IBBCServiceClient {
 
     @Override
     public CrossChainMessageReceipt readCrossChainMessageReceipt(String txhash) {
-        Response response = this.blockingStub.bbcCall(
-                CallBBCRequest.newBuilder()
-                        .setProduct(this.getProduct())
-                        .setDomain(this.getDomain())
-                        .setReadCrossChainMessageReceiptReq(
-                                ReadCrossChainMessageReceiptRequest.newBuilder().setTxhash(txhash)
-                        ).build()
+        return parseReadCrossChainMessageReceiptResponse(
+                this.blockingStub.bbcCall(buildReadCrossChainMessageReceiptRequest(txhash))
         );
+    }
+
+    @Override
+    public CompletableFuture<CrossChainMessageReceipt> readCrossChainMessageReceiptAsync(String txhash) {
+        return bbcCallAsync(buildReadCrossChainMessageReceiptRequest(txhash))
+                .thenApplyAsync(this::parseReadCrossChainMessageReceiptResponse, this.asyncCallExecutor);
+    }
+
+    private CallBBCRequest buildReadCrossChainMessageReceiptRequest(String txhash) {
+        return CallBBCRequest.newBuilder()
+                .setProduct(this.getProduct())
+                .setDomain(this.getDomain())
+                .setReadCrossChainMessageReceiptReq(
+                        ReadCrossChainMessageReceiptRequest.newBuilder().setTxhash(txhash)
+                ).build();
+    }
+
+    private CrossChainMessageReceipt parseReadCrossChainMessageReceiptResponse(Response response) {
         if (response.getCode() != 0) {
             throw new RuntimeException(
                     String.format("[GRpcBBCServiceClient (domain: %s, product: %s)] isCrossChainMessageConfirmed request failed for plugin server %s: %s",
@@ -118,15 +173,28 @@ public class GRpcBBCServiceClient implements IBBCServiceClient {
 
     @Override
     public List<CrossChainMessage> readCrossChainMessagesByHeight(long height) {
-        Response response = this.blockingStub.bbcCall(
-                CallBBCRequest.newBuilder()
-                        .setProduct(this.getProduct())
-                        .setDomain(this.getDomain())
-                        .setReadCrossChainMessagesByHeightReq(
-                                ReadCrossChainMessagesByHeightRequest.newBuilder()
-                                        .setHeight(height)
-                        ).build()
+        return parseReadCrossChainMessagesByHeightResponse(
+                this.blockingStub.bbcCall(buildReadCrossChainMessagesByHeightRequest(height))
         );
+    }
+
+    @Override
+    public CompletableFuture<List<CrossChainMessage>> readCrossChainMessagesByHeightAsync(long height) {
+        return bbcCallAsync(buildReadCrossChainMessagesByHeightRequest(height))
+                .thenApplyAsync(this::parseReadCrossChainMessagesByHeightResponse, this.asyncCallExecutor);
+    }
+
+    private CallBBCRequest buildReadCrossChainMessagesByHeightRequest(long height) {
+        return CallBBCRequest.newBuilder()
+                .setProduct(this.getProduct())
+                .setDomain(this.getDomain())
+                .setReadCrossChainMessagesByHeightReq(
+                        ReadCrossChainMessagesByHeightRequest.newBuilder()
+                                .setHeight(height)
+                ).build();
+    }
+
+    private List<CrossChainMessage> parseReadCrossChainMessagesByHeightResponse(Response response) {
         if (response.getCode() != 0) {
             try {
                 handleErrorCode(response);
@@ -142,6 +210,66 @@ public class GRpcBBCServiceClient implements IBBCServiceClient {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<CrossChainMessage> readCrossChainMessagesByHeightRange(long startHeight, long endHeight) {
+        CallBBCRequest request = buildReadCrossChainMessagesByHeightRangeRequest(startHeight, endHeight);
+        return parseReadCrossChainMessagesByHeightRangeResponse(request, this.blockingStub.bbcCall(request));
+    }
+
+    @Override
+    public CompletableFuture<List<CrossChainMessage>> readCrossChainMessagesByHeightRangeAsync(long startHeight, long endHeight) {
+        CallBBCRequest request = buildReadCrossChainMessagesByHeightRangeRequest(startHeight, endHeight);
+        return bbcCallAsync(request)
+                .thenApplyAsync(response -> parseReadCrossChainMessagesByHeightRangeResponse(request, response), this.asyncCallExecutor);
+    }
+
+    private CallBBCRequest buildReadCrossChainMessagesByHeightRangeRequest(long startHeight, long endHeight) {
+        return CallBBCRequest.newBuilder()
+                .setProduct(this.getProduct())
+                .setDomain(this.getDomain())
+                .setReadCrossChainMessagesByHeightRangeReq(
+                        ReadCrossChainMessagesByHeightRangeRequest.newBuilder()
+                                .setStartHeight(startHeight)
+                                .setEndHeight(endHeight)
+                ).build();
+    }
+
+    private List<CrossChainMessage> parseReadCrossChainMessagesByHeightRangeResponse(CallBBCRequest request, Response response) {
+        if (response.getCode() == BBC_OBJECT_NOT_STARTED_CODE) {
+            // 重启前的响应里没有结果，不能据此判断插件不支持区间查询，重启后重试一次
+            try {
+                handleErrorCode(response);
+            } catch (Exception e) {
+                throw new RuntimeException(
+                        String.format("[GRpcBBCServiceClient (domain: %s, product: %s)] readCrossChainMessagesByHeightRange request failed :",
+                                this.domain, this.product), e
+                );
+            }
+            response = this.blockingStub.bbcCall(request);
+        }
+        if (response.getCode() == UNSUPPORTED_BBC_REQUEST_CODE) {
+            throw new BBCMethodNotSupportedException(
+                    "[GRpcBBCServiceClient (domain: {}, product: {})] readCrossChainMessagesByHeightRange rejected by plugin server {}: {}",
+                    this.domain, this.product, this.psId, response.getErrorMsg()
+            );
+        }
+        if (response.getCode() != 0) {
+            throw new RuntimeException(
+                    String.format("[GRpcBBCServiceClient (domain: %s, product: %s)] readCrossChainMessagesByHeightRange request failed : error code %d for plugin server %s: %s",
+                            this.domain, this.product, response.getCode(), this.psId, response.getErrorMsg())
+            );
+        }
+        if (!response.getBbcResp().hasReadCrossChainMessagesByHeightRangeResp()) {
+            throw new BBCMethodNotSupportedException(
+                    "[GRpcBBCServiceClient (domain: {}, product: {})] readCrossChainMessagesByHeightRange not supported by plugin server {}",
+                    this.domain, this.product, this.psId
+            );
+        }
+        return response.getBbcResp().getReadCrossChainMessagesByHeightRangeResp().getMessageListList().stream()
+                .map(PluginServerUtils::convertFromGRpcCrossChainMessage)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public long querySDPMessageSeq(String senderDomain, String fromAddress, String receiverDomain, String toAddress) {
         Response response = this.blockingStub.bbcCall(
@@ -297,8 +425,62 @@ public class GRpcBBCServiceClient implements IBBCServiceClient {
         return response.getBbcResp().getQueryLatestHeightResponse().getHeight();
     }
 
+    @Override
+    public Closeable subscribeNewHeight(LongConsumer heightConsumer, Consumer<Throwable> closeHandler) {
+        Context.CancellableContext context = Context.current().withCancellation();
+        context.run(
+                () -> CrossChainServiceGrpc.newStub(this.futureStub.getChannel()).subscribeNewHeight(
+                        SubscribeNewHeightRequest.newBuilder()
+                                .setProduct(this.getProduct())
+                                .setDomain(this.getDomain())
+                                .build(),
+                        new StreamObserver<NewHeightEvent>() {
+                            @Override
+                            public void onNext(NewHeightEvent event) {
+                                heightConsumer.accept(event.getHeight());
+                            }
+
+                            @Override
+                            public void onError(Throwable t) {
+                                closeHandler.accept(t);
+                            }
+
+                            @Override
+                            public void onCompleted() {
+                                closeHandler.accept(null);
+                            }
+                        }
+                )
+        );
+        return () -> context.cancel(null);
+    }
+
+    /**
+     * 通过future stub发起调用，不占用调用方线程，超过{@code asyncCallDeadline}毫秒未返回时失败。
+     * 这里只完成future，解析响应由调用方通过{@code asyncCallExecutor}执行
+     */
+    private CompletableFuture<Response> bbcCallAsync(CallBBCRequest request) {
+        CompletableFuture<Response> result = new CompletableFuture<>();
+        Futures.addCallback(
+                this.futureStub.withDeadlineAfter(this.asyncCallDeadline, TimeUnit.MILLISECONDS).bbcCall(request),
+                new FutureCallback<Response>() {
+                    @Override
+                    public void onSuccess(Response response) {
+                        result.complete(response);
+                    }
+
+                    @Override
+                    public void onFailure(Throwable t) {
+                        result.completeExceptionally(t);
+                    }
+                },
+                MoreExecutors.directExecutor()
+        );
+        return result;
+    }
+
     private void handleErrorCode(Response response) {
-        if (response.getCode() == 217) {
+        if (response.getCode() == BBC_OBJECT_NOT_STARTED_CODE) {
             response = this.blockingStub.bbcCall(
                     CallBBCRequest.newBuilder()
                             .setProduct(this.getProduct())
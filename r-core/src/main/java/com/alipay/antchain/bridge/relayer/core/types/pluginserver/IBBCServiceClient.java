@@ -16,6 +16,14 @@
 
 package com.alipay.antchain.bridge.relayer.core.types.pluginserver;
 
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+import com.alipay.antchain.bridge.commons.core.base.CrossChainMessage;
+import com.alipay.antchain.bridge.commons.core.base.CrossChainMessageReceipt;
 import com.alipay.antchain.bridge.plugins.spi.bbc.IBBCService;
 
 public interface IBBCServiceClient extends IBBCService {
@@ -23,4 +31,37 @@ public interface IBBCServiceClient extends IBBCService {
     String getProduct();
 
     String getDomain();
+
+    /**
+     * 读取高度区间内的所有跨链消息，插件服务不支持时抛出异常
+     *
+     * @param startHeight 起始高度，包含
+     * @param endHeight   结束高度，包含
+     * @return 跨链消息，高度见 {@code provableData}
+     */
+    List<CrossChainMessage> readCrossChainMessagesByHeightRange(long startHeight, long endHeight);
+
+    /**
+     * {@link #readCrossChainMessagesByHeight(long)} 的异步版本，调用期间不占用调用方线程
+     */
+    CompletableFuture<List<CrossChainMessage>> readCrossChainMessagesByHeightAsync(long height);
+
+    /**
+     * {@link #readCrossChainMessagesByHeightRange(long, long)} 的异步版本
+     */
+    CompletableFuture<List<CrossChainMessage>> readCrossChainMessagesByHeightRangeAsync(long startHeight, long endHeight);
+
+    /**
+     * {@link #readCrossChainMessageReceipt(String)} 的异步版本
+     */
+    CompletableFuture<CrossChainMessageReceipt> readCrossChainMessageReceiptAsync(String txhash);
+
+    /**
+     * 订阅区块链的最新高度，插件服务在出块时推送
+     *
+     * @param heightConsumer 收到新高度时回调
+     * @param closeHandler   订阅结束时回调，正常结束时参数为null
+     * @return 关闭后取消订阅
+     */
+    Closeable subscribeNewHeight(LongConsumer heightConsumer, Consumer<Throwable> closeHandler);
 }
@@ -16,6 +16,8 @@
 
 package com.alipay.antchain.bridge.relayer.dal.entities;
 
+import java.util.Date;
+
 import com.alipay.antchain.bridge.relayer.commons.constant.AuthMsgProcessStateEnum;
 import com.alipay.antchain.bridge.relayer.commons.constant.AuthMsgTrustLevelEnum;
 import com.alipay.antchain.bridge.relayer.commons.constant.UpperProtocolTypeBeyondAMEnum;
@@ -69,4 +71,19 @@ public class AuthMsgPoolEntity extends BaseEntity {
 
     @TableField("ext")
     private byte[] ext;
+
+    /**
+     * SDP消息的接收链域名
+     */
+    @TableField("target_domain")
+    private String targetDomain;
+
+    /**
+     * 领取该消息的批次，租约到期前其他批次不会领取
+     */
+    @TableField("lease_owner")
+    private String leaseOwner;
+
+    @TableField("lease_expire")
+    private Date leaseExpire;
 }
@@ -17,6 +17,7 @@
 package com.alipay.antchain.bridge.relayer.dal.repository;
 
 import java.util.List;
+import java.util.Map;
 
 import com.alipay.antchain.bridge.relayer.commons.constant.BlockchainStateEnum;
 import com.alipay.antchain.bridge.relayer.commons.model.AnchorProcessHeights;
@@ -31,6 +32,13 @@ public interface IBlockchainRepository {
 
     void setAnchorProcessHeight(String product, String blockchainId, String heightType, Long height);
 
+    /**
+     * 一次写入多个高度，只读写一次缓存
+     *
+     * @param heights key为高度类型
+     */
+    void setAnchorProcessHeights(String product, String blockchainId, Map<String, Long> heights);
+
     void saveBlockchainMeta(BlockchainMeta blockchainMeta);
 
     boolean updateBlockchainMeta(BlockchainMeta blockchainMeta);
@@ -47,6 +55,16 @@ public interface IBlockchainRepository {
 
     BlockchainMeta getBlockchainMeta(String product, String blockchainId);
 
+    /**
+     * 跳过本地缓存，从DB读取区块链元信息并更新缓存
+     */
+    BlockchainMeta reloadBlockchainMeta(String product, String blockchainId);
+
+    /**
+     * 区块链元信息的版本号，每次写入元信息时加一，用于判断本地持有的元信息是否过期
+     */
+    long getBlockchainMetaVersion(String product, String blockchainId);
+
     boolean hasBlockchain(String product, String blockchainId);
 
     String getBlockchainDomain(String product, String blockchainId);
@@ -17,6 +17,8 @@
 package com.alipay.antchain.bridge.relayer.dal.repository;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.locks.Lock;
 
 import com.alipay.antchain.bridge.relayer.commons.constant.AuthMsgProcessStateEnum;
@@ -33,6 +35,11 @@ public interface ICrossChainMessageRepository {
 
     int putUniformCrosschainPackets(List<UniformCrosschainPacketContext> contexts);
 
+    /**
+     * 返回{@code ucpIds}中已经写入的UCP，UCP不会被归档，可以用来判断区块是否已经接收过
+     */
+    Set<String> getSavedUniformCrosschainPacketIds(List<String> ucpIds);
+
     UniformCrosschainPacketContext getUniformCrosschainPacket(String ucpId, boolean lock);
 
     boolean updateUniformCrosschainPacketState(String ucpId, UniformCrosschainPacketStateEnum state);
@@ -43,8 +50,15 @@ public interface ICrossChainMessageRepository {
 
     void putSDPMessage(SDPMsgWrapper sdpMsgWrapper);
 
+    void putSDPMessages(List<SDPMsgWrapper> sdpMsgWrappers);
+
     boolean updateAuthMessage(AuthMsgWrapper authMsgWrapper);
 
+    /**
+     * 批量更新AM的处理状态和链信息，状态和链信息都相同的AM用一条语句更新，不更新失败次数等其他字段
+     */
+    int updateAuthMessagesState(List<AuthMsgWrapper> authMsgWrappers);
+
     boolean updateAuthMessageState(String ucpId, AuthMsgProcessStateEnum state);
 
     AuthMsgProcessStateEnum getAuthMessageState(String ucpId);
@@ -61,26 +75,99 @@ public interface ICrossChainMessageRepository {
 
     SDPMsgWrapper getSDPMessage(long id, boolean lock);
 
+    /**
+     * 一次查询多条SDP消息，加锁时按id升序加锁
+     *
+     * @param ids  SDP消息id
+     * @param lock 是否 select ... for update
+     * @return 存在的SDP消息，按id升序
+     */
+    List<SDPMsgWrapper> getSDPMessages(List<Long> ids, boolean lock);
+
+    /**
+     * 一次查询多条AM消息
+     *
+     * @param authMsgIds AM消息id
+     * @return 存在的AM消息，keyed by id
+     */
+    Map<Long, AuthMsgWrapper> getAuthMessages(List<Long> authMsgIds);
+
+    /**
+     * 将TX_FAILED的SDP消息重置为PENDING并清空交易信息，用于重新提交，已不是TX_FAILED的消息不更新
+     *
+     * @param ids SDP消息id
+     * @return 更新的行数
+     */
+    int resetFailedSDPMessages(List<Long> ids);
+
     SDPMsgWrapper getSDPMessage(String txHash);
 
     List<UniformCrosschainPacketContext> peekUCPMessages(String domain, UniformCrosschainPacketStateEnum processState, int limit);
 
     List<AuthMsgWrapper> peekAuthMessages(String domain, int limit, int failLimit);
 
+    /**
+     * 领取一批待处理的AM，与{@code peekAuthMessages}的条件相同，但跳过租约未到期的消息。
+     * 领取到的消息在{@code leaseTime}毫秒内不会被其他调用方领取。
+     *
+     * @param leaseOwner 本次领取的唯一标识
+     */
+    List<AuthMsgWrapper> claimAuthMessages(String domain, int limit, int failLimit, String leaseOwner, long leaseTime);
+
+    /**
+     * 提前释放{@code leaseOwner}领取的消息
+     */
+    int releaseAuthMessages(List<Long> authMsgIds, String leaseOwner);
+
+    /**
+     * 续约{@code leaseOwner}仍持有的消息，返回续约成功的条数，少于传入条数说明部分消息的租约已经被其他调用方领取。
+     * 在事务中调用时，续约的行锁会持有到事务结束。
+     */
+    int renewAuthMessages(List<Long> authMsgIds, String leaseOwner, long leaseTime);
+
     List<AuthMsgWrapper> peekNotReadyAuthMessages(String domain, int limit);
 
+    /**
+     * 按id顺序分页读取发往{@code targetDomain}的NOT_READY的AM，
+     * 没有记录目标域名的历史消息也会返回，调用方需要自行判断目标域名
+     *
+     * @param afterId 只返回id大于该值的消息
+     */
+    List<AuthMsgWrapper> peekNotReadyAuthMessages(String domain, String targetDomain, long afterId, int limit);
+
+    /**
+     * 批量更新NOT_READY的AM的状态，已不是NOT_READY的消息不更新
+     */
+    int updateNotReadyAuthMessagesState(List<Long> authMsgIds, AuthMsgProcessStateEnum newState);
+
     boolean hasNotReadyAuthMessages(String domain);
 
     SDPMsgWrapper querySDPMessage(String ucpId);
 
     List<SDPMsgWrapper> peekSDPMessages(String receiverBlockchainProduct, String receiverBlockchainId, SDPMsgProcessStateEnum processState, int limit);
 
+    /**
+     * 按id升序分页读取接收链指定状态的SDP消息
+     *
+     * @param afterId 只读取id大于afterId的消息
+     */
+    List<SDPMsgWrapper> peekSDPMessages(String receiverBlockchainProduct, String receiverBlockchainId, SDPMsgProcessStateEnum processState, long afterId, int limit);
+
     List<SDPMsgWrapper> peekSDPMessagesSent(String senderBlockchainProduct, String senderBlockchainId, SDPMsgProcessStateEnum processState, int limit);
 
     List<SDPMsgWrapper> peekTxFinishedSDPMessageIds(String receiverBlockchainProduct, String receiverBlockchainId, int limit);
 
     long countSDPMessagesByState(String receiverBlockchainProduct, String receiverBlockchainId, SDPMsgProcessStateEnum processState);
 
+    /**
+     * 接收链TX_PENDING消息数的计数器，保存在Redis中，由状态变更方增减，定期和DB对账
+     */
+    long getTxPendingCount(String receiverBlockchainProduct, String receiverBlockchainId);
+
+    long addTxPendingCount(String receiverBlockchainProduct, String receiverBlockchainId, long delta);
+
+    void setTxPendingCount(String receiverBlockchainProduct, String receiverBlockchainId, long count);
+
     int archiveAuthMessages(List<Long> authMsgIds);
 
     int archiveSDPMessages(List<Long> ids);
@@ -33,4 +33,13 @@ public interface ICrossChainMsgACLRepository {
     boolean checkItem(CrossChainMsgACLItem item);
 
     List<CrossChainMsgACLItem> getMatchedItems(CrossChainMsgACLItem item);
+
+    List<CrossChainMsgACLItem> getAllItems();
+
+    /**
+     * ACL规则的版本号，任意节点修改规则后递增，用于各节点判断本地的ACL索引是否过期
+     */
+    long getACLVersion();
+
+    long increaseACLVersion();
 }
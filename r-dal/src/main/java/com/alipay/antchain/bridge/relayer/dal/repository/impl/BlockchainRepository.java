@@ -59,6 +59,8 @@ import org.springframework.transaction.support.TransactionTemplate;
 @Slf4j
 public class BlockchainRepository implements IBlockchainRepository {
 
+    private static final String BLOCKCHAIN_META_VERSION_KEY_PREFIX = "blockchain_meta_version^";
+
     @Resource
     private AnchorProcessMapper anchorProcessMapper;
 
@@ -185,6 +187,34 @@ public class BlockchainRepository implements IBlockchainRepository {
         }
     }
 
+    @Override
+    public void setAnchorProcessHeights(String product, String blockchainId, Map<String, Long> heights) {
+        if (ObjectUtil.isEmpty(heights)) {
+            return;
+        }
+        try {
+            AnchorProcessHeights cachedHeights = getAnchorProcessHeightsFromCache(product, blockchainId);
+            if (ObjectUtil.isNull(cachedHeights)) {
+                cachedHeights = new AnchorProcessHeights(product, blockchainId);
+            }
+            cachedHeights.getProcessHeights().putAll(heights);
+
+            long now = System.currentTimeMillis();
+            if (now - cachedHeights.getLastUpdateTime() > flushPeriodForHeightsCache) {
+                flushAnchorProcessHeights(cachedHeights);
+                log.debug("flush anchor heights into DB for blockchain {}-{}", product, blockchainId);
+                cachedHeights.setLastUpdateTime(now);
+            }
+            setAnchorProcessHeightsToCache(cachedHeights);
+        } catch (Exception e) {
+            throw new AntChainBridgeRelayerException(
+                    RelayerErrorCodeEnum.DAL_ANCHOR_HEIGHTS_ERROR,
+                    String.format("failed to update heights to DB for ( product: %s, blockchain id: %s )", product, blockchainId),
+                    e
+            );
+        }
+    }
+
     @Override
     public void saveBlockchainMeta(BlockchainMeta blockchainMeta) {
         try {
@@ -196,6 +226,7 @@ public class BlockchainRepository implements IBlockchainRepository {
                     blockchainMeta.getProperties().encode()
             );
             blockchainMetaCache.put(blockchainMeta.getBlockchainId(), blockchainMeta);
+            increaseBlockchainMetaVersion(blockchainMeta.getProduct(), blockchainMeta.getBlockchainId());
         } catch (Exception e) {
             throw new AntChainBridgeRelayerException(
                     RelayerErrorCodeEnum.DAL_BLOCKCHAIN_ERROR,
@@ -221,6 +252,7 @@ public class BlockchainRepository implements IBlockchainRepository {
                 ) == 1
         ) {
             blockchainMetaCache.put(blockchainMeta.getBlockchainId(), blockchainMeta);
+            increaseBlockchainMetaVersion(blockchainMeta.getProduct(), blockchainMeta.getBlockchainId());
             return true;
         }
         return false;
@@ -337,7 +369,11 @@ public class BlockchainRepository implements IBlockchainRepository {
         if (blockchainMetaCache.containsKey(blockchainId)) {
             return blockchainMetaCache.get(blockchainId, false);
         }
+        return reloadBlockchainMeta(product, blockchainId);
+    }
 
+    @Override
+    public BlockchainMeta reloadBlockchainMeta(String product, String blockchainId) {
         BlockchainEntity blockchainEntity = blockchainService.lambdaQuery()
                 .eq(BlockchainEntity::getProduct, product)
                 .eq(BlockchainEntity::getBlockchainId, blockchainId)
@@ -622,6 +658,24 @@ public class BlockchainRepository implements IBlockchainRepository {
                 .set(heights.encode(), Duration.of(ttlForHeightsCache, ChronoUnit.MILLIS));
     }
 
+    @Override
+    public long getBlockchainMetaVersion(String product, String blockchainId) {
+        return redisson.getAtomicLong(getBlockchainMetaVersionKey(product, blockchainId)).get();
+    }
+
+    private void increaseBlockchainMetaVersion(String product, String blockchainId) {
+        try {
+            redisson.getAtomicLong(getBlockchainMetaVersionKey(product, blockchainId)).incrementAndGet();
+        } catch (Exception e) {
+            // 版本号没有更新的话，其他节点会在定期刷新时读到新的元信息
+            log.warn("failed to increase blockchain meta version for ( product: {}, blockchain id: {} )", product, blockchainId, e);
+        }
+    }
+
+    private String getBlockchainMetaVersionKey(String product, String blockchainId) {
+        return BLOCKCHAIN_META_VERSION_KEY_PREFIX + product + "^" + blockchainId;
+    }
+
     private String getDomainBlockchainMetaCacheKey(String domain) {
         return "%domain%" + domain;
     }
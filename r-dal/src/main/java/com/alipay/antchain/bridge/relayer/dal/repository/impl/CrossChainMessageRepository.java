@@ -16,7 +16,14 @@
 
 package com.alipay.antchain.bridge.relayer.dal.repository.impl;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
 import javax.annotation.Resource;
@@ -40,6 +47,7 @@ import com.alipay.antchain.bridge.relayer.dal.entities.*;
 import com.alipay.antchain.bridge.relayer.dal.mapper.*;
 import com.alipay.antchain.bridge.relayer.dal.repository.ICrossChainMessageRepository;
 import com.alipay.antchain.bridge.relayer.dal.utils.ConvertUtil;
+import com.baomidou.mybatisplus.core.conditions.AbstractLambdaWrapper;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import org.redisson.api.RedissonClient;
@@ -51,6 +59,8 @@ public class CrossChainMessageRepository implements ICrossChainMessageRepository
 
     private static final String CCMSG_SESSION_LOCK = "CCMSG_SESSION_LOCK:";
 
+    private static final String SDP_TX_PENDING_COUNT = "sdp_tx_pending_count^";
+
     @Resource
     private UCPPoolMapper ucpPoolMapper;
 
@@ -118,22 +128,27 @@ public class CrossChainMessageRepository implements ICrossChainMessageRepository
         }
     }
 
+    @Override
+    public void putSDPMessages(List<SDPMsgWrapper> sdpMsgWrappers) {
+        if (ObjectUtil.isEmpty(sdpMsgWrappers)) {
+            return;
+        }
+        try {
+            sdpMsgPoolMapper.saveSDPMessages(sdpMsgWrappers);
+        } catch (Exception e) {
+            throw new AntChainBridgeRelayerException(
+                    RelayerErrorCodeEnum.DAL_CROSSCHAIN_MSG_ERROR,
+                    e,
+                    "failed to put {} sdp messages from chain {}",
+                    sdpMsgWrappers.size(), sdpMsgWrappers.get(0).getSenderBlockchainDomain()
+            );
+        }
+    }
+
     public List<AuthMsgWrapper> peekAuthMessages(String domain, int limit, int failLimit) {
         try {
             List<AuthMsgPoolEntity> entities = authMsgPoolMapper.selectList(
-                    new LambdaQueryWrapper<AuthMsgPoolEntity>()
-                            .eq(AuthMsgPoolEntity::getDomain, domain)
-                            .and(
-                                    wrapper -> wrapper.eq(AuthMsgPoolEntity::getTrustLevel, AuthMsgTrustLevelEnum.NEGATIVE_TRUST)
-                                            .eq(AuthMsgPoolEntity::getProcessState, AuthMsgProcessStateEnum.PROVED)
-                                            .or(
-                                                    wrapper1 -> wrapper1.eq(AuthMsgPoolEntity::getTrustLevel, AuthMsgTrustLevelEnum.POSITIVE_TRUST)
-                                                            .eq(AuthMsgPoolEntity::getProcessState, AuthMsgProcessStateEnum.PENDING)
-                                            ).or(
-                                                    wrapper1 -> wrapper1.eq(AuthMsgPoolEntity::getTrustLevel, AuthMsgTrustLevelEnum.ZERO_TRUST)
-                                                            .eq(AuthMsgPoolEntity::getProcessState, AuthMsgProcessStateEnum.PROVED)
-                                            )
-                            ).lt(AuthMsgPoolEntity::getFailCount, failLimit)
+                    processableAuthMessages(new LambdaQueryWrapper<>(), domain, failLimit)
                             .last("limit " + limit)
             );
             if (ObjectUtil.isEmpty(entities)) {
@@ -153,6 +168,110 @@ public class CrossChainMessageRepository implements ICrossChainMessageRepository
 
     }
 
+    @Override
+    public List<AuthMsgWrapper> claimAuthMessages(String domain, int limit, int failLimit, String leaseOwner, long leaseTime) {
+        try {
+            Date now = new Date();
+            int claimed = authMsgPoolMapper.update(
+                    AuthMsgPoolEntity.builder()
+                            .leaseOwner(leaseOwner)
+                            .leaseExpire(new Date(now.getTime() + leaseTime))
+                            .build(),
+                    processableAuthMessages(new LambdaUpdateWrapper<>(), domain, failLimit)
+                            .and(
+                                    wrapper -> wrapper.isNull(AuthMsgPoolEntity::getLeaseOwner)
+                                            .or()
+                                            .lt(AuthMsgPoolEntity::getLeaseExpire, now)
+                            ).orderByAsc(BaseEntity::getId)
+                            .last("limit " + limit)
+            );
+            if (claimed == 0) {
+                return ListUtil.empty();
+            }
+
+            // 走 (domain_name, lease_owner) 索引读取本次领取的消息
+            return authMsgPoolMapper.selectList(
+                    new LambdaQueryWrapper<AuthMsgPoolEntity>()
+                            .eq(AuthMsgPoolEntity::getDomain, domain)
+                            .eq(AuthMsgPoolEntity::getLeaseOwner, leaseOwner)
+                            .orderByAsc(BaseEntity::getId)
+            ).stream().map(ConvertUtil::convertFromAuthMsgPoolEntity).collect(Collectors.toList());
+        } catch (Exception e) {
+            throw new AntChainBridgeRelayerException(
+                    RelayerErrorCodeEnum.DAL_CROSSCHAIN_MSG_ERROR,
+                    e,
+                    "failed to claim auth messages for chain {}",
+                    domain
+            );
+        }
+    }
+
+    @Override
+    public int releaseAuthMessages(List<Long> authMsgIds, String leaseOwner) {
+        if (ObjectUtil.isEmpty(authMsgIds)) {
+            return 0;
+        }
+        try {
+            return authMsgPoolMapper.update(
+                    null,
+                    new LambdaUpdateWrapper<AuthMsgPoolEntity>()
+                            .set(AuthMsgPoolEntity::getLeaseOwner, null)
+                            .set(AuthMsgPoolEntity::getLeaseExpire, null)
+                            .in(BaseEntity::getId, authMsgIds)
+                            .eq(AuthMsgPoolEntity::getLeaseOwner, leaseOwner)
+            );
+        } catch (Exception e) {
+            throw new AntChainBridgeRelayerException(
+                    RelayerErrorCodeEnum.DAL_CROSSCHAIN_MSG_ERROR,
+                    e,
+                    "failed to release auth messages leased by {}",
+                    leaseOwner
+            );
+        }
+    }
+
+    @Override
+    public int renewAuthMessages(List<Long> authMsgIds, String leaseOwner, long leaseTime) {
+        if (ObjectUtil.isEmpty(authMsgIds)) {
+            return 0;
+        }
+        try {
+            return authMsgPoolMapper.update(
+                    AuthMsgPoolEntity.builder()
+                            .leaseExpire(new Date(System.currentTimeMillis() + leaseTime))
+                            .build(),
+                    new LambdaUpdateWrapper<AuthMsgPoolEntity>()
+                            .in(BaseEntity::getId, authMsgIds)
+                            .eq(AuthMsgPoolEntity::getLeaseOwner, leaseOwner)
+            );
+        } catch (Exception e) {
+            throw new AntChainBridgeRelayerException(
+                    RelayerErrorCodeEnum.DAL_CROSSCHAIN_MSG_ERROR,
+                    e,
+                    "failed to renew auth messages leased by {}",
+                    leaseOwner
+            );
+        }
+    }
+
+    /**
+     * 待处理的AM：负信任等级且已证明、正信任等级且待处理、零信任等级且已证明，并且失败次数未超过上限
+     */
+    private <W extends AbstractLambdaWrapper<AuthMsgPoolEntity, W>> W processableAuthMessages(W wrapper, String domain, int failLimit) {
+        return wrapper.eq(AuthMsgPoolEntity::getDomain, domain)
+                .and(
+                        w -> w.eq(AuthMsgPoolEntity::getTrustLevel, AuthMsgTrustLevelEnum.NEGATIVE_TRUST)
+                                .eq(AuthMsgPoolEntity::getProcessState, AuthMsgProcessStateEnum.PROVED)
+                                .or(
+                                        w1 -> w1.eq(AuthMsgPoolEntity::getTrustLevel, AuthMsgTrustLevelEnum.POSITIVE_TRUST)
+                                                .eq(AuthMsgPoolEntity::getProcessState, AuthMsgProcessStateEnum.PENDING)
+                                ).or(
+                                        w1 -> w1.eq(AuthMsgPoolEntity::getTrustLevel, AuthMsgTrustLevelEnum.ZERO_TRUST)
+                                                .eq(AuthMsgPoolEntity::getProcessState, AuthMsgProcessStateEnum.PROVED)
+                                )
+                ).lt(AuthMsgPoolEntity::getFailCount, failLimit);
+    }
+
     @Override
     public List<AuthMsgWrapper> peekNotReadyAuthMessages(String domain, int limit) {
         try {
@@ -177,6 +296,57 @@ public class CrossChainMessageRepository implements ICrossChainMessageRepository
         }
     }
 
+    @Override
+    public List<AuthMsgWrapper> peekNotReadyAuthMessages(String domain, String targetDomain, long afterId, int limit) {
+        try {
+            return authMsgPoolMapper.selectList(
+                    new LambdaQueryWrapper<AuthMsgPoolEntity>()
+                            .eq(AuthMsgPoolEntity::getDomain, domain)
+                            .eq(AuthMsgPoolEntity::getProcessState, AuthMsgProcessStateEnum.NOT_READY)
+                            // 加target_domain列之前写入的消息该列为空，一并读出，由调用方解析payload判断
+                            .and(
+                                    wrapper -> wrapper.eq(AuthMsgPoolEntity::getTargetDomain, targetDomain)
+                                            .or()
+                                            .isNull(AuthMsgPoolEntity::getTargetDomain)
+                            )
+                            .gt(BaseEntity::getId, afterId)
+                            .orderByAsc(BaseEntity::getId)
+                            .last("limit " + limit)
+            ).stream().map(ConvertUtil::convertFromAuthMsgPoolEntity).collect(Collectors.toList());
+        } catch (Exception e) {
+            throw new AntChainBridgeRelayerException(
+                    RelayerErrorCodeEnum.DAL_CROSSCHAIN_MSG_ERROR,
+                    e,
+                    "failed to peek NOT_READY auth messages to {} after {} for chain {}",
+                    targetDomain, afterId, domain
+            );
+        }
+    }
+
+    @Override
+    public int updateNotReadyAuthMessagesState(List<Long> authMsgIds, AuthMsgProcessStateEnum newState) {
+        if (ObjectUtil.isEmpty(authMsgIds)) {
+            return 0;
+        }
+        try {
+            return authMsgPoolMapper.update(
+                    AuthMsgPoolEntity.builder()
+                            .processState(newState)
+                            .build(),
+                    new LambdaUpdateWrapper<AuthMsgPoolEntity>()
+                            .in(BaseEntity::getId, authMsgIds)
+                            .eq(AuthMsgPoolEntity::getProcessState, AuthMsgProcessStateEnum.NOT_READY)
+            );
+        } catch (Exception e) {
+            throw new AntChainBridgeRelayerException(
+                    RelayerErrorCodeEnum.DAL_CROSSCHAIN_MSG_ERROR,
+                    e,
+                    "failed to update state of {} NOT_READY auth messages to {}",
+                    authMsgIds.size(), newState.getCode()
+            );
+        }
+    }
+
     @Override
     public boolean hasNotReadyAuthMessages(String domain) {
         return authMsgPoolMapper.exists(
@@ -216,6 +386,26 @@ public class CrossChainMessageRepository implements ICrossChainMessageRepository
         }
     }
 
+    @Override
+    public Set<String> getSavedUniformCrosschainPacketIds(List<String> ucpIds) {
+        if (ObjectUtil.isEmpty(ucpIds)) {
+            return new HashSet<>();
+        }
+        try {
+            return ucpPoolMapper.selectList(
+                    new LambdaQueryWrapper<UCPPoolEntity>()
+                            .select(UCPPoolEntity::getUcpId)
+                            .in(UCPPoolEntity::getUcpId, ucpIds)
+            ).stream().map(UCPPoolEntity::getUcpId).collect(Collectors.toSet());
+        } catch (Exception e) {
+            throw new AntChainBridgeRelayerException(
+                    RelayerErrorCodeEnum.DAL_CROSSCHAIN_MSG_ERROR,
+                    e,
+                    "failed to query saved ucp ids"
+            );
+        }
+    }
+
     @Override
     public UniformCrosschainPacketContext getUniformCrosschainPacket(String ucpId, boolean lock) {
         try {
@@ -275,6 +465,42 @@ public class CrossChainMessageRepository implements ICrossChainMessageRepository
         }
     }
 
+    @Override
+    public int updateAuthMessagesState(List<AuthMsgWrapper> authMsgWrappers) {
+        if (ObjectUtil.isEmpty(authMsgWrappers)) {
+            return 0;
+        }
+        try {
+            int cnt = 0;
+            Map<List<Object>, List<AuthMsgWrapper>> groups = authMsgWrappers.stream().collect(
+                    Collectors.groupingBy(
+                            am -> Arrays.asList(am.getProcessState(), am.getProduct(), am.getBlockchainId(), am.getAmClientContractAddress())
+                    )
+            );
+            for (List<AuthMsgWrapper> group : groups.values()) {
+                AuthMsgWrapper first = group.get(0);
+                cnt += authMsgPoolMapper.update(
+                        AuthMsgPoolEntity.builder()
+                                .processState(first.getProcessState())
+                                .product(first.getProduct())
+                                .blockchainId(first.getBlockchainId())
+                                .amClientContractAddress(first.getAmClientContractAddress())
+                                .build(),
+                        new LambdaUpdateWrapper<AuthMsgPoolEntity>()
+                                .in(BaseEntity::getId, group.stream().map(AuthMsgWrapper::getAuthMsgId).collect(Collectors.toList()))
+                );
+            }
+            return cnt;
+        } catch (Exception e) {
+            throw new AntChainBridgeRelayerException(
+                    RelayerErrorCodeEnum.DAL_CROSSCHAIN_MSG_ERROR,
+                    e,
+                    "failed to update state of {} auth messages from chain {}",
+                    authMsgWrappers.size(), authMsgWrappers.get(0).getDomain()
+            );
+        }
+    }
+
     @Override
     public boolean updateAuthMessageState(String ucpId, AuthMsgProcessStateEnum state) {
         try {
@@ -350,10 +576,12 @@ public class CrossChainMessageRepository implements ICrossChainMessageRepository
                                                         .eq(SDPMsgPoolEntity::getId, result.getSdpMsgId())
                                         );
                                     }
+                                    // 同一笔交易的回执可能重复上报，只更新还未确认的消息，返回的行数不会重复计算
                                     return sdpMsgPoolMapper.update(
                                             entity,
                                             new LambdaUpdateWrapper<SDPMsgPoolEntity>()
                                                     .eq(SDPMsgPoolEntity::getTxHash, result.getTxHash())
+                                                    .eq(SDPMsgPoolEntity::getProcessState, SDPMsgProcessStateEnum.TX_PENDING)
                                     );
                                 } catch (Exception e) {
                                     throw new RuntimeException(
@@ -447,6 +675,73 @@ public class CrossChainMessageRepository implements ICrossChainMessageRepository
         }
     }
 
+    @Override
+    public List<SDPMsgWrapper> getSDPMessages(List<Long> ids, boolean lock) {
+        if (ObjectUtil.isEmpty(ids)) {
+            return new ArrayList<>();
+        }
+        try {
+            LambdaQueryWrapper<SDPMsgPoolEntity> wrapper = new LambdaQueryWrapper<SDPMsgPoolEntity>()
+                    .in(BaseEntity::getId, ids)
+                    .orderByAsc(BaseEntity::getId);
+            if (lock) {
+                wrapper.last("for update");
+            }
+            return this.sdpMsgPoolMapper.selectList(wrapper).stream()
+                    .map(ConvertUtil::convertFromSDPMsgPoolEntity)
+                    .collect(Collectors.toList());
+        } catch (Exception e) {
+            throw new AntChainBridgeRelayerException(
+                    RelayerErrorCodeEnum.DAL_CROSSCHAIN_MSG_ERROR,
+                    StrUtil.format("failed to get {} sdp messages with lock {}", ids.size(), lock),
+                    e
+            );
+        }
+    }
+
+    @Override
+    public int resetFailedSDPMessages(List<Long> ids) {
+        if (ObjectUtil.isEmpty(ids)) {
+            return 0;
+        }
+        try {
+            return this.sdpMsgPoolMapper.update(
+                    null,
+                    new LambdaUpdateWrapper<SDPMsgPoolEntity>()
+                            .set(SDPMsgPoolEntity::getProcessState, SDPMsgProcessStateEnum.PENDING)
+                            .set(SDPMsgPoolEntity::getTxHash, null)
+                            .set(SDPMsgPoolEntity::getTxSuccess, null)
+                            .set(SDPMsgPoolEntity::getTxFailReason, null)
+                            .in(BaseEntity::getId, ids)
+                            .eq(SDPMsgPoolEntity::getProcessState, SDPMsgProcessStateEnum.TX_FAILED)
+            );
+        } catch (Exception e) {
+            throw new AntChainBridgeRelayerException(
+                    RelayerErrorCodeEnum.DAL_CROSSCHAIN_MSG_ERROR,
+                    StrUtil.format("failed to reset {} failed sdp messages", ids.size()),
+                    e
+            );
+        }
+    }
+
+    @Override
+    public Map<Long, AuthMsgWrapper> getAuthMessages(List<Long> authMsgIds) {
+        if (ObjectUtil.isEmpty(authMsgIds)) {
+            return new HashMap<>();
+        }
+        try {
+            return this.authMsgPoolMapper.selectBatchIds(authMsgIds).stream()
+                    .map(ConvertUtil::convertFromAuthMsgPoolEntity)
+                    .collect(Collectors.toMap(AuthMsgWrapper::getAuthMsgId, am -> am, (am1, am2) -> am1));
+        } catch (Exception e) {
+            throw new AntChainBridgeRelayerException(
+                    RelayerErrorCodeEnum.DAL_CROSSCHAIN_MSG_ERROR,
+                    StrUtil.format("failed to get {} am messages", authMsgIds.size()),
+                    e
+            );
+        }
+    }
+
     @Override
     public SDPMsgWrapper getSDPMessage(String txHash) {
         try {
@@ -597,6 +892,29 @@ public class CrossChainMessageRepository implements ICrossChainMessageRepository
         }
     }
 
+    @Override
+    public List<SDPMsgWrapper> peekSDPMessages(String receiverBlockchainProduct, String receiverBlockchainId, SDPMsgProcessStateEnum processState, long afterId, int limit) {
+        try {
+            return sdpMsgPoolMapper.selectList(
+                    new LambdaQueryWrapper<SDPMsgPoolEntity>()
+                            .eq(SDPMsgPoolEntity::getReceiverBlockchainProduct, receiverBlockchainProduct)
+                            .eq(SDPMsgPoolEntity::getReceiverBlockchainId, receiverBlockchainId)
+                            .eq(SDPMsgPoolEntity::getProcessState, processState)
+                            .gt(BaseEntity::getId, afterId)
+                            .orderByAsc(BaseEntity::getId)
+                            .last("limit " + limit)
+            ).stream().map(ConvertUtil::convertFromSDPMsgPoolEntity).collect(Collectors.toList());
+        } catch (Exception e) {
+            throw new AntChainBridgeRelayerException(
+                    RelayerErrorCodeEnum.DAL_CROSSCHAIN_MSG_ERROR,
+                    StrUtil.format(
+                            "failed to peek {} sdp messages after id {} for chain (product: {}, blockchain_id: {})",
+                            processState.getCode(), afterId, receiverBlockchainProduct, receiverBlockchainId
+                    ), e
+            );
+        }
+    }
+
     @Override
     public List<SDPMsgWrapper> peekSDPMessagesSent(String senderBlockchainProduct, String senderBlockchainId, SDPMsgProcessStateEnum processState, int limit) {
         try {
@@ -684,6 +1002,21 @@ public class CrossChainMessageRepository implements ICrossChainMessageRepository
         }
     }
 
+    @Override
+    public long getTxPendingCount(String receiverBlockchainProduct, String receiverBlockchainId) {
+        return redisson.getAtomicLong(getTxPendingCountKey(receiverBlockchainProduct, receiverBlockchainId)).get();
+    }
+
+    @Override
+    public long addTxPendingCount(String receiverBlockchainProduct, String receiverBlockchainId, long delta) {
+        return redisson.getAtomicLong(getTxPendingCountKey(receiverBlockchainProduct, receiverBlockchainId)).addAndGet(delta);
+    }
+
+    @Override
+    public void setTxPendingCount(String receiverBlockchainProduct, String receiverBlockchainId, long count) {
+        redisson.getAtomicLong(getTxPendingCountKey(receiverBlockchainProduct, receiverBlockchainId)).set(count);
+    }
+
     @Override
     public int archiveAuthMessages(List<Long> authMsgIds) {
         try {
@@ -749,6 +1082,10 @@ public class CrossChainMessageRepository implements ICrossChainMessageRepository
         return redisson.getLock(getCCMsgSessionLock(session));
     }
 
+    private String getTxPendingCountKey(String receiverBlockchainProduct, String receiverBlockchainId) {
+        return SDP_TX_PENDING_COUNT + receiverBlockchainProduct + "^" + receiverBlockchainId;
+    }
+
     private String getCCMsgSessionLock(String session) {
         return String.format("%s%s", CCMSG_SESSION_LOCK, session);
     }
@@ -32,14 +32,20 @@ import com.alipay.antchain.bridge.relayer.dal.mapper.CrossChainMsgACLMapper;
 import com.alipay.antchain.bridge.relayer.dal.repository.ICrossChainMsgACLRepository;
 import com.alipay.antchain.bridge.relayer.dal.utils.ConvertUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import org.redisson.api.RedissonClient;
 import org.springframework.stereotype.Component;
 
 @Component
 public class CrossChainMsgACLRepository implements ICrossChainMsgACLRepository {
 
+    private static final String CROSSCHAIN_MSG_ACL_VERSION_KEY = "crosschain_msg_acl_version";
+
     @Resource
     private CrossChainMsgACLMapper crossChainMsgACLMapper;
 
+    @Resource
+    private RedissonClient redisson;
+
     @Override
     public void saveItem(CrossChainMsgACLItem item) {
         try {
@@ -220,4 +226,30 @@ public class CrossChainMsgACLRepository implements ICrossChainMsgACLRepository {
             );
         }
     }
+
+    @Override
+    public List<CrossChainMsgACLItem> getAllItems() {
+        try {
+            return crossChainMsgACLMapper.selectList(
+                    new LambdaQueryWrapper<CrossChainMsgACLEntity>()
+                            .eq(CrossChainMsgACLEntity::getIsDeleted, false)
+            ).stream().map(ConvertUtil::convertFromCrossChainMsgACLEntity).collect(Collectors.toList());
+        } catch (Exception e) {
+            throw new AntChainBridgeRelayerException(
+                    RelayerErrorCodeEnum.DAL_CROSSCHAIN_MSG_ACL_ERROR,
+                    "failed to get all acl items",
+                    e
+            );
+        }
+    }
+
+    @Override
+    public long getACLVersion() {
+        return redisson.getAtomicLong(CROSSCHAIN_MSG_ACL_VERSION_KEY).get();
+    }
+
+    @Override
+    public long increaseACLVersion() {
+        return redisson.getAtomicLong(CROSSCHAIN_MSG_ACL_VERSION_KEY).incrementAndGet();
+    }
 }
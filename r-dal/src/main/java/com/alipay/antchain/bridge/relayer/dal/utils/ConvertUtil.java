@@ -131,7 +131,7 @@ public class ConvertUtil {
                     )
             );
         }
-        return new AuthMsgWrapper(
+        AuthMsgWrapper authMsgWrapper = new AuthMsgWrapper(
                 authMsgPoolEntity.getId(),
                 authMsgPoolEntity.getProduct(),
                 authMsgPoolEntity.getBlockchainId(),
@@ -143,6 +143,8 @@ public class ConvertUtil {
                 authMsgPoolEntity.getExt(),
                 authMessage
         );
+        authMsgWrapper.setTargetDomain(authMsgPoolEntity.getTargetDomain());
+        return authMsgWrapper;
     }
 
     public static AuthMsgPoolEntity convertFromAuthMsgWrapper(AuthMsgWrapper authMsgWrapper) {
@@ -161,6 +163,7 @@ public class ConvertUtil {
         entity.setProcessState(authMsgWrapper.getProcessState());
         entity.setFailCount(authMsgWrapper.getFailCount());
         entity.setExt(authMsgWrapper.getRawLedgerInfo());
+        entity.setTargetDomain(authMsgWrapper.getTargetDomain());
 
         return entity;
     }
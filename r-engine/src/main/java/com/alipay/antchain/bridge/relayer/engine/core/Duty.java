@@ -2,8 +2,10 @@ package com.alipay.antchain.bridge.relayer.engine.core;
 
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import javax.annotation.Resource;
 
+import cn.hutool.core.util.StrUtil;
 import com.alipay.antchain.bridge.relayer.commons.constant.BlockchainDistributedTaskTypeEnum;
 import com.alipay.antchain.bridge.relayer.commons.model.BlockchainDistributedTask;
 import com.alipay.antchain.bridge.relayer.dal.repository.IScheduleRepository;
@@ -33,10 +35,15 @@ public class Duty {
     @Resource
     private Map<BlockchainDistributedTaskTypeEnum, BaseScheduleTaskExecutor> scheduleTaskExecutorMap;
 
+    @Value("${relayer.service.committer.session_affinity.enable:false}")
+    private boolean committerSessionAffinityEnabled;
+
     public void duty() {
 
         // 查询本节点的时间片任务
-        List<BlockchainDistributedTask> tasks = scheduleRepository.getBlockchainDistributedTasksByNodeId(this.scheduleContext.getNodeId());
+        List<BlockchainDistributedTask> tasks = committerSessionAffinityEnabled ?
+                getTasksWithAllCommitTasks() :
+                scheduleRepository.getBlockchainDistributedTasksByNodeId(this.scheduleContext.getNodeId());
         if (tasks.isEmpty()) {
             log.debug("empty duty tasks");
         } else {
@@ -50,4 +57,14 @@ public class Duty {
         }
     }
 
+    /**
+     * 开启committer的session亲和后，每个节点都为所有链运行committer任务，由committer按session过滤
+     */
+    private List<BlockchainDistributedTask> getTasksWithAllCommitTasks() {
+        return scheduleRepository.getAllBlockchainDistributedTasks().stream()
+                .filter(
+                        task -> task.getTaskType() == BlockchainDistributedTaskTypeEnum.COMMIT_TASK
+                                || StrUtil.equals(task.getNodeId(), this.scheduleContext.getNodeId())
+                ).collect(Collectors.toList());
+    }
 }
@@ -34,6 +34,8 @@ import com.alipay.antchain.bridge.relayer.commons.constant.Constants;
 import com.alipay.antchain.bridge.relayer.commons.model.BlockchainMeta;
 import com.alipay.antchain.bridge.relayer.core.manager.bcdns.IBCDNSManager;
 import com.alipay.antchain.bridge.relayer.core.manager.blockchain.IBlockchainManager;
+import com.alipay.antchain.bridge.relayer.core.service.anchor.MultiAnchorProcessService;
+import com.alipay.antchain.bridge.relayer.core.service.anchor.tasks.SyncConcurrencyController;
 import com.alipay.antchain.bridge.relayer.core.types.blockchain.BlockchainAnchorProcess;
 import com.alipay.antchain.bridge.relayer.dal.repository.ISystemConfigRepository;
 import com.alipay.antchain.bridge.relayer.server.admin.AbstractNamespace;
@@ -60,11 +62,15 @@ public class BlockchainNamespace extends AbstractNamespace {
     @Resource
     private ISystemConfigRepository systemConfigRepository;
 
+    @Resource
+    private MultiAnchorProcessService multiAnchorProcessService;
+
     public BlockchainNamespace() {
         addCommand("getBlockchainIdByDomain", this::getBlockchainIdByDomain);
         addCommand("getBlockchain", this::getBlockchain);
         addCommand("getBlockchainContracts", this::getBlockchainContracts);
         addCommand("getBlockchainHeights", this::getBlockchainHeights);
+        addCommand("getSyncConcurrency", this::getSyncConcurrency);
         addCommand("addBlockchainAnchor", this::addBlockchainAnchor);
         addCommand("deployBBCContractsAsync", this::deployBBCContractsAsync);
         addCommand("updateBlockchainAnchor", this::updateBlockchainAnchor);
@@ -72,6 +78,7 @@ public class BlockchainNamespace extends AbstractNamespace {
         addCommand("startBlockchainAnchor", this::startBlockchainAnchor);
         addCommand("stopBlockchainAnchor", this::stopBlockchainAnchor);
         addCommand("setTxPendingLimit", this::setTxPendingLimit);
+        addCommand("setAMPkgSize", this::setAMPkgSize);
         addCommand("querySDPMsgSeq", this::querySDPMsgSeq);
     }
 
@@ -149,6 +156,36 @@ public class BlockchainNamespace extends AbstractNamespace {
         return JSON.toJSONString(anchorProcess, SerializerFeature.PrettyFormat);
     }
 
+    /**
+     * 查询本节点上同步任务的自适应并发状态
+     *
+     * @return
+     */
+    Object getSyncConcurrency(String... args) {
+        if (args.length != 2) {
+            return "wrong number of arguments";
+        }
+        String product = args[0];
+        String blockchainId = args[1];
+
+        SyncConcurrencyController controller = multiAnchorProcessService.getSyncConcurrencyController(product, blockchainId);
+        if (ObjectUtil.isNull(controller)) {
+            return "adaptive sync concurrency not enabled or anchor not running on this relayer";
+        }
+
+        JSONObject jsonObject = new JSONObject();
+        jsonObject.put("window", controller.getWindow());
+        jsonObject.put("min_window", controller.getMinWindow());
+        jsonObject.put("max_window", controller.getMaxWindow());
+        jsonObject.put("smoothed_latency_ms", (long) controller.getSmoothedLatency());
+        jsonObject.put("baseline_latency_ms", (long) controller.getBaselineLatency());
+        jsonObject.put("success_count", controller.getSuccessCount());
+        jsonObject.put("failure_count", controller.getFailureCount());
+        jsonObject.put("last_adjust_time", controller.getLastAdjustTime());
+
+        return JSON.toJSONString(jsonObject, SerializerFeature.PrettyFormat);
+    }
+
     Object addBlockchainAnchor(String... args) {
         if (args.length != 7) {
             return "wrong number of arguments";
@@ -335,6 +372,38 @@ public class BlockchainNamespace extends AbstractNamespace {
         return "success";
     }
 
+    Object setAMPkgSize(String... args) {
+        if (args.length != 3) {
+            return "wrong args size. ";
+        }
+
+        if (!StrUtil.isNumeric(args[2])) {
+            return "the third arg supposed to be numeric";
+        }
+
+        BlockchainMeta meta = this.blockchainManager.getBlockchainMeta(args[0], args[1]);
+        if (ObjectUtils.isEmpty(meta)) {
+            return String.format("none blockchain found for id %s", args[1]);
+        }
+
+        int amPkgSize = Integer.parseInt(args[2]);
+        if (amPkgSize <= 0) {
+            return "size of am package should be greater than zero!";
+        }
+
+        try {
+            systemConfigRepository.setSystemConfig(
+                    String.format("%s-%s-%s", Constants.AM_PKG_SIZE, args[0], args[1]),
+                    args[2]
+            );
+        } catch (Throwable e) {
+            log.error("failed to set am package size to blockchain ( product: {}, blockchain_id: {} )", args[0], args[1], e);
+            return "set am package size failed: " + e.getMessage();
+        }
+
+        return "success";
+    }
+
     Object querySDPMsgSeq(String... args) {
         if (args.length != 5) {
             return "wrong args size. ";
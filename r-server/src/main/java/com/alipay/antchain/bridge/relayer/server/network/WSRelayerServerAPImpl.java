@@ -19,6 +19,8 @@ package com.alipay.antchain.bridge.relayer.server.network;
 import java.security.Signature;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import javax.jws.WebMethod;
@@ -46,6 +48,7 @@ import com.alipay.antchain.bridge.relayer.core.manager.network.IRelayerNetworkMa
 import com.alipay.antchain.bridge.relayer.core.service.receiver.ReceiverService;
 import com.alipay.antchain.bridge.relayer.core.types.network.exception.RejectRequestException;
 import com.alipay.antchain.bridge.relayer.core.types.network.request.*;
+import com.alipay.antchain.bridge.relayer.core.types.network.response.BatchPropagateCrossChainMsgRespPayload;
 import com.alipay.antchain.bridge.relayer.core.types.network.response.ChannelStartRespPayload;
 import com.alipay.antchain.bridge.relayer.core.types.network.response.HelloStartRespPayload;
 import com.alipay.antchain.bridge.relayer.core.types.network.response.QueryCrossChainMsgReceiptsRespPayload;
@@ -111,6 +114,14 @@ public class WSRelayerServerAPImpl extends BaseRelayerServer implements WSRelaye
                 ).encode();
             }
 
+            if (ObjectUtil.isNull(request.getRequestType())) {
+                log.error("unknown relayer request type");
+                return RelayerResponse.createFailureResponse(
+                        RelayerResponse.REQUEST_TYPE_NOT_SUPPORTED_MSG,
+                        getRelayerCredentialManager()
+                ).encode();
+            }
+
             switch (request.getRequestType()) {
                 case GET_RELAYER_NODE_INFO:
                     return processGetRelayerNodeInfo().encode();
@@ -126,6 +137,10 @@ public class WSRelayerServerAPImpl extends BaseRelayerServer implements WSRelaye
                     return processPropagateCrossChainMsgRequest(
                             PropagateCrossChainMsgRequest.createFrom(request)
                     ).encode();
+                case BATCH_PROPAGATE_CROSSCHAIN_MESSAGE:
+                    return processBatchPropagateCrossChainMsgRequest(
+                            BatchPropagateCrossChainMsgRequest.createFrom(request)
+                    ).encode();
                 case QUERY_CROSSCHAIN_MSG_RECEIPT:
                     return processCrossChainMsgReceiptsQuery(
                             QueryCrossChainMsgReceiptRequest.createFrom(request)
@@ -140,14 +155,14 @@ public class WSRelayerServerAPImpl extends BaseRelayerServer implements WSRelaye
                     return processChannelComplete(ChannelCompleteRequest.createFrom(request)).encode();
                 default:
                     return RelayerResponse.createFailureResponse(
-                            "request type not supported: " + request.getRequestType().getCode(),
+                            RelayerResponse.REQUEST_TYPE_NOT_SUPPORTED_MSG + ": " + request.getRequestType().getCode(),
                             getRelayerCredentialManager()
                     ).encode();
             }
         } catch (Exception e) {
             log.error("unexpected exception happened: ", e);
             return RelayerResponse.createFailureResponse(
-                    "unexpected exception happened",
+                    RelayerResponse.UNEXPECTED_EXCEPTION_MSG,
                     getRelayerCredentialManager()
             ).encode();
         }
@@ -277,6 +292,76 @@ public class WSRelayerServerAPImpl extends BaseRelayerServer implements WSRelaye
         );
     }
 
+    private RelayerResponse processBatchPropagateCrossChainMsgRequest(BatchPropagateCrossChainMsgRequest request) {
+        if (!getRelayerCredentialManager().validateRelayerRequest(request)) {
+            log.error("failed to validate {} request from relayer {}", request.getRequestType().getCode(), request.calcRelayerNodeId());
+            return RelayerResponse.createFailureResponse(
+                    "verify crosschain cert failed",
+                    getRelayerCredentialManager()
+            );
+        }
+        if (ObjectUtil.isEmpty(request.getCrossChainMsgs())) {
+            return RelayerResponse.createFailureResponse(
+                    "empty crosschain messages",
+                    getRelayerCredentialManager()
+            );
+        }
+
+        // 每条消息单独处理，一条失败不影响其他消息
+        List<BatchPropagateCrossChainMsgRespPayload.PropagateResult> results = new ArrayList<>();
+        for (BatchPropagateCrossChainMsgRequest.CrossChainMsg msg : request.getCrossChainMsgs()) {
+            String errorMsg = null;
+            try {
+                propagateCrossChainMsg(
+                        msg.getDomainName(),
+                        msg.getUcpId(),
+                        msg.getAuthMsg(),
+                        msg.getUdagProof(),
+                        msg.getLedgerInfo()
+                );
+            } catch (RejectRequestException e) {
+                log.error(
+                        "reject am {} in batch request from (blockchain: {}, relayer: {}) failed: ",
+                        msg.getUcpId(), msg.getDomainName(), request.calcRelayerNodeId(),
+                        e
+                );
+                errorMsg = e.getErrorMsg();
+            } catch (AntChainBridgeRelayerException e) {
+                log.error(
+                        "handle am {} in batch request from (blockchain: {}, relayer: {}) failed: ",
+                        msg.getUcpId(), msg.getDomainName(), request.calcRelayerNodeId(),
+                        e
+                );
+                errorMsg = e.getMsg();
+            } catch (Exception e) {
+                log.error(
+                        "unexpected exception when handle am {} in batch request from (blockchain: {}, relayer: {}): ",
+                        msg.getUcpId(), msg.getDomainName(), request.calcRelayerNodeId(),
+                        e
+                );
+                errorMsg = "unexpected exception happened";
+            }
+            results.add(
+                    new BatchPropagateCrossChainMsgRespPayload.PropagateResult(
+                            msg.getUcpId(),
+                            ObjectUtil.isNull(errorMsg),
+                            errorMsg
+                    )
+            );
+        }
+
+        log.info(
+                "handle batch am request with {} messages from relayer {}: {} success",
+                results.size(), request.calcRelayerNodeId(),
+                results.stream().filter(BatchPropagateCrossChainMsgRespPayload.PropagateResult::isSuccess).count()
+        );
+
+        return RelayerResponse.createSuccessResponse(
+                new BatchPropagateCrossChainMsgRespPayload(results),
+                getRelayerCredentialManager()
+        );
+    }
+
     private RelayerResponse processCrossChainMsgReceiptsQuery(QueryCrossChainMsgReceiptRequest request) {
         if (!getRelayerCredentialManager().validateRelayerRequest(request)) {
             log.error("failed to validate {} request from relayer {}", request.getRequestType().getCode(), request.calcRelayerNodeId());